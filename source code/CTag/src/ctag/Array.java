@@ -132,19 +132,19 @@ public class Array implements Iterable<ITag> {
     }
 
     private void checkAddIndex( int index ) {
-        if( index < 0 || index > size() ) {
+        if( index < 0 || index > values.size() ) {
             throw new IndexOutOfBoundsException(
                     "Insert index out of bounds. Must be between 0 and " +
-                            size() + " (inclusive), found: " + index + "."
+                            values.size() + " (inclusive), found: " + index + "."
             );
         }
     }
 
     private void checkIndex( int index ) {
-        if( index < 0 || index > size() - 1 ) {
+        if( index < 0 || index > values.size() - 1 ) {
             throw new IndexOutOfBoundsException(
                     "Index out of bounds. Must be between 0 and " +
-                            ( size() - 1 ) + " (inclusive), found: " + index + "."
+                            ( values.size() - 1 ) + " (inclusive), found: " + index + "."
             );
         }
     }
@@ -1511,7 +1511,9 @@ public class Array implements Iterable<ITag> {
     }
 
     /**
-     * Returns a byte array tag of the array
+     * Returns a byte array tag of the array.
+     * Off-heap views are converted into a new tag, which is
+     * not stored in the array.
      * @param index The index of the tag
      * @return The byte array tag of the array at index
      * @exception WrongTagException If the tag at the index is not a byte array tag
@@ -1520,14 +1522,16 @@ public class Array implements Iterable<ITag> {
     public TagByteArray getTagByteArray( int index ) throws WrongTagException {
         checkIndex( index );
         try {
-            return ( TagByteArray ) values.get( index );
+            return ArrayTags.tagByteArray( values.get( index ) );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for TagByteArray, but did not found that." );
         }
     }
 
     /**
-     * Returns a short array tag of the array
+     * Returns a short array tag of the array.
+     * Off-heap views are converted into a new tag, which is
+     * not stored in the array.
      * @param index The index of the tag
      * @return The short array tag of the array at index
      * @exception WrongTagException If the tag at the index is not a byte array tag
@@ -1536,14 +1540,16 @@ public class Array implements Iterable<ITag> {
     public TagShortArray getTagShortArray( int index ) throws WrongTagException {
         checkIndex( index );
         try {
-            return ( TagShortArray ) values.get( index );
+            return ArrayTags.tagShortArray( values.get( index ) );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for TagShortArray, but did not found that." );
         }
     }
 
     /**
-     * Returns an integer array tag of the array
+     * Returns an integer array tag of the array.
+     * Varint arrays and off-heap views are converted into a new tag, which is
+     * not stored in the array.
      * @param index The index of the tag
      * @return The integer array tag of the array at index
      * @exception WrongTagException If the tag at the index is not a byte array tag
@@ -1552,14 +1558,16 @@ public class Array implements Iterable<ITag> {
     public TagIntegerArray getTagIntegerArray( int index ) throws WrongTagException {
         checkIndex( index );
         try {
-            return ( TagIntegerArray ) values.get( index );
+            return ArrayTags.tagIntegerArray( values.get( index ) );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for TagIntegerArray, but did not found that." );
         }
     }
 
     /**
-     * Returns a long array tag of the array
+     * Returns a long array tag of the array.
+     * Varint arrays and off-heap views are converted into a new tag, which is
+     * not stored in the array.
      * @param index The index of the tag
      * @return The long array tag of the array at index
      * @exception WrongTagException If the tag at the index is not a byte array tag
@@ -1568,14 +1576,16 @@ public class Array implements Iterable<ITag> {
     public TagLongArray getTagLongArray( int index ) throws WrongTagException {
         checkIndex( index );
         try {
-            return ( TagLongArray ) values.get( index );
+            return ArrayTags.tagLongArray( values.get( index ) );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for TagLongArray, but did not found that." );
         }
     }
 
     /**
-     * Returns a float array tag of the array
+     * Returns a float array tag of the array.
+     * Off-heap views are converted into a new tag, which is
+     * not stored in the array.
      * @param index The index of the tag
      * @return The float array tag of the array at index
      * @exception WrongTagException If the tag at the index is not a byte array tag
@@ -1584,14 +1594,16 @@ public class Array implements Iterable<ITag> {
     public TagFloatArray getTagFloatArray( int index ) throws WrongTagException {
         checkIndex( index );
         try {
-            return ( TagFloatArray ) values.get( index );
+            return ArrayTags.tagFloatArray( values.get( index ) );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for TagFloatArray, but did not found that." );
         }
     }
 
     /**
-     * Returns a double array tag of the array
+     * Returns a double array tag of the array.
+     * Off-heap views are converted into a new tag, which is
+     * not stored in the array.
      * @param index The index of the tag
      * @return The double array tag of the array at index
      * @exception WrongTagException If the tag at the index is not a byte array tag
@@ -1600,14 +1612,16 @@ public class Array implements Iterable<ITag> {
     public TagDoubleArray getTagDoubleArray( int index ) throws WrongTagException {
         checkIndex( index );
         try {
-            return ( TagDoubleArray ) values.get( index );
+            return ArrayTags.tagDoubleArray( values.get( index ) );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for TagDoubleArray, but did not found that." );
         }
     }
 
     /**
-     * Returns a boolean array tag of the array
+     * Returns a boolean array tag of the array.
+     * Bit sets are converted into a new tag, which is
+     * not stored in the array.
      * @param index The index of the tag
      * @return The double array tag of the array at index
      * @exception WrongTagException If the tag at the index is not a byte array tag
@@ -1616,7 +1630,7 @@ public class Array implements Iterable<ITag> {
     public TagBooleanArray getTagBooleanArray( int index ) throws WrongTagException {
         checkIndex( index );
         try {
-            return ( TagBooleanArray ) values.get( index );
+            return ArrayTags.tagBooleanArray( values.get( index ) );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for TagBooleanArray, but did not found that." );
         }
@@ -1808,7 +1822,7 @@ public class Array implements Iterable<ITag> {
     public byte[] getByteArray( int index ) throws WrongTagException {
         checkIndex( index );
         try {
-            return ( ( TagByteArray ) values.get( index ) ).getValue();
+            return ArrayTags.bytes( values.get( index ) );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for ByteArray, but did not found tag for that." );
         }
@@ -1824,7 +1838,7 @@ public class Array implements Iterable<ITag> {
     public short[] getShortArray( int index ) throws WrongTagException {
         checkIndex( index );
         try {
-            return ( ( TagShortArray ) values.get( index ) ).getValue();
+            return ArrayTags.shorts( values.get( index ) );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for ShortArray, but did not found tag for that." );
         }
@@ -1840,7 +1854,7 @@ public class Array implements Iterable<ITag> {
     public int[] getIntegerArray( int index ) throws WrongTagException {
         checkIndex( index );
         try {
-            return ( ( TagIntegerArray ) values.get( index ) ).getValue();
+            return ArrayTags.ints( values.get( index ) );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for IntegerArray, but did not found tag for that." );
         }
@@ -1856,7 +1870,7 @@ public class Array implements Iterable<ITag> {
     public long[] getLongArray( int index ) throws WrongTagException {
         checkIndex( index );
         try {
-            return ( ( TagLongArray ) values.get( index ) ).getValue();
+            return ArrayTags.longs( values.get( index ) );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for LongArray, but did not found tag for that." );
         }
@@ -1872,7 +1886,7 @@ public class Array implements Iterable<ITag> {
     public float[] getFloatArray( int index ) throws WrongTagException {
         checkIndex( index );
         try {
-            return ( ( TagFloatArray ) values.get( index ) ).getValue();
+            return ArrayTags.floats( values.get( index ) );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for FloatArray, but did not found tag for that." );
         }
@@ -1888,7 +1902,7 @@ public class Array implements Iterable<ITag> {
     public double[] getDoubleArray( int index ) throws WrongTagException {
         checkIndex( index );
         try {
-            return ( ( TagDoubleArray ) values.get( index ) ).getValue();
+            return ArrayTags.doubles( values.get( index ) );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for DoubleArray, but did not found tag for that." );
         }
@@ -1904,7 +1918,7 @@ public class Array implements Iterable<ITag> {
     public boolean[] getBooleanArray( int index ) throws WrongTagException {
         checkIndex( index );
         try {
-            return ( ( TagBooleanArray ) values.get( index ) ).getValue();
+            return ArrayTags.booleans( values.get( index ) );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for BooleanArray, but did not found tag for that." );
         }
@@ -2103,7 +2117,9 @@ public class Array implements Iterable<ITag> {
     }
 
     /**
-     * Returns a byte array tag of the array
+     * Returns a byte array tag of the array.
+     * Off-heap views are converted into a new tag, which is
+     * not stored in the array.
      * @param index The index of the tag
      * @param def A default value if no byte array found
      * @return The byte array tag of the array at index
@@ -2112,14 +2128,16 @@ public class Array implements Iterable<ITag> {
     public TagByteArray optTagByteArray( int index, TagByteArray def ) {
         checkIndex( index );
         try {
-            return ( TagByteArray ) values.get( index );
+            return ArrayTags.tagByteArray( values.get( index ) );
         } catch( ClassCastException exception ) {
             return def;
         }
     }
 
     /**
-     * Returns a short array tag of the array
+     * Returns a short array tag of the array.
+     * Off-heap views are converted into a new tag, which is
+     * not stored in the array.
      * @param index The index of the tag
      * @param def A default value if no short array found
      * @return The short array tag of the array at index
@@ -2128,14 +2146,16 @@ public class Array implements Iterable<ITag> {
     public TagShortArray optTagShortArray( int index, TagShortArray def ) {
         checkIndex( index );
         try {
-            return ( TagShortArray ) values.get( index );
+            return ArrayTags.tagShortArray( values.get( index ) );
         } catch( ClassCastException exception ) {
             return def;
         }
     }
 
     /**
-     * Returns an integer array tag of the array
+     * Returns an integer array tag of the array.
+     * Varint arrays and off-heap views are converted into a new tag, which is
+     * not stored in the array.
      * @param index The index of the tag
      * @param def A default value if no integer array found
      * @return The integer array tag of the array at index
@@ -2144,14 +2164,16 @@ public class Array implements Iterable<ITag> {
     public TagIntegerArray optTagIntegerArray( int index, TagIntegerArray def ) {
         checkIndex( index );
         try {
-            return ( TagIntegerArray ) values.get( index );
+            return ArrayTags.tagIntegerArray( values.get( index ) );
         } catch( ClassCastException exception ) {
             return def;
         }
     }
 
     /**
-     * Returns a long array tag of the array
+     * Returns a long array tag of the array.
+     * Varint arrays and off-heap views are converted into a new tag, which is
+     * not stored in the array.
      * @param index The index of the tag
      * @param def A default value if no long array found
      * @return The long array tag of the array at index
@@ -2160,14 +2182,16 @@ public class Array implements Iterable<ITag> {
     public TagLongArray optTagLongArray( int index, TagLongArray def ) {
         checkIndex( index );
         try {
-            return ( TagLongArray ) values.get( index );
+            return ArrayTags.tagLongArray( values.get( index ) );
         } catch( ClassCastException exception ) {
             return def;
         }
     }
 
     /**
-     * Returns a float array tag of the array
+     * Returns a float array tag of the array.
+     * Off-heap views are converted into a new tag, which is
+     * not stored in the array.
      * @param index The index of the tag
      * @param def A default value if no float array found
      * @return The float array tag of the array at index
@@ -2176,14 +2200,16 @@ public class Array implements Iterable<ITag> {
     public TagFloatArray optTagFloatArray( int index, TagFloatArray def ) {
         checkIndex( index );
         try {
-            return ( TagFloatArray ) values.get( index );
+            return ArrayTags.tagFloatArray( values.get( index ) );
         } catch( ClassCastException exception ) {
             return def;
         }
     }
 
     /**
-     * Returns a double array tag of the array
+     * Returns a double array tag of the array.
+     * Off-heap views are converted into a new tag, which is
+     * not stored in the array.
      * @param index The index of the tag
      * @param def A default value if no double array found
      * @return The double array tag of the array at index
@@ -2192,14 +2218,16 @@ public class Array implements Iterable<ITag> {
     public TagDoubleArray optTagDoubleArray( int index, TagDoubleArray def ) {
         checkIndex( index );
         try {
-            return ( TagDoubleArray ) values.get( index );
+            return ArrayTags.tagDoubleArray( values.get( index ) );
         } catch( ClassCastException exception ) {
             return def;
         }
     }
 
     /**
-     * Returns a boolean array tag of the array
+     * Returns a boolean array tag of the array.
+     * Bit sets are converted into a new tag, which is
+     * not stored in the array.
      * @param index The index of the tag
      * @param def A default value if no boolean array found
      * @return The boolean array tag of the array at index
@@ -2208,7 +2236,7 @@ public class Array implements Iterable<ITag> {
     public TagBooleanArray optTagBooleanArray( int index, TagBooleanArray def ) {
         checkIndex( index );
         try {
-            return ( TagBooleanArray ) values.get( index );
+            return ArrayTags.tagBooleanArray( values.get( index ) );
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -2400,7 +2428,7 @@ public class Array implements Iterable<ITag> {
     public byte[] optByteArray( int index, byte[] def ) {
         checkIndex( index );
         try {
-            return ( ( TagByteArray ) values.get( index ) ).getValue();
+            return ArrayTags.bytes( values.get( index ) );
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -2416,7 +2444,7 @@ public class Array implements Iterable<ITag> {
     public short[] optShortArray( int index, short[] def ) {
         checkIndex( index );
         try {
-            return ( ( TagShortArray ) values.get( index ) ).getValue();
+            return ArrayTags.shorts( values.get( index ) );
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -2432,7 +2460,7 @@ public class Array implements Iterable<ITag> {
     public int[] optIntegerArray( int index, int[] def ) {
         checkIndex( index );
         try {
-            return ( ( TagIntegerArray ) values.get( index ) ).getValue();
+            return ArrayTags.ints( values.get( index ) );
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -2448,7 +2476,7 @@ public class Array implements Iterable<ITag> {
     public long[] optLongArray( int index, long[] def ) {
         checkIndex( index );
         try {
-            return ( ( TagLongArray ) values.get( index ) ).getValue();
+            return ArrayTags.longs( values.get( index ) );
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -2464,7 +2492,7 @@ public class Array implements Iterable<ITag> {
     public double[] optDoubleArray( int index, double[] def ) {
         checkIndex( index );
         try {
-            return ( ( TagDoubleArray ) values.get( index ) ).getValue();
+            return ArrayTags.doubles( values.get( index ) );
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -2480,7 +2508,7 @@ public class Array implements Iterable<ITag> {
     public float[] optFloatArray( int index, float[] def ) {
         checkIndex( index );
         try {
-            return ( ( TagFloatArray ) values.get( index ) ).getValue();
+            return ArrayTags.floats( values.get( index ) );
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -2496,7 +2524,7 @@ public class Array implements Iterable<ITag> {
     public boolean[] optBooleanArray( int index, boolean[] def ) {
         checkIndex( index );
         try {
-            return ( ( TagBooleanArray ) values.get( index ) ).getValue();
+            return ArrayTags.booleans( values.get( index ) );
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -2575,12 +2603,22 @@ public class Array implements Iterable<ITag> {
         return ( short ) values.size();
     }
 
+    /**
+     * Returns the amount of tags in the array. Unlike {@link #size()}, this
+     * does not overflow for arrays of more than 32767 tags.
+     * @return The size of the array
+     * @since 1.2
+     */
+    public int length() {
+        return values.size();
+    }
+
     /**
      * Returns the contained tags as a native array ({@link ITag}{@code []}).
      * @since 1.0
      */
     public ITag[] getTags() {
-        return values.toArray( new ITag[ size() ] );
+        return values.toArray( new ITag[ values.size() ] );
     }
 
     /**
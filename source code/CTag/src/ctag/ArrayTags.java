@@ -0,0 +1,201 @@
+package ctag;
+
+import ctag.tags.*;
+
+import java.util.BitSet;
+
+/**
+ * Reads the values of primitive array tags for the getters of
+ * {@link Compound} and {@link Array}. A primitive array can be held by more
+ * than one tag type, depending on how it was made or decoded: as a varint
+ * array, an off-heap view or a bit set.
+ */
+final class ArrayTags {
+    /**
+     * Returns the booleans of a boolean array tag, which can be decoded as
+     * {@link TagBitSet} as well
+     * @exception ClassCastException When the tag is no boolean array tag
+     */
+    static boolean[] booleans( ITag tag ) {
+        if( tag instanceof TagBitSet ) {
+            return ( ( TagBitSet ) tag ).toBooleanArray();
+        }
+        return ( ( TagBooleanArray ) tag ).getValue();
+    }
+
+    /**
+     * Returns the bytes of a byte array tag, which can be decoded as
+     * {@link TagByteBuffer} as well
+     * @exception ClassCastException When the tag is no byte array tag
+     */
+    static byte[] bytes( ITag tag ) {
+        if( tag instanceof TagByteBuffer ) {
+            return ( ( TagByteBuffer ) tag ).toByteArray();
+        }
+        return ( ( TagByteArray ) tag ).getValue();
+    }
+
+    /**
+     * Returns the integers of an integer array tag, which can be a
+     * {@link TagVarIntArray} or {@link TagIntBuffer} as well
+     * @exception ClassCastException When the tag is no integer array tag
+     */
+    static int[] ints( ITag tag ) {
+        if( tag instanceof TagVarIntArray ) {
+            return ( ( TagVarIntArray ) tag ).getValue();
+        }
+        if( tag instanceof TagIntBuffer ) {
+            return ( ( TagIntBuffer ) tag ).toIntArray();
+        }
+        return ( ( TagIntegerArray ) tag ).getValue();
+    }
+
+    /**
+     * Returns the longs of a long array tag, which can be a
+     * {@link TagVarLongArray} or {@link TagLongBuffer} as well
+     * @exception ClassCastException When the tag is no long array tag
+     */
+    static long[] longs( ITag tag ) {
+        if( tag instanceof TagVarLongArray ) {
+            return ( ( TagVarLongArray ) tag ).getValue();
+        }
+        if( tag instanceof TagLongBuffer ) {
+            return ( ( TagLongBuffer ) tag ).toLongArray();
+        }
+        return ( ( TagLongArray ) tag ).getValue();
+    }
+
+    /**
+     * Returns the values of a short array tag, which can be decoded as
+     * {@link TagShortBuffer} as well
+     * @exception ClassCastException When the tag is no short array tag
+     */
+    static short[] shorts( ITag tag ) {
+        if( tag instanceof TagShortBuffer ) {
+            return ( ( TagShortBuffer ) tag ).toShortArray();
+        }
+        return ( ( TagShortArray ) tag ).getValue();
+    }
+
+    /**
+     * Returns the values of a float array tag, which can be decoded as
+     * {@link TagFloatBuffer} as well
+     * @exception ClassCastException When the tag is no float array tag
+     */
+    static float[] floats( ITag tag ) {
+        if( tag instanceof TagFloatBuffer ) {
+            return ( ( TagFloatBuffer ) tag ).toFloatArray();
+        }
+        return ( ( TagFloatArray ) tag ).getValue();
+    }
+
+    /**
+     * Returns the values of a double array tag, which can be decoded as
+     * {@link TagDoubleBuffer} as well
+     * @exception ClassCastException When the tag is no double array tag
+     */
+    static double[] doubles( ITag tag ) {
+        if( tag instanceof TagDoubleBuffer ) {
+            return ( ( TagDoubleBuffer ) tag ).toDoubleArray();
+        }
+        return ( ( TagDoubleArray ) tag ).getValue();
+    }
+
+    /**
+     * Returns the booleans of a boolean array tag as a {@link BitSet}
+     * @exception ClassCastException When the tag is no boolean array tag
+     */
+    static BitSet bits( ITag tag ) {
+        if( tag instanceof TagBooleanArray ) {
+            return new TagBitSet( ( ( TagBooleanArray ) tag ).getValue() ).getValue();
+        }
+        return ( ( TagBitSet ) tag ).getValue();
+    }
+
+    /**
+     * Returns a {@link TagByteArray} for a byte array tag. Other tag types
+     * holding a byte array, off-heap views, are converted into a new tag.
+     * @exception ClassCastException When the tag is no byte array tag
+     */
+    static TagByteArray tagByteArray( ITag tag ) {
+        if( tag instanceof TagByteArray ) {
+            return ( TagByteArray ) tag;
+        }
+        return new TagByteArray( bytes( tag ) );
+    }
+
+    /**
+     * Returns a {@link TagShortArray} for a short array tag. Other tag types
+     * holding a short array, off-heap views, are converted into a new tag.
+     * @exception ClassCastException When the tag is no short array tag
+     */
+    static TagShortArray tagShortArray( ITag tag ) {
+        if( tag instanceof TagShortArray ) {
+            return ( TagShortArray ) tag;
+        }
+        return new TagShortArray( shorts( tag ) );
+    }
+
+    /**
+     * Returns a {@link TagIntegerArray} for a integer array tag. Other tag types
+     * holding a integer array, varint arrays and off-heap views, are converted into a new tag.
+     * @exception ClassCastException When the tag is no integer array tag
+     */
+    static TagIntegerArray tagIntegerArray( ITag tag ) {
+        if( tag instanceof TagIntegerArray ) {
+            return ( TagIntegerArray ) tag;
+        }
+        return new TagIntegerArray( ints( tag ) );
+    }
+
+    /**
+     * Returns a {@link TagLongArray} for a long array tag. Other tag types
+     * holding a long array, varint arrays and off-heap views, are converted into a new tag.
+     * @exception ClassCastException When the tag is no long array tag
+     */
+    static TagLongArray tagLongArray( ITag tag ) {
+        if( tag instanceof TagLongArray ) {
+            return ( TagLongArray ) tag;
+        }
+        return new TagLongArray( longs( tag ) );
+    }
+
+    /**
+     * Returns a {@link TagFloatArray} for a float array tag. Other tag types
+     * holding a float array, off-heap views, are converted into a new tag.
+     * @exception ClassCastException When the tag is no float array tag
+     */
+    static TagFloatArray tagFloatArray( ITag tag ) {
+        if( tag instanceof TagFloatArray ) {
+            return ( TagFloatArray ) tag;
+        }
+        return new TagFloatArray( floats( tag ) );
+    }
+
+    /**
+     * Returns a {@link TagDoubleArray} for a double array tag. Other tag types
+     * holding a double array, off-heap views, are converted into a new tag.
+     * @exception ClassCastException When the tag is no double array tag
+     */
+    static TagDoubleArray tagDoubleArray( ITag tag ) {
+        if( tag instanceof TagDoubleArray ) {
+            return ( TagDoubleArray ) tag;
+        }
+        return new TagDoubleArray( doubles( tag ) );
+    }
+
+    /**
+     * Returns a {@link TagBooleanArray} for a boolean array tag. Other tag types
+     * holding a boolean array, bit sets, are converted into a new tag.
+     * @exception ClassCastException When the tag is no boolean array tag
+     */
+    static TagBooleanArray tagBooleanArray( ITag tag ) {
+        if( tag instanceof TagBooleanArray ) {
+            return ( TagBooleanArray ) tag;
+        }
+        return new TagBooleanArray( booleans( tag ) );
+    }
+
+    private ArrayTags() {
+    }
+}
@@ -0,0 +1,279 @@
+package ctag;
+
+import ctag.exception.Base64Exception;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes and decodes the base-64 format CTag uses for strings. The alphabet
+ * ends with {@code +} and {@code -}, and no padding is added: a trailing group
+ * of 2 or 3 characters holds 1 or 2 bytes.
+ * <br/><br/>
+ * Bytes are processed in blocks of 3 bytes (4 characters). Encoding looks up
+ * two characters at once for each 12 bits, and the output is allocated with
+ * its exact size before encoding or decoding.
+ * @since 1.2
+ */
+public final class Base64Codec {
+    private static final char[] ALPHABET = {
+            'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M',
+            'N', 'O', 'P', 'Q', 'R', 'S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z',
+            'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', 'j', 'k', 'l', 'm',
+            'n', 'o', 'p', 'q', 'r', 's', 't', 'u', 'v', 'w', 'x', 'y', 'z',
+            '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', '+', '-'
+    };
+
+    // Character value for each character below 256, -1 if not in the alphabet
+    private static final byte[] REVERSE = new byte[ 256 ];
+
+    // Two characters for each 12-bit value, high character first
+    private static final char[] PAIRS = new char[ 4096 * 2 ];
+
+    static {
+        for( int i = 0; i < REVERSE.length; i++ ) {
+            REVERSE[ i ] = -1;
+        }
+        for( int i = 0; i < ALPHABET.length; i++ ) {
+            REVERSE[ ALPHABET[ i ] ] = ( byte ) i;
+        }
+        for( int i = 0; i < 4096; i++ ) {
+            PAIRS[ i * 2 ] = ALPHABET[ i >>> 6 ];
+            PAIRS[ i * 2 + 1 ] = ALPHABET[ i & 63 ];
+        }
+    }
+
+    private Base64Codec() {
+    }
+
+    /**
+     * Returns the amount of characters needed to encode an amount of bytes
+     * @param bytes The amount of bytes
+     * @since 1.2
+     */
+    public static int encodedLength( int bytes ) {
+        int rest = bytes % 3;
+        return bytes / 3 * 4 + ( rest == 0 ? 0 : rest + 1 );
+    }
+
+    /**
+     * Returns the amount of bytes an amount of base-64 characters decode to. A
+     * single trailing character holds no full byte and is ignored.
+     * @param chars The amount of characters
+     * @since 1.2
+     */
+    public static int decodedLength( int chars ) {
+        int rest = chars % 4;
+        return chars / 4 * 3 + ( rest < 2 ? 0 : rest - 1 );
+    }
+
+    /**
+     * Encodes a range of bytes into a character array.
+     * @param src    The bytes to encode
+     * @param off    The index of the first byte
+     * @param len    The amount of bytes
+     * @param dst    The array to write the characters into, which needs room
+     *               for {@link #encodedLength(int)} characters
+     * @param dstOff The index of the first character to write
+     * @return The amount of characters written
+     * @since 1.2
+     */
+    public static int encode( byte[] src, int off, int len, char[] dst, int dstOff ) {
+        int i = off;
+        int o = dstOff;
+        int fullEnd = off + len - len % 3;
+        while( i < fullEnd ) {
+            int bits = ( src[ i ] & 0xff ) << 16 | ( src[ i + 1 ] & 0xff ) << 8 | src[ i + 2 ] & 0xff;
+            int high = bits >>> 12 << 1;
+            int low = ( bits & 0xfff ) << 1;
+            dst[ o ] = PAIRS[ high ];
+            dst[ o + 1 ] = PAIRS[ high + 1 ];
+            dst[ o + 2 ] = PAIRS[ low ];
+            dst[ o + 3 ] = PAIRS[ low + 1 ];
+            i += 3;
+            o += 4;
+        }
+        int rest = off + len - fullEnd;
+        if( rest == 1 ) {
+            int b1 = src[ i ] & 0xff;
+            dst[ o++ ] = ALPHABET[ b1 >>> 2 ];
+            dst[ o++ ] = ALPHABET[ ( b1 & 3 ) << 4 ];
+        } else if( rest == 2 ) {
+            int b1 = src[ i ] & 0xff;
+            int b2 = src[ i + 1 ] & 0xff;
+            dst[ o++ ] = ALPHABET[ b1 >>> 2 ];
+            dst[ o++ ] = ALPHABET[ ( b1 & 3 ) << 4 | b2 >>> 4 ];
+            dst[ o++ ] = ALPHABET[ ( b2 & 15 ) << 2 ];
+        }
+        return o - dstOff;
+    }
+
+    /**
+     * Encodes a range of bytes into a base-64 string
+     * @param src The bytes to encode
+     * @param off The index of the first byte
+     * @param len The amount of bytes
+     * @since 1.2
+     */
+    public static String encode( byte[] src, int off, int len ) {
+        char[] chars = new char[ encodedLength( len ) ];
+        encode( src, off, len, chars, 0 );
+        return new String( chars );
+    }
+
+    /**
+     * Encodes bytes into a base-64 string
+     * @param src The bytes to encode
+     * @since 1.2
+     */
+    public static String encode( byte[] src ) {
+        return encode( src, 0, src.length );
+    }
+
+    /**
+     * Encodes the remaining bytes of a buffer into a base-64 string. The
+     * position of the buffer is moved to its limit.
+     * @param src The buffer to encode
+     * @since 1.2
+     */
+    public static String encode( ByteBuffer src ) {
+        int len = src.remaining();
+        if( src.hasArray() ) {
+            String string = encode( src.array(), src.arrayOffset() + src.position(), len );
+            src.position( src.limit() );
+            return string;
+        }
+        byte[] bytes = new byte[ len ];
+        src.get( bytes );
+        return encode( bytes );
+    }
+
+    private static int value( int c ) {
+        int v = c < 256 ? REVERSE[ c ] : -1;
+        if( v < 0 ) {
+            throw new Base64Exception( "Found invalid base-64 character: '" + ( char ) c + "'." );
+        }
+        return v;
+    }
+
+    /**
+     * Decodes a range of base-64 characters, given as ASCII bytes.
+     * @param src    The characters to decode
+     * @param off    The index of the first character
+     * @param len    The amount of characters
+     * @param dst    The array to write the bytes into, which needs room for
+     *               {@link #decodedLength(int)} bytes
+     * @param dstOff The index of the first byte to write
+     * @return The amount of bytes written
+     * @exception Base64Exception When a character is not in the alphabet
+     * @since 1.2
+     */
+    public static int decode( byte[] src, int off, int len, byte[] dst, int dstOff ) {
+        int i = off;
+        int o = dstOff;
+        int fullEnd = off + len - len % 4;
+        while( i < fullEnd ) {
+            int v1 = REVERSE[ src[ i ] & 0xff ];
+            int v2 = REVERSE[ src[ i + 1 ] & 0xff ];
+            int v3 = REVERSE[ src[ i + 2 ] & 0xff ];
+            int v4 = REVERSE[ src[ i + 3 ] & 0xff ];
+            if( ( v1 | v2 | v3 | v4 ) < 0 ) {
+                value( src[ i ] & 0xff );
+                value( src[ i + 1 ] & 0xff );
+                value( src[ i + 2 ] & 0xff );
+                value( src[ i + 3 ] & 0xff );
+            }
+            int bits = v1 << 18 | v2 << 12 | v3 << 6 | v4;
+            dst[ o ] = ( byte ) ( bits >>> 16 );
+            dst[ o + 1 ] = ( byte ) ( bits >>> 8 );
+            dst[ o + 2 ] = ( byte ) bits;
+            i += 4;
+            o += 3;
+        }
+        int rest = off + len - fullEnd;
+        if( rest >= 2 ) {
+            int v1 = value( src[ i ] & 0xff );
+            int v2 = value( src[ i + 1 ] & 0xff );
+            dst[ o++ ] = ( byte ) ( v1 << 2 | v2 >>> 4 );
+            if( rest == 3 ) {
+                int v3 = value( src[ i + 2 ] & 0xff );
+                dst[ o++ ] = ( byte ) ( v2 << 4 | v3 >>> 2 );
+            }
+        }
+        return o - dstOff;
+    }
+
+    /**
+     * Decodes a range of base-64 characters.
+     * @param src    The characters to decode
+     * @param off    The index of the first character
+     * @param len    The amount of characters
+     * @param dst    The array to write the bytes into, which needs room for
+     *               {@link #decodedLength(int)} bytes
+     * @param dstOff The index of the first byte to write
+     * @return The amount of bytes written
+     * @exception Base64Exception When a character is not in the alphabet
+     * @since 1.2
+     */
+    public static int decode( CharSequence src, int off, int len, byte[] dst, int dstOff ) {
+        int i = off;
+        int o = dstOff;
+        int fullEnd = off + len - len % 4;
+        while( i < fullEnd ) {
+            int bits = value( src.charAt( i ) ) << 18
+                    | value( src.charAt( i + 1 ) ) << 12
+                    | value( src.charAt( i + 2 ) ) << 6
+                    | value( src.charAt( i + 3 ) );
+            dst[ o ] = ( byte ) ( bits >>> 16 );
+            dst[ o + 1 ] = ( byte ) ( bits >>> 8 );
+            dst[ o + 2 ] = ( byte ) bits;
+            i += 4;
+            o += 3;
+        }
+        int rest = off + len - fullEnd;
+        if( rest >= 2 ) {
+            int v1 = value( src.charAt( i ) );
+            int v2 = value( src.charAt( i + 1 ) );
+            dst[ o++ ] = ( byte ) ( v1 << 2 | v2 >>> 4 );
+            if( rest == 3 ) {
+                int v3 = value( src.charAt( i + 2 ) );
+                dst[ o++ ] = ( byte ) ( v2 << 4 | v3 >>> 2 );
+            }
+        }
+        return o - dstOff;
+    }
+
+    /**
+     * Decodes a base-64 string
+     * @param src The characters to decode
+     * @return The decoded bytes
+     * @exception Base64Exception When a character is not in the alphabet
+     * @since 1.2
+     */
+    public static byte[] decode( CharSequence src ) {
+        byte[] bytes = new byte[ decodedLength( src.length() ) ];
+        decode( src, 0, src.length(), bytes, 0 );
+        return bytes;
+    }
+
+    /**
+     * Decodes the remaining base-64 characters of a buffer, given as ASCII
+     * bytes. The position of the buffer is moved to its limit.
+     * @param src The characters to decode
+     * @return The decoded bytes
+     * @exception Base64Exception When a character is not in the alphabet
+     * @since 1.2
+     */
+    public static byte[] decode( ByteBuffer src ) {
+        int len = src.remaining();
+        byte[] bytes = new byte[ decodedLength( len ) ];
+        if( src.hasArray() ) {
+            decode( src.array(), src.arrayOffset() + src.position(), len, bytes, 0 );
+            src.position( src.limit() );
+        } else {
+            byte[] chars = new byte[ len ];
+            src.get( chars );
+            decode( chars, 0, len, bytes, 0 );
+        }
+        return bytes;
+    }
+}
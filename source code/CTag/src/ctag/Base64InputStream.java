@@ -1,101 +1,100 @@
 package ctag;
 
-import ctag.exception.Base64Exception;
-
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
 
 /**
  * InputStream that reads base-64 encoded bytes. The ouptut gives decoded bytes.
  * The decoder uses this to read a file, without decoding the file completely
- * before decoding. It rather decodes each 3 bytes (4 B64 bytes).
+ * before decoding. It reads the base-64 characters in chunks and decodes each
+ * 4 characters into 3 bytes, using buffers of a fixed size.
  */
 public class Base64InputStream extends InputStream {
-    private ArrayList<Byte> bytes = new ArrayList<>();
-    private InputStream base64;
+    private static final int BUFFER_SIZE = 4096;
+
+    private final InputStream base64;
+    private final byte[] chars = new byte[ BUFFER_SIZE ];
+    private final byte[] bytes = new byte[ BUFFER_SIZE / 4 * 3 ];
+    // Amount of characters in 'chars' that did not form a full group yet
+    private int pending;
+    private int position;
+    private int end;
+    private boolean eof;
 
     public Base64InputStream( InputStream stream ) throws IOException {
         base64 = stream;
-        loadBytes();
     }
 
 
-    private static final char[] BASE64ARR = {
-            'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M',
-            'N', 'O', 'P', 'Q', 'R', 'S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z',
-            'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', 'j', 'k', 'l', 'm',
-            'n', 'o', 'p', 'q', 'r', 's', 't', 'u', 'v', 'w', 'x', 'y', 'z',
-            '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', '+', '-'
-    };
-
-    // Dammet default value, I want -1
-    private static final byte[] BASE64REVERSE = {
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1
-    };
+    /**
+     * Decodes the next chunk into the byte buffer.
+     * @return False if the end of the base-64 stream is reached
+     */
+    private boolean loadBytes() throws IOException {
+        position = 0;
+        end = 0;
+        while( end == 0 ) {
+            if( eof ) {
+                if( pending < 2 ) {
+                    // A single trailing character does not hold a full byte
+                    pending = 0;
+                    return false;
+                }
+                end = Base64Codec.decode( chars, 0, pending, bytes, 0 );
+                pending = 0;
+                return true;
+            }
 
-    static {
-        for( int i = 0; i < BASE64ARR.length; i++ ) {
-            BASE64REVERSE[ BASE64ARR[ i ] ] = ( byte ) i;
+            int read = base64.read( chars, pending, chars.length - pending );
+            if( read < 0 ) {
+                eof = true;
+                continue;
+            }
+            int total = pending + read;
+            int full = total - total % 4;
+            end = Base64Codec.decode( chars, 0, full, bytes, 0 );
+            System.arraycopy( chars, full, chars, 0, total - full );
+            pending = total - full;
         }
+        return true;
     }
 
-    private void loadBytes() throws IOException {
-        while( true ) {
-            int byte1 = base64.read();
-            if( byte1 == -1 ) {
-                break;
-            }
-
-            int byte2 = base64.read();
-            if( byte2 == -1 ) {
-                break;
-            } else {
-                bytes.add( ( byte ) ( ( BASE64REVERSE[ byte1 ] << 2 ) + ( ( BASE64REVERSE[ byte2 ] & 63 ) >>> 4 ) ) );
-            }
+    @Override
+    public int read() throws IOException {
+        if( position == end && !loadBytes() ) {
+            return -1;
+        }
+        return bytes[ position++ ] & 0xFF;
+    }
 
-            int byte3 = base64.read();
-            if( byte3 == -1 ) {
-                break;
-            } else {
-                bytes.add( ( byte ) ( ( BASE64REVERSE[ byte2 ] << 4 ) + ( ( BASE64REVERSE[ byte3 ] & 63 ) >>> 2 ) ) );
-            }
-            int byte4 = base64.read();
-            if( byte4 == -1) {
+    @Override
+    public int read( byte[] b, int off, int len ) throws IOException {
+        if( off < 0 || len < 0 || len > b.length - off ) {
+            throw new IndexOutOfBoundsException();
+        }
+        if( len == 0 ) {
+            return 0;
+        }
+        int total = 0;
+        while( total < len ) {
+            if( position == end && !loadBytes() ) {
                 break;
-            } else {
-                bytes.add( ( byte ) ( ( BASE64REVERSE[ byte3 ] << 6 ) + ( BASE64REVERSE[ byte4 ] & 63 ) ) );
             }
+            int amount = Math.min( len - total, end - position );
+            System.arraycopy( bytes, position, b, off + total, amount );
+            position += amount;
+            total += amount;
         }
+        return total == 0 ? -1 : total;
     }
 
     @Override
-    public int read() throws IOException {
-        if( !bytes.isEmpty() ) {
-            Byte r = bytes.remove( 0 );
-            if( r == null ) {
-                throw new IOException( "Parsed byte is null? Not possible..." );
-            }
-            if( bytes.isEmpty() ) {
-                loadBytes();
-            }
-            return r & 0xFF;
-        }
-        return -1;
+    public int available() throws IOException {
+        return end - position + ( pending + base64.available() ) / 4 * 3;
+    }
+
+    @Override
+    public void close() throws IOException {
+        base64.close();
     }
 }
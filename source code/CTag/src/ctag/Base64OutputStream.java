@@ -0,0 +1,162 @@
+package ctag;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+/**
+ * OutputStream that writes base-64 encoded bytes. This is the counterpart of
+ * {@link Base64InputStream}: the written bytes are encoded on the fly into a
+ * {@link Writer}, an {@link Appendable} or an {@link OutputStream}, using
+ * buffers of a fixed size. The output equals {@link Binary#makeString()}.
+ * <br/><br/>
+ * Call {@link #finish()} or {@link #close()} when done, to write the last
+ * incomplete group of bytes.
+ * @since 1.2
+ */
+public class Base64OutputStream extends OutputStream {
+    private static final int BUFFER_SIZE = 3072;
+
+    private Appendable appendable;
+    private OutputStream stream;
+    private final byte[] bytes = new byte[ BUFFER_SIZE ];
+    private final char[] chars = new char[ Base64Codec.encodedLength( BUFFER_SIZE ) ];
+    private CharBuffer charBuffer;
+    private byte[] ascii;
+    private int count;
+    private boolean finished;
+
+    /**
+     * Makes a {@link Base64OutputStream} that appends the base-64 characters
+     * to an {@link Appendable}, such as a {@link Writer} or a
+     * {@link StringBuilder}.
+     * @param appendable The {@link Appendable} to write to
+     * @since 1.2
+     */
+    public Base64OutputStream( Appendable appendable ) {
+        this.appendable = appendable;
+        if( !( appendable instanceof Writer ) && !( appendable instanceof StringBuilder ) ) {
+            charBuffer = CharBuffer.wrap( chars );
+        }
+    }
+
+    /**
+     * Makes a {@link Base64OutputStream} that writes the base-64 characters
+     * as ASCII bytes to an {@link OutputStream}.
+     * @param stream The {@link OutputStream} to write to
+     * @since 1.2
+     */
+    public Base64OutputStream( OutputStream stream ) {
+        this.stream = stream;
+        ascii = new byte[ chars.length ];
+    }
+
+    private void ensureOpen() throws IOException {
+        if( finished ) {
+            throw new IOException( "Base-64 stream is already finished." );
+        }
+    }
+
+    /**
+     * Encodes and writes the first bytes of the buffer, and moves the
+     * remaining bytes to the front.
+     */
+    private void emit( int amount ) throws IOException {
+        int len = Base64Codec.encode( bytes, 0, amount, chars, 0 );
+        if( stream != null ) {
+            for( int i = 0; i < len; i++ ) {
+                ascii[ i ] = ( byte ) chars[ i ];
+            }
+            stream.write( ascii, 0, len );
+        } else if( appendable instanceof Writer ) {
+            ( ( Writer ) appendable ).write( chars, 0, len );
+        } else if( appendable instanceof StringBuilder ) {
+            ( ( StringBuilder ) appendable ).append( chars, 0, len );
+        } else {
+            charBuffer.limit( len ).position( 0 );
+            appendable.append( charBuffer );
+        }
+        System.arraycopy( bytes, amount, bytes, 0, count - amount );
+        count -= amount;
+    }
+
+    @Override
+    public void write( int b ) throws IOException {
+        ensureOpen();
+        if( count == bytes.length ) {
+            emit( count );
+        }
+        bytes[ count++ ] = ( byte ) b;
+    }
+
+    @Override
+    public void write( byte[] b, int off, int len ) throws IOException {
+        if( off < 0 || len < 0 || len > b.length - off ) {
+            throw new IndexOutOfBoundsException();
+        }
+        ensureOpen();
+        while( len > 0 ) {
+            if( count == bytes.length ) {
+                emit( count );
+            }
+            int amount = Math.min( len, bytes.length - count );
+            System.arraycopy( b, off, bytes, count, amount );
+            count += amount;
+            off += amount;
+            len -= amount;
+        }
+    }
+
+    /**
+     * Writes all complete groups of 3 bytes and flushes the underlying output.
+     * Up to 2 bytes stay buffered, since they can't be encoded before the
+     * next bytes are known.
+     * @exception IOException When the underlying output throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    @Override
+    public void flush() throws IOException {
+        if( !finished ) {
+            emit( count - count % 3 );
+        }
+        if( stream != null ) {
+            stream.flush();
+        } else if( appendable instanceof Flushable ) {
+            ( ( Flushable ) appendable ).flush();
+        }
+    }
+
+    /**
+     * Writes all remaining bytes, including the last incomplete group, without
+     * closing the underlying output. No bytes can be written afterwards.
+     * @exception IOException When the underlying output throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void finish() throws IOException {
+        if( finished ) return;
+        emit( count );
+        finished = true;
+        flush();
+    }
+
+    /**
+     * Finishes the stream and closes the underlying output.
+     * @exception IOException When the underlying output throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    @Override
+    public void close() throws IOException {
+        finish();
+        if( stream != null ) {
+            stream.close();
+        } else if( appendable instanceof Closeable ) {
+            ( ( Closeable ) appendable ).close();
+        }
+    }
+}
@@ -2,8 +2,6 @@ package ctag;
 
 import ctag.exception.Base64Exception;
 
-import java.io.ByteArrayInputStream;
-import java.util.ArrayList;
 import java.util.Arrays;
 
 /**
@@ -12,39 +10,6 @@ import java.util.Arrays;
  */
 public class Binary {
 
-    private static final char[] BASE64ARR = {
-            'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M',
-            'N', 'O', 'P', 'Q', 'R', 'S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z',
-            'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', 'j', 'k', 'l', 'm',
-            'n', 'o', 'p', 'q', 'r', 's', 't', 'u', 'v', 'w', 'x', 'y', 'z',
-            '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', '+', '-'
-    };
-    // Dammet default value, I want -1
-    private static final byte[] BASE64REVERSE = {
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
-            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1
-    };
-
-    static {
-        for( int i = 0; i < BASE64ARR.length; i++ ) {
-            BASE64REVERSE[ BASE64ARR[ i ] ] = ( byte ) i;
-        }
-    }
-
     private byte[] bytes;
 
     /**
@@ -87,42 +52,7 @@ public class Binary {
             throw new Base64Exception( "Base64 binary contains only one byte, needs at least 2, or exactly 0." );
         }
 
-        bytes = b.getBytes();
-        ByteArrayInputStream stream = new ByteArrayInputStream( bytes );
-        Builder builder = new Builder();
-        while( true ) {
-            int byte1 = stream.read();
-            if( byte1 == -1 ) {
-                break;
-            }
-
-            int byte2 = stream.read();
-            if( byte2 == -1 ) {
-                break;
-            } else {
-                builder.append( new byte[] {
-                        ( byte ) ( ( BASE64REVERSE[ byte1 ] << 2 ) + ( ( BASE64REVERSE[ byte2 ] & 63 ) >>> 4 ) )
-                } );
-            }
-
-            int byte3 = stream.read();
-            if( byte3 == -1 ) {
-                break;
-            } else {
-                builder.append( new byte[] {
-                        ( byte ) ( ( BASE64REVERSE[ byte2 ] << 4 ) + ( ( BASE64REVERSE[ byte3 ] & 63 ) >>> 2 ) )
-                } );
-            }
-            int byte4 = stream.read();
-            if( byte4 == -1 ) {
-                break;
-            } else {
-                builder.append( new byte[] {
-                        ( byte ) ( ( BASE64REVERSE[ byte3 ] << 6 ) + ( BASE64REVERSE[ byte4 ] & 63 ) )
-                } );
-            }
-        }
-        bytes = builder.build().bytes;
+        bytes = Base64Codec.decode( b );
     }
 
     /**
@@ -157,54 +87,146 @@ public class Binary {
         return bytes.length;
     }
 
-    private static Byte[] copy( byte[] b ) {
-        Byte[] out = new Byte[ b.length ];
-        for( int i = 0; i < b.length; i++ ) {
-            out[ i ] = b[ i ];
-        }
-        return out;
-    }
-
     /**
      * A {@link Binary.Builder} can be used to make a binary by appending
-     * multiple byte arrays or binaries to it.
+     * multiple byte arrays or binaries to it. The bytes are kept in one
+     * growable {@code byte[]}, with some headroom in front so that prepending
+     * a length is cheap.
      * @since 1.0
      */
     public static class Builder {
-        ArrayList<Byte[]> bytes = new ArrayList<>();
+        private static final int HEADROOM = 16;
+
+        private byte[] bytes;
+        private int head;
+        private int tail;
+        // True when 'bytes' is owned by a Binary, it must be copied before writing
+        private boolean shared;
+
+        /**
+         * @since 1.0
+         */
+        public Builder() {
+            this( 64 );
+        }
+
+        /**
+         * Makes a builder with room for a specific amount of bytes
+         * @param capacity The initial capacity
+         * @since 1.2
+         */
+        public Builder( int capacity ) {
+            bytes = new byte[ HEADROOM + capacity ];
+            head = HEADROOM;
+            tail = HEADROOM;
+        }
+
+        /**
+         * Returns the amount of bytes appended so far
+         * @since 1.2
+         */
+        public int size() {
+            return tail - head;
+        }
+
+        private void ensureTail( int amount ) {
+            if( !shared && bytes.length - tail >= amount ) return;
+            int size = tail - head;
+            int capacity = Math.max( bytes.length, HEADROOM + size );
+            while( capacity - head < size + amount ) {
+                capacity = capacity << 1 > 0 ? capacity << 1 : Integer.MAX_VALUE;
+            }
+            bytes = Arrays.copyOf( bytes, capacity );
+            shared = false;
+        }
+
+        private void ensureHead( int amount ) {
+            if( !shared && head >= amount ) return;
+            int size = tail - head;
+            int room = Math.max( HEADROOM, amount + size );
+            byte[] grown = new byte[ room + size + ( bytes.length - tail ) ];
+            System.arraycopy( bytes, head, grown, room, size );
+            bytes = grown;
+            head = room;
+            tail = room + size;
+            shared = false;
+        }
+
+        /**
+         * @since 1.2
+         */
+        public void append( byte b ) {
+            ensureTail( 1 );
+            bytes[ tail++ ] = b;
+        }
+
+        /**
+         * @since 1.2
+         */
+        public void append( byte[] bytes, int off, int len ) {
+            ensureTail( len );
+            System.arraycopy( bytes, off, this.bytes, tail, len );
+            tail += len;
+        }
+
+        /**
+         * @since 1.2
+         */
+        public void prepend( byte[] bytes, int off, int len ) {
+            ensureHead( len );
+            head -= len;
+            System.arraycopy( bytes, off, this.bytes, head, len );
+        }
 
         /**
          * @since 1.0
          */
         public void append( Byte[] bytes ) {
-            this.bytes.add( bytes );
+            ensureTail( bytes.length );
+            for( Byte b : bytes ) {
+                this.bytes[ tail++ ] = b;
+            }
         }
 
         /**
          * @since 1.0
          */
         public void prepend( Byte[] bytes ) {
-            this.bytes.add( 0, bytes );
+            ensureHead( bytes.length );
+            head -= bytes.length;
+            for( int i = 0; i < bytes.length; i++ ) {
+                this.bytes[ head + i ] = bytes[ i ];
+            }
         }
 
         /**
          * @since 1.0
          */
         public void append( byte[] bytes ) {
-            this.bytes.add( copy( bytes ) );
+            append( bytes, 0, bytes.length );
         }
 
         /**
          * @since 1.0
          */
         public void prepend( byte[] bytes ) {
-            this.bytes.add( 0, copy( bytes ) );
+            prepend( bytes, 0, bytes.length );
         }
 
         /**
+         * Appends a binary. When the builder is still empty, the binary's bytes
+         * are used directly, and copied on the first write or by
+         * {@link #build()}, so the binary is never changed.
          * @since 1.0
          */
         public void append( Binary bytes ) {
+            if( head == tail && !shared ) {
+                this.bytes = bytes.bytes;
+                head = 0;
+                tail = this.bytes.length;
+                shared = true;
+                return;
+            }
             append( bytes.bytes );
         }
 
@@ -216,14 +238,19 @@ public class Binary {
         }
 
         /**
+         * Builds the binary. This copies the bytes at most once: when the
+         * builder is exactly full, its array is handed to the binary as it is.
+         * The array is handed out only once, and the builder copies it before
+         * writing again, so binaries never share their array with each other
+         * or with the builder.
          * @since 1.0
          */
         public Binary build() {
-            ArrayList<Byte> binary = new ArrayList<>();
-            for( Byte[] bytes : bytes ) {
-                binary.addAll( Arrays.asList( bytes ) );
+            if( !shared && head == 0 && tail == bytes.length ) {
+                shared = true;
+                return new Binary( bytes );
             }
-            return new Binary( binary.<Byte> toArray( new Byte[ 0 ] ) );
+            return new Binary( Arrays.copyOfRange( bytes, head, tail ) );
         }
     }
 
@@ -275,43 +302,6 @@ public class Binary {
      * @since 1.0
      */
     public String makeString() {
-        StringBuilder builder = new StringBuilder();
-        ByteArrayInputStream stream = new ByteArrayInputStream( bytes );
-        while( true ) {
-            int byte1 = stream.read();
-            if( byte1 == -1 ) {
-                break;
-            }
-
-            int byte2 = stream.read();
-            if( byte2 == -1 ) {
-                int index1 = byte1 >>> 2;
-                int index2 = ( byte1 & 3 ) << 4;
-                builder.append( BASE64ARR[ index1 ] );
-                builder.append( BASE64ARR[ index2 ] );
-                break;
-            }
-
-            int byte3 = stream.read();
-            if( byte3 == -1 ) {
-                int index1 = byte1 >>> 2;
-                int index2 = ( ( byte1 & 3 ) << 4 ) + ( byte2 >>> 4 );
-                int index3 = ( byte2 & 15 ) << 2;
-                builder.append( BASE64ARR[ index1 ] );
-                builder.append( BASE64ARR[ index2 ] );
-                builder.append( BASE64ARR[ index3 ] );
-                break;
-            } else {
-                int index1 = byte1 >>> 2;
-                int index2 = ( ( byte1 & 3 ) << 4 ) + ( byte2 >>> 4 );
-                int index3 = ( ( byte2 & 15 ) << 2 ) + ( byte3 >>> 6 );
-                int index4 = byte3 & 63;
-                builder.append( BASE64ARR[ index1 ] );
-                builder.append( BASE64ARR[ index2 ] );
-                builder.append( BASE64ARR[ index3 ] );
-                builder.append( BASE64ARR[ index4 ] );
-            }
-        }
-        return builder.toString();
+        return Base64Codec.encode( bytes );
     }
 }
@@ -0,0 +1,147 @@
+package ctag;
+
+import ctag.tags.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Allocates off-heap memory for tags and encoded codes. Memory of an arena is
+ * allocated as direct {@link ByteBuffer}s, which the garbage collector does
+ * not copy or scan, so large arrays do not make collections slower.
+ * <br/><br/>
+ * An arena has an explicit lifetime: after {@link #close()} it allocates no
+ * more memory, and tags made by the arena must not be used after that. The
+ * arena keeps no references to its buffers, so the memory of a buffer is
+ * reclaimed by the garbage collector once the last tag or view using it is
+ * unreachable. When a {@link CTagOutput} writing into an arena grows, its
+ * old buffer is reclaimed the same way.
+ * <pre>
+ * try( CTagArena arena = new CTagArena() ) {
+ *     CTagDecoder decoder = new CTagDecoder( bytes );
+ *     decoder.setArena( arena );
+ *     ITag tag = decoder.decode();
+ *     ...
+ * }
+ * </pre>
+ * @since 1.2
+ */
+public class CTagArena implements AutoCloseable {
+    private long allocated;
+    private boolean closed;
+
+    /**
+     * Allocates a direct, big-endian buffer
+     * @param bytes The size in bytes
+     * @return The buffer
+     * @exception IllegalStateException When the arena is closed
+     * @since 1.2
+     */
+    public synchronized ByteBuffer allocate( int bytes ) {
+        if( closed ) {
+            throw new IllegalStateException( "Arena is closed." );
+        }
+        allocated += bytes;
+        return ByteBuffer.allocateDirect( bytes ).order( ByteOrder.BIG_ENDIAN );
+    }
+
+    /**
+     * Copies the remaining bytes of a buffer into memory of this arena. The
+     * position of the given buffer is not changed.
+     * @param source The buffer to copy
+     * @return The copy, with position 0
+     * @since 1.2
+     */
+    public ByteBuffer copy( ByteBuffer source ) {
+        ByteBuffer copy = allocate( source.remaining() );
+        copy.put( source.duplicate() );
+        copy.flip();
+        return copy;
+    }
+
+    /**
+     * Makes an off-heap byte array tag
+     * @since 1.2
+     */
+    public TagByteBuffer byteArray( byte... values ) {
+        ByteBuffer bytes = allocate( values.length );
+        bytes.put( values ).flip();
+        return new TagByteBuffer( bytes );
+    }
+
+    /**
+     * Makes an off-heap short array tag
+     * @since 1.2
+     */
+    public TagShortBuffer shortArray( short... values ) {
+        ByteBuffer bytes = allocate( values.length * 2 );
+        bytes.asShortBuffer().put( values );
+        return new TagShortBuffer( bytes );
+    }
+
+    /**
+     * Makes an off-heap integer array tag
+     * @since 1.2
+     */
+    public TagIntBuffer intArray( int... values ) {
+        ByteBuffer bytes = allocate( values.length * 4 );
+        bytes.asIntBuffer().put( values );
+        return new TagIntBuffer( bytes );
+    }
+
+    /**
+     * Makes an off-heap long array tag
+     * @since 1.2
+     */
+    public TagLongBuffer longArray( long... values ) {
+        ByteBuffer bytes = allocate( values.length * 8 );
+        bytes.asLongBuffer().put( values );
+        return new TagLongBuffer( bytes );
+    }
+
+    /**
+     * Makes an off-heap float array tag
+     * @since 1.2
+     */
+    public TagFloatBuffer floatArray( float... values ) {
+        ByteBuffer bytes = allocate( values.length * 4 );
+        bytes.asFloatBuffer().put( values );
+        return new TagFloatBuffer( bytes );
+    }
+
+    /**
+     * Makes an off-heap double array tag
+     * @since 1.2
+     */
+    public TagDoubleBuffer doubleArray( double... values ) {
+        ByteBuffer bytes = allocate( values.length * 8 );
+        bytes.asDoubleBuffer().put( values );
+        return new TagDoubleBuffer( bytes );
+    }
+
+    /**
+     * Returns the amount of bytes allocated by this arena, including buffers
+     * that are reclaimed already
+     * @since 1.2
+     */
+    public synchronized long getAllocated() {
+        return allocated;
+    }
+
+    /**
+     * Returns whether the arena is not closed yet
+     * @since 1.2
+     */
+    public synchronized boolean isAlive() {
+        return !closed;
+    }
+
+    /**
+     * Closes the arena, it allocates no more memory afterwards
+     * @since 1.2
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+    }
+}
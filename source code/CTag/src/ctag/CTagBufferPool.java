@@ -0,0 +1,160 @@
+package ctag;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Pool of reusable heap buffers, used by encoders and decoders to avoid
+ * allocating a new buffer for every tag. Buffers are kept in size classes of
+ * powers of two, from {@link #MIN_SIZE} up to {@link #MAX_SIZE} bytes. Every
+ * thread has its own buffers, so acquiring and releasing needs no locking.
+ * <br/><br/>
+ * Every buffer is backed by a byte array, so {@link ByteBuffer#array()} can be
+ * used to get the array. A buffer must not be used after it is released.
+ * <pre>
+ * CTagBufferPool pool = CTagBufferPool.getDefault();
+ * encoder.encode( stream, pool );
+ *
+ * CTagDecoder decoder = new CTagDecoder( stream, pool );
+ * ITag tag = decoder.decode();
+ * decoder.release();
+ * </pre>
+ * @since 1.2
+ */
+public class CTagBufferPool {
+    /**
+     * The size of the smallest buffer, in bytes
+     * @since 1.2
+     */
+    public static final int MIN_SIZE = 256;
+
+    /**
+     * The size of the largest buffer that is pooled, in bytes. Larger buffers
+     * are allocated when asked for, but not kept when released.
+     * @since 1.2
+     */
+    public static final int MAX_SIZE = 1 << 20;
+
+    private static final int MIN_SHIFT = 8;
+    private static final int CLASSES = 20 - MIN_SHIFT + 1;
+
+    private static final CTagBufferPool DEFAULT = new CTagBufferPool();
+
+    private final int depth;
+    private final ThreadLocal<Cache> caches = ThreadLocal.withInitial( this::newCache );
+
+    /**
+     * Makes a pool that keeps up to 4 buffers per size class and thread
+     * @since 1.2
+     */
+    public CTagBufferPool() {
+        this( 4 );
+    }
+
+    /**
+     * Makes a pool that keeps up to a specific amount of buffers per size
+     * class and thread
+     * @param depth The amount of buffers
+     * @since 1.2
+     */
+    public CTagBufferPool( int depth ) {
+        if( depth < 1 || depth > 1024 ) {
+            throw new IllegalArgumentException( "Depth must be between 1 and 1024, found: " + depth + "." );
+        }
+        this.depth = depth;
+    }
+
+    /**
+     * Returns the pool that is shared by the whole application
+     * @since 1.2
+     */
+    public static CTagBufferPool getDefault() {
+        return DEFAULT;
+    }
+
+    private Cache newCache() {
+        return new Cache( depth );
+    }
+
+    /**
+     * Acquires a cleared, big-endian heap buffer of at least a specific size.
+     * The buffer is taken from the pool of the current thread when available.
+     * @param size The minimum size in bytes
+     * @return The buffer, its capacity is a power of two when it is at most
+     *         {@link #MAX_SIZE}
+     * @since 1.2
+     */
+    public ByteBuffer acquire( int size ) {
+        if( size < 0 ) {
+            throw new IllegalArgumentException( "Size must not be negative, found: " + size + "." );
+        }
+        if( size > MAX_SIZE ) {
+            return ByteBuffer.allocate( size );
+        }
+        int sizeClass = sizeClass( size );
+        ByteBuffer buffer = caches.get().poll( sizeClass );
+        if( buffer == null ) {
+            return ByteBuffer.allocate( MIN_SIZE << sizeClass );
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool of the current thread, so it can be
+     * acquired again. Buffers that do not fit a size class, and buffers that
+     * do not fit in the pool anymore, are left to the garbage collector.
+     * @param buffer The buffer, which must not be used afterwards
+     * @since 1.2
+     */
+    public void release( ByteBuffer buffer ) {
+        int capacity = buffer.capacity();
+        if( !buffer.hasArray() || buffer.isReadOnly() || buffer.arrayOffset() != 0 || buffer.array().length != capacity ) return;
+        if( capacity < MIN_SIZE || capacity > MAX_SIZE || Integer.bitCount( capacity ) != 1 ) return;
+        buffer.clear().order( ByteOrder.BIG_ENDIAN );
+        caches.get().offer( sizeClass( capacity ), buffer );
+    }
+
+    /**
+     * Removes all buffers from the pool of the current thread
+     * @since 1.2
+     */
+    public void clear() {
+        caches.remove();
+    }
+
+    private static int sizeClass( int size ) {
+        if( size <= MIN_SIZE ) return 0;
+        return 32 - Integer.numberOfLeadingZeros( size - 1 ) - MIN_SHIFT;
+    }
+
+    // The buffers of one thread, a small stack per size class
+    private static final class Cache {
+        final ByteBuffer[][] buffers;
+        final int[] counts = new int[ CLASSES ];
+
+        Cache( int depth ) {
+            buffers = new ByteBuffer[ CLASSES ][ depth ];
+        }
+
+        ByteBuffer poll( int sizeClass ) {
+            int count = counts[ sizeClass ];
+            if( count == 0 ) return null;
+            ByteBuffer buffer = buffers[ sizeClass ][ --count ];
+            buffers[ sizeClass ][ count ] = null;
+            counts[ sizeClass ] = count;
+            return buffer;
+        }
+
+        void offer( int sizeClass, ByteBuffer buffer ) {
+            int count = counts[ sizeClass ];
+            ByteBuffer[] stack = buffers[ sizeClass ];
+            if( count == stack.length ) return;
+            for( int i = 0; i < count; i++ ) {
+                // A buffer that is released twice must not be handed out twice
+                if( stack[ i ] == buffer ) return;
+            }
+            stack[ count ] = buffer;
+            counts[ sizeClass ] = count + 1;
+        }
+    }
+}
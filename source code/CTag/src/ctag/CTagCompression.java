@@ -0,0 +1,54 @@
+package ctag;
+
+/**
+ * The compression codecs of compressed CTag codes. A compressed code starts
+ * with a zero byte, which is never a valid prefix of a main tag, followed by
+ * the id of the codec. Decoders recognize compressed codes by that zero byte.
+ * <br/><br/>
+ * <pre>
+ * Marker   Codec    Dictionary Compressed CTag code ...
+ * 00000000 00000001 00000000
+ * (none)   DEFLATE  none
+ * </pre>
+ * @see CTagEncoder#setCompression(CTagCompression)
+ * @since 1.2
+ */
+public enum CTagCompression {
+    /** The CTag code is not compressed. */
+    NONE( 0 ),
+    /**
+     * Raw DEFLATE data. The codec id is followed by the id of the
+     * {@link CTagDictionary} as a variable-length integer, or 0 when no
+     * dictionary is used.
+     */
+    DEFLATE( 1 ),
+    /** GZIP data, including the GZIP header and trailer. */
+    GZIP( 2 );
+
+    private final byte id;
+
+    CTagCompression( int id ) {
+        this.id = ( byte ) id;
+    }
+
+    /**
+     * Returns the id this codec is stored with
+     * @since 1.2
+     */
+    public byte getId() {
+        return id;
+    }
+
+    /**
+     * Returns the codec of an id
+     * @param id The id
+     * @return The codec, or null when no codec has this id
+     * @since 1.2
+     */
+    public static CTagCompression of( byte id ) {
+        for( CTagCompression compression : values() ) {
+            if( compression.id == id ) return compression;
+        }
+        return null;
+    }
+}
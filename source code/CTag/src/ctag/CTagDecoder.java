@@ -3,11 +3,16 @@ package ctag;
 import ctag.exception.CTagInvalidException;
 import ctag.exception.EndException;
 import ctag.exception.NegativeLengthException;
+import ctag.exception.NoSuchKeyException;
+import ctag.exception.WrongTagException;
 import ctag.tags.*;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 /**
  * Decodes a ctag code
@@ -34,6 +39,18 @@ public class CTagDecoder {
         input = new CTagInput( stream );
     }
 
+    /**
+     * Decodes from an {@link InputStream}, which is read through a buffer
+     * borrowed from a pool. Use {@link #release()} or {@link #close()} to
+     * return the buffer after decoding.
+     * @param stream The {@link InputStream}
+     * @param pool   The {@link CTagBufferPool} to borrow from
+     * @since 1.2
+     */
+    public CTagDecoder( InputStream stream, CTagBufferPool pool ) {
+        input = new CTagInput( stream, pool );
+    }
+
     /**
      * Decodes from a base 64 string
      * @param string The base 64 string
@@ -49,7 +66,7 @@ public class CTagDecoder {
      * @since 1.0
      */
     public CTagDecoder( byte[] bytes ) {
-        input = new CTagInput( new ByteArrayInputStream( bytes ) );
+        input = new CTagInput( bytes );
     }
 
     /**
@@ -58,7 +75,120 @@ public class CTagDecoder {
      * @since 1.0
      */
     public CTagDecoder( Binary bytes ) {
-        input = new CTagInput( new ByteArrayInputStream( bytes.getBytes() ) );
+        input = new CTagInput( bytes.getBytes() );
+    }
+
+    /**
+     * Opens a file for decoding. The file is mapped into memory with
+     * {@link FileChannel#map}, so it is not read onto the heap, and the
+     * operating system loads only the pages that are decoded. Combine this
+     * with {@link #setViews(boolean)} and {@link #setLazy(boolean)} to keep
+     * large arrays and untouched values in the file.
+     * <br/><br/>
+     * A single mapping holds at most 2 GB. Larger files are mapped in windows
+     * of 2 GB, see {@link CTagInput#CTagInput(FileChannel)}, and stay open
+     * until {@link #close()} is called.
+     * @param path The path of the file
+     * @return The decoder
+     * @exception IOException When the file can not be opened or mapped
+     * @since 1.2
+     */
+    public static CTagDecoder open( Path path ) throws IOException {
+        FileChannel channel = FileChannel.open( path, StandardOpenOption.READ );
+        try {
+            long size = channel.size();
+            if( size > Integer.MAX_VALUE ) {
+                // The channel maps the next windows while decoding
+                return new CTagDecoder( new CTagInput( channel ) );
+            }
+            // The mapping stays valid when the channel is closed
+            CTagDecoder decoder = new CTagDecoder( new CTagInput( channel.map( FileChannel.MapMode.READ_ONLY, 0, size ) ) );
+            channel.close();
+            return decoder;
+        } catch( IOException | RuntimeException exception ) {
+            try {
+                channel.close();
+            } catch( IOException suppressed ) {
+                exception.addSuppressed( suppressed );
+            }
+            throw exception;
+        }
+    }
+
+    /**
+     * Sets whether compounds are decoded lazily. A lazy compound scans its
+     * entries once and keeps the raw bytes of each value, a value is decoded
+     * the first time it is asked for by {@link Compound#get(String)} or a
+     * typed getter. Values that are never asked for are encoded by passing
+     * their raw bytes through. Lazy decoding works best when decoding from a
+     * byte array, since the raw bytes are then not copied.
+     * @param lazy True to decode compounds lazily
+     * @since 1.2
+     */
+    public void setLazy( boolean lazy ) {
+        input.setLazy( lazy );
+    }
+
+    /**
+     * Sets whether boolean arrays are decoded as {@link TagBitSet} instead of
+     * {@link TagBooleanArray}. A bit set keeps the booleans packed, which uses
+     * an eighth of the memory of a {@code boolean[]}.
+     * @param bitSets True to decode boolean arrays as bit sets
+     * @since 1.2
+     */
+    public void setBitSets( boolean bitSets ) {
+        input.setBitSets( bitSets );
+    }
+
+    /**
+     * Sets whether numeric arrays are decoded as views over the decoded
+     * bytes: {@link TagByteBuffer}, {@link TagShortBuffer},
+     * {@link TagIntBuffer}, {@link TagLongBuffer}, {@link TagFloatBuffer} and
+     * {@link TagDoubleBuffer}. Nothing is copied when decoding from a byte
+     * array, a buffer or a file opened with {@link #open(Path)}.
+     * @param views True to decode array views
+     * @since 1.2
+     */
+    public void setViews( boolean views ) {
+        input.setViews( views );
+    }
+
+    /**
+     * Sets the arena numeric arrays are decoded into. Arrays are decoded as
+     * views, see {@link #setViews(boolean)}, whose bytes are copied into
+     * off-heap memory of the arena. Arrays that already are off-heap, like
+     * those of a file opened with {@link #open(Path)}, are not copied.
+     * @param arena The {@link CTagArena}, or null to decode on the heap
+     * @since 1.2
+     */
+    public void setArena( CTagArena arena ) {
+        input.setArena( arena );
+    }
+
+    /**
+     * Sets whether scalar tags are decoded as shared, unmodifiable instances:
+     * {@link TagNull#INSTANCE}, {@link TagBoolean#TRUE} and
+     * {@link TagBoolean#FALSE}, all bytes and shorts and integers from -128 up
+     * to and including 1023. This saves a lot of memory when a tree holds many
+     * booleans and small numbers, but {@code setValue} on these tags throws an
+     * {@link UnsupportedOperationException}.
+     * @param cached True to decode shared scalar tags
+     * @since 1.2
+     */
+    public void setCached( boolean cached ) {
+        input.setCached( cached );
+    }
+
+    /**
+     * Sets the pool that compound keys are shared through. Records that use
+     * the same keys then share the key strings, and a key that is in the pool
+     * is read without making a string. A pool can be shared by many decoders.
+     * @param keyPool The {@link CTagKeyPool}, or null to make a new string for
+     *                every key
+     * @since 1.2
+     */
+    public void setKeyPool( CTagKeyPool keyPool ) {
+        input.setKeyPool( keyPool );
     }
 
     /**
@@ -70,51 +200,104 @@ public class CTagDecoder {
      * @since 1.0
      */
     public ITag decode() throws IOException, CTagInvalidException, EndException, NegativeLengthException {
-        Binary type = input.read( 1 );
-        byte typeByte = type.getByte( 0 );
-
-        if( typeByte == 0 ) {
-            throw new CTagInvalidException( "Found TagEnd as main type. TagEnd should not be used." );
-        } else if( typeByte == 1 ) {
-            return TagByte.parse( input );
-        } else if( typeByte == 2 ) {
-            return TagShort.parse( input );
-        } else if( typeByte == 3 ) {
-            return TagInteger.parse( input );
-        } else if( typeByte == 4 ) {
-            return TagLong.parse( input );
-        } else if( typeByte == 5 ) {
-            return TagFloat.parse( input );
-        } else if( typeByte == 6 ) {
-            return TagDouble.parse( input );
-        } else if( typeByte == 7 ) {
-            return TagString.parse( input );
-        } else if( typeByte == 8 ) {
-            return TagArray.parse( input );
-        } else if( typeByte == 9 ) {
-            return TagCompound.parse( input );
-        } else if( typeByte == 10 ) {
-            return TagNull.parse( input );
-        } else if( typeByte == 11 ) {
-            return TagBoolean.parse( input );
-        } else if( typeByte == 12 ) {
-            return TagByteArray.parse( input );
-        } else if( typeByte == 13 ) {
-            return TagShortArray.parse( input );
-        } else if( typeByte == 14 ) {
-            return TagIntegerArray.parse( input );
-        } else if( typeByte == 15 ) {
-            return TagLongArray.parse( input );
-        } else if( typeByte == 16 ) {
-            return TagFloatArray.parse( input );
-        } else if( typeByte == 17 ) {
-            return TagDoubleArray.parse( input );
-        } else if( typeByte == 18 ) {
-            return TagBooleanArray.parse( input );
-        } else if( typeByte == 19 ) {
-            return TagStringArray.parse( input );
-        } else {
-            throw new CTagInvalidException( "Found invalid prefix: '" + type + "'." );
+        CTagInflater inflater = CTagInflater.open( input );
+        CTagInput body = inflater == null ? input : inflater.getInput();
+        try {
+            byte typeByte = body.readByte();
+
+            if( typeByte == TagRegistry.END ) {
+                throw new CTagInvalidException( "Found TagEnd as main type. TagEnd should not be used." );
+            }
+            return TagRegistry.parse( typeByte, body );
+        } finally {
+            if( inflater != null ) {
+                inflater.end();
+            }
+        }
+    }
+
+    /**
+     * Decodes only the value at a path, like {@code players[3].inventory},
+     * without building the tags around it. See {@link TagPath} for the path
+     * syntax.
+     * @param path The path to the value
+     * @return The {@link ITag} at the path
+     * @exception IOException          If {@link CTagInput}'s underlying input
+     *                                 stream throws an {@link IOException}.
+     * @exception CTagInvalidException If the CTag code is invalid.
+     * @exception NoSuchKeyException   If a key or index in the path does not
+     *                                 exist.
+     * @exception WrongTagException    If the path does not match the tag
+     *                                 structure.
+     * @since 1.2
+     */
+    public ITag extract( String path ) throws IOException, CTagInvalidException, EndException, NegativeLengthException, NoSuchKeyException, WrongTagException {
+        return extract( TagPath.parse( path ) );
+    }
+
+    /**
+     * Decodes only the value at a path, without building the tags around it.
+     * @param path The path to the value
+     * @return The {@link ITag} at the path
+     * @exception IOException          If {@link CTagInput}'s underlying input
+     *                                 stream throws an {@link IOException}.
+     * @exception CTagInvalidException If the CTag code is invalid.
+     * @exception NoSuchKeyException   If a key or index in the path does not
+     *                                 exist.
+     * @exception WrongTagException    If the path does not match the tag
+     *                                 structure.
+     * @since 1.2
+     */
+    public ITag extract( TagPath path ) throws IOException, CTagInvalidException, EndException, NegativeLengthException, NoSuchKeyException, WrongTagException {
+        CTagInflater inflater = CTagInflater.open( input );
+        try {
+            return path.extract( inflater == null ? input : inflater.getInput() );
+        } finally {
+            if( inflater != null ) {
+                inflater.end();
+            }
         }
     }
+
+    /**
+     * Decodes only the value at a path from an {@link InputStream}. The stream
+     * is not read further than the value, and is not closed.
+     * @param stream The {@link InputStream} holding the CTag code
+     * @param path   The path to the value
+     * @return The {@link ITag} at the path
+     * @exception IOException          If the input stream throws an
+     *                                 {@link IOException}.
+     * @exception CTagInvalidException If the CTag code is invalid.
+     * @exception NoSuchKeyException   If a key or index in the path does not
+     *                                 exist.
+     * @exception WrongTagException    If the path does not match the tag
+     *                                 structure.
+     * @since 1.2
+     */
+    public static ITag extract( InputStream stream, String path ) throws IOException, CTagInvalidException, EndException, NegativeLengthException, NoSuchKeyException, WrongTagException {
+        return new CTagDecoder( stream ).extract( path );
+    }
+
+    /**
+     * Closes the underlying stream, if any
+     * @exception IOException If the stream throws an {@link IOException}.
+     * @since 1.2
+     */
+    public void close() throws IOException {
+        try {
+            input.close();
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Returns pooled buffers to their pool, without closing the stream. Tags
+     * that were already decoded stay valid, but this decoder must not be used
+     * afterwards.
+     * @since 1.2
+     */
+    public void release() {
+        input.release();
+    }
 }
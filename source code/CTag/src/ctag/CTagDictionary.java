@@ -0,0 +1,263 @@
+package ctag;
+
+import ctag.exception.CTagException;
+import ctag.exception.WrongTagException;
+import ctag.tags.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A preset dictionary for {@link CTagCompression#DEFLATE} compression. The
+ * compressor can refer to the bytes of the dictionary before any data is
+ * compressed, so small codes that use the same compound keys as the
+ * dictionary compress much better.
+ * <br/><br/>
+ * A compressed code stores only the id of its dictionary. The decoder finds
+ * the dictionary by that id, so a dictionary must be registered with
+ * {@link #register(CTagDictionary)} on every side that decodes.
+ * @since 1.2
+ */
+public final class CTagDictionary {
+    /**
+     * The largest useful dictionary size: DEFLATE can not refer further back
+     * than 32 KB.
+     * @since 1.2
+     */
+    public static final int MAX_SIZE = 32768;
+
+    // Longest string value that is taken into a trained dictionary together with its key
+    private static final int MAX_VALUE_LENGTH = 64;
+
+    private static final ConcurrentHashMap<Integer, CTagDictionary> dictionaries = new ConcurrentHashMap<>();
+
+    private final int id;
+    private final byte[] bytes;
+
+    /**
+     * @param id    The id, at least 1
+     * @param bytes The dictionary bytes. Bytes near the end are cheapest to
+     *              refer to, so the most common sequences should come last.
+     * @since 1.2
+     */
+    public CTagDictionary( int id, byte[] bytes ) {
+        if( id < 1 ) {
+            throw new IllegalArgumentException( "Dictionary id must be at least 1, found: " + id + "." );
+        }
+        this.id = id;
+        this.bytes = bytes.clone();
+    }
+
+    /**
+     * Makes a dictionary of compound keys. Each key is stored the way
+     * compounds store it: two bytes holding the length, followed by the
+     * characters.
+     * @param id   The id, at least 1
+     * @param keys The keys, the most common last
+     * @return The dictionary
+     * @since 1.2
+     */
+    public static CTagDictionary ofKeys( int id, String... keys ) {
+        CTagOutput output = new CTagOutput();
+        try {
+            for( String key : keys ) {
+                output.writeString( key );
+            }
+        } catch( IOException exception ) {
+            // Writing to an internal buffer does not do I/O
+            throw new IllegalStateException( exception );
+        }
+        return new CTagDictionary( id, output.toBinary().getBytes() );
+    }
+
+    /**
+     * Trains a dictionary on sample documents. The byte runs that compounds
+     * encode for their entries are collected: the prefix of the value followed
+     * by the key, and for short string values the value as well. Runs that
+     * occur in more documents and are longer get a higher score. The best
+     * runs are put into the dictionary, the best last.
+     * @param id      The id, at least 1
+     * @param samples The sample documents
+     * @param maxSize The maximal dictionary size in bytes, at most
+     *                {@link #MAX_SIZE}
+     * @return The dictionary
+     * @since 1.2
+     */
+    public static CTagDictionary train( int id, Collection<? extends ITag> samples, int maxSize ) {
+        if( maxSize < 1 || maxSize > MAX_SIZE ) {
+            throw new IllegalArgumentException( "Dictionary size must be between 1 and " + MAX_SIZE + ", found: " + maxSize + "." );
+        }
+        // Counts in how many documents each run occurs
+        HashMap<ByteBuffer, Integer> counts = new HashMap<>();
+        for( ITag sample : samples ) {
+            HashSet<ByteBuffer> runs = new HashSet<>();
+            try {
+                collect( sample, runs );
+            } catch( IOException exception ) {
+                // Writing to an internal buffer does not do I/O
+                throw new IllegalStateException( exception );
+            }
+            for( ByteBuffer run : runs ) {
+                counts.merge( run, 1, Integer::sum );
+            }
+        }
+        int minCount = Math.min( 2, samples.size() );
+        ArrayList<ByteBuffer> runs = new ArrayList<>();
+        for( Map.Entry<ByteBuffer, Integer> entry : counts.entrySet() ) {
+            if( entry.getValue() >= minCount ) runs.add( entry.getKey() );
+        }
+        runs.sort( Comparator.comparingLong( ( ByteBuffer run ) -> ( long ) counts.get( run ) * run.remaining() ).reversed() );
+
+        ArrayList<ByteBuffer> chosen = new ArrayList<>();
+        int size = 0;
+        for( ByteBuffer run : runs ) {
+            if( size + run.remaining() > maxSize ) continue;
+            chosen.add( run );
+            size += run.remaining();
+        }
+        byte[] bytes = new byte[ size ];
+        int end = size;
+        for( ByteBuffer run : chosen ) {
+            end -= run.remaining();
+            run.duplicate().get( bytes, end, run.remaining() );
+        }
+        return new CTagDictionary( id, bytes );
+    }
+
+    /**
+     * Collects the entry runs of all compounds in a tag tree
+     */
+    private static void collect( ITag tag, Set<ByteBuffer> runs ) throws IOException {
+        if( tag instanceof TagLazy ) {
+            tag = ( ( TagLazy ) tag ).getTag();
+        }
+        if( tag instanceof TagCompound ) {
+            for( KeyValuePair pair : ( ( TagCompound ) tag ).getValue().getPairs() ) {
+                ITag value = pair.value instanceof TagLazy ? ( ( TagLazy ) pair.value ).getTag() : pair.value;
+                CTagOutput output = new CTagOutput();
+                output.writeByte( value.getPrefix() );
+                output.writeString( pair.key );
+                runs.add( ByteBuffer.wrap( output.toBinary().getBytes() ) );
+                if( value instanceof TagString && ( ( TagString ) value ).getValue().length() <= MAX_VALUE_LENGTH ) {
+                    value.write( output );
+                    runs.add( ByteBuffer.wrap( output.toBinary().getBytes() ) );
+                }
+                collect( value, runs );
+            }
+        } else if( tag instanceof TagArray ) {
+            for( ITag element : ( ( TagArray ) tag ).getValue() ) {
+                collect( element, runs );
+            }
+        } else if( tag instanceof TagRecordTable ) {
+            TagRecordTable table = ( TagRecordTable ) tag;
+            for( String key : table.getKeys() ) {
+                CTagOutput output = new CTagOutput();
+                output.writeString( key );
+                output.writeByte( table.getColumn( key ).getPrefix() );
+                runs.add( ByteBuffer.wrap( output.toBinary().getBytes() ) );
+                collect( table.getColumn( key ), runs );
+            }
+        }
+    }
+
+    /**
+     * Writes this dictionary, with its id, as a CTag code
+     * @param stream The {@link OutputStream} to write to
+     * @exception IOException When the stream throws an {@link IOException}
+     * @since 1.2
+     */
+    public void write( OutputStream stream ) throws IOException {
+        new CTagEncoder( new TagCompound( new Compound().put( "id", id ).put( "dictionary", bytes ) ) ).encode( stream );
+    }
+
+    /**
+     * Reads a dictionary written by {@link #write(OutputStream)}. The
+     * dictionary is not registered.
+     * @param stream The {@link InputStream} to read from
+     * @return The dictionary
+     * @exception IOException   When the stream throws an {@link IOException}
+     * @exception CTagException When the stream holds no dictionary
+     * @since 1.2
+     */
+    public static CTagDictionary read( InputStream stream ) throws IOException, CTagException {
+        ITag tag = new CTagDecoder( stream ).decode();
+        if( !( tag instanceof TagCompound ) ) {
+            throw new WrongTagException( "A dictionary is stored as a compound." );
+        }
+        Compound compound = ( ( TagCompound ) tag ).getValue();
+        return new CTagDictionary( compound.getInteger( "id" ), compound.getByteArray( "dictionary" ) );
+    }
+
+    /**
+     * Trains a dictionary on CTag code files and writes it to a file.
+     * <pre>
+     * java ctag.CTagDictionary &lt;id&gt; &lt;max size&gt; &lt;output file&gt; &lt;sample files...&gt;
+     * </pre>
+     * @since 1.2
+     */
+    public static void main( String[] args ) throws IOException, CTagException {
+        if( args.length < 4 ) {
+            System.err.println( "Usage: java ctag.CTagDictionary <id> <max size> <output file> <sample files...>" );
+            System.exit( 1 );
+        }
+        ArrayList<ITag> samples = new ArrayList<>();
+        for( int i = 3; i < args.length; i++ ) {
+            samples.add( new CTagDecoder( Files.readAllBytes( Paths.get( args[ i ] ) ) ).decode() );
+        }
+        CTagDictionary dictionary = train( Integer.parseInt( args[ 0 ] ), samples, Integer.parseInt( args[ 1 ] ) );
+        try( OutputStream stream = Files.newOutputStream( Paths.get( args[ 2 ] ) ) ) {
+            dictionary.write( stream );
+        }
+        System.out.println( "Trained dictionary " + dictionary.id + " of " + dictionary.bytes.length + " bytes on " + samples.size() + " samples." );
+    }
+
+    /**
+     * Returns the id
+     * @since 1.2
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Returns a copy of the dictionary bytes
+     * @since 1.2
+     */
+    public byte[] getBytes() {
+        return bytes.clone();
+    }
+
+    byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * Registers a dictionary, so that decoders can find it by its id
+     * @param dictionary The dictionary
+     * @exception IllegalArgumentException When another dictionary with the
+     *                                     same id is registered
+     * @since 1.2
+     */
+    public static void register( CTagDictionary dictionary ) {
+        CTagDictionary registered = dictionaries.putIfAbsent( dictionary.id, dictionary );
+        if( registered != null && registered != dictionary ) {
+            throw new IllegalArgumentException( "Dictionary " + dictionary.id + " is already registered." );
+        }
+    }
+
+    /**
+     * Returns the registered dictionary of an id
+     * @param id The id
+     * @return The dictionary, or null when no dictionary has this id
+     * @since 1.2
+     */
+    public static CTagDictionary get( int id ) {
+        return dictionaries.get( id );
+    }
+}
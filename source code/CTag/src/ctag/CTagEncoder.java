@@ -1,6 +1,15 @@
 package ctag;
 
 import ctag.tags.ITag;
+import ctag.tags.TagRegistry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Encodes a tag into a CTag code
@@ -8,6 +17,9 @@ import ctag.tags.ITag;
  */
 public class CTagEncoder {
     private ITag tag;
+    private boolean canonical;
+    private CTagCompression compression = CTagCompression.NONE;
+    private CTagDictionary dictionary;
 
     /**
      * @param tag The tag to encode
@@ -26,15 +38,264 @@ public class CTagEncoder {
         return tag;
     }
 
+    /**
+     * Sets whether compounds are encoded in canonical form: with their entries
+     * sorted by key, instead of in insertion order. Use this when equal trees
+     * must give equal bytes, for example to hash them.
+     * @param canonical True to sort compound entries by key
+     * @since 1.2
+     */
+    public void setCanonical( boolean canonical ) {
+        this.canonical = canonical;
+    }
+
+    /**
+     * Sets the codec the tag is compressed with. Compressed codes are
+     * recognized by {@link CTagDecoder} automatically.
+     * @param compression The {@link CTagCompression}, {@link CTagCompression#NONE}
+     *                    to not compress
+     * @since 1.2
+     */
+    public void setCompression( CTagCompression compression ) {
+        if( compression == null ) {
+            throw new NullPointerException( "Compression is null. Not allowed." );
+        }
+        this.compression = compression;
+    }
+
+    /**
+     * Sets the preset dictionary for {@link CTagCompression#DEFLATE}
+     * compression. The dictionary must be registered where the code is
+     * decoded, see {@link CTagDictionary#register(CTagDictionary)}.
+     * @param dictionary The {@link CTagDictionary}, or null to use none
+     * @since 1.2
+     */
+    public void setDictionary( CTagDictionary dictionary ) {
+        this.dictionary = dictionary;
+    }
+
     /**
      * Encodes the tag
      * @return The encoded tag as a {@link Binary}
      * @since 1.0
      */
     public Binary encode() {
-        Binary.Builder builder = new Binary.Builder();
-        builder.append( tag.getPrefixByte() );
-        builder.append( tag.encode() );
-        return builder.build();
+        CTagOutput output = new CTagOutput();
+        try {
+            encode( output );
+        } catch( IOException exception ) {
+            // Writing to an internal buffer does not do I/O
+            throw new IllegalStateException( exception );
+        }
+        return output.toBinary();
+    }
+
+    /**
+     * Encodes the tag into a buffer borrowed from a pool, which is returned
+     * after the bytes are copied. Only the returned binary is allocated once
+     * the pool holds buffers of the right size.
+     * @param pool The {@link CTagBufferPool} to borrow from
+     * @return The encoded tag as a {@link Binary}
+     * @since 1.2
+     */
+    public Binary encode( CTagBufferPool pool ) {
+        CTagOutput output = new CTagOutput( pool );
+        try {
+            encode( output );
+            return output.toBinary();
+        } catch( IOException exception ) {
+            // Writing to an internal buffer does not do I/O
+            throw new IllegalStateException( exception );
+        } finally {
+            output.release();
+        }
+    }
+
+    /**
+     * Encodes the tag into off-heap memory of an arena
+     * @param arena The {@link CTagArena} to allocate from
+     * @return The encoded tag as a read-only, off-heap {@link ByteBuffer}
+     * @since 1.2
+     */
+    public ByteBuffer encode( CTagArena arena ) {
+        // Encoded into a pooled heap buffer first, so the arena allocates
+        // exactly the encoded size instead of every growth step
+        CTagOutput output = new CTagOutput( CTagBufferPool.getDefault() );
+        try {
+            encode( output );
+            return arena.copy( output.toByteBuffer() ).asReadOnlyBuffer();
+        } catch( IOException exception ) {
+            // Writing to an internal buffer does not do I/O
+            throw new IllegalStateException( exception );
+        } finally {
+            output.release();
+        }
+    }
+
+    /**
+     * Encodes the tag directly into a {@link CTagOutput}. The tag tree is
+     * walked once, and no intermediate {@link Binary} instances are made for
+     * compounds and arrays. When this encoder is canonical, the output is
+     * canonical while the tag is written.
+     * @param output The {@link CTagOutput} to write to
+     * @exception IOException When the output's underlying stream throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void encode( CTagOutput output ) throws IOException {
+        if( compression != CTagCompression.NONE ) {
+            compress( output );
+            return;
+        }
+        boolean wasCanonical = output.isCanonical();
+        output.setCanonical( canonical || wasCanonical );
+        try {
+            tag.writePrefixed( output );
+        } finally {
+            output.setCanonical( wasCanonical );
+        }
+    }
+
+    /**
+     * Writes the compression header, and the tag through a compressing stream
+     */
+    private void compress( CTagOutput output ) throws IOException {
+        if( dictionary != null && compression != CTagCompression.DEFLATE ) {
+            throw new IllegalStateException( "Dictionaries are only supported by DEFLATE compression." );
+        }
+        output.writeByte( TagRegistry.END );
+        output.writeByte( compression.getId() );
+        Deflater deflater;
+        DeflaterOutputStream stream;
+        if( compression == CTagCompression.DEFLATE ) {
+            output.writeVarInt( dictionary == null ? 0 : dictionary.getId() );
+            deflater = new Deflater( Deflater.DEFAULT_COMPRESSION, true );
+            if( dictionary != null ) {
+                deflater.setDictionary( dictionary.bytes() );
+            }
+            stream = new DeflaterOutputStream( output.asOutputStream(), deflater, 8192 );
+        } else {
+            GZIPStream gzip = new GZIPStream( output.asOutputStream() );
+            deflater = gzip.deflater();
+            stream = gzip;
+        }
+        // The buffer in front of the compressor is borrowed from the pool of
+        // the output, when it has one
+        CTagOutput compressed = new CTagOutput( stream, output.getPool() );
+        try {
+            compressed.setCanonical( canonical || output.isCanonical() );
+            tag.writePrefixed( compressed );
+            compressed.flush();
+            stream.finish();
+        } finally {
+            compressed.release();
+            deflater.end();
+        }
+    }
+
+    /**
+     * Encodes the tag directly into an {@link OutputStream}. The stream is
+     * flushed, but not closed.
+     * @param stream The {@link OutputStream} to write to
+     * @exception IOException When the stream throws an {@link IOException}
+     * @since 1.2
+     */
+    public void encode( OutputStream stream ) throws IOException {
+        CTagOutput output = new CTagOutput( stream );
+        encode( output );
+        output.flush();
+    }
+
+    /**
+     * Encodes the tag directly into an {@link OutputStream}, through a buffer
+     * borrowed from a pool. The stream is flushed, but not closed.
+     * @param stream The {@link OutputStream} to write to
+     * @param pool   The {@link CTagBufferPool} to borrow from
+     * @exception IOException When the stream throws an {@link IOException}
+     * @since 1.2
+     */
+    public void encode( OutputStream stream, CTagBufferPool pool ) throws IOException {
+        CTagOutput output = new CTagOutput( stream, pool );
+        try {
+            encode( output );
+            output.flush();
+        } finally {
+            output.release();
+        }
+    }
+
+    /**
+     * Encodes the tag directly into a {@link WritableByteChannel}. The channel
+     * is not closed.
+     * @param channel The {@link WritableByteChannel} to write to
+     * @exception IOException When the channel throws an {@link IOException}
+     * @since 1.2
+     */
+    public void encode( WritableByteChannel channel ) throws IOException {
+        CTagOutput output = new CTagOutput( channel );
+        encode( output );
+        output.flush();
+    }
+
+    /**
+     * Encodes the tag directly into a {@link WritableByteChannel}, through a
+     * buffer borrowed from a pool. The channel is not closed.
+     * @param channel The {@link WritableByteChannel} to write to
+     * @param pool    The {@link CTagBufferPool} to borrow from
+     * @exception IOException When the channel throws an {@link IOException}
+     * @since 1.2
+     */
+    public void encode( WritableByteChannel channel, CTagBufferPool pool ) throws IOException {
+        CTagOutput output = new CTagOutput( channel, pool );
+        try {
+            encode( output );
+            output.flush();
+        } finally {
+            output.release();
+        }
+    }
+
+    /**
+     * Encodes the tag as a base-64 string directly into an {@link Appendable},
+     * such as a {@link java.io.Writer}. The output equals
+     * {@code encode().makeString()}, but neither the complete binary nor the
+     * complete string are kept in memory. The appendable is not closed.
+     * @param appendable The {@link Appendable} to write to
+     * @exception IOException When the appendable throws an {@link IOException}
+     * @since 1.2
+     */
+    public void encodeBase64( Appendable appendable ) throws IOException {
+        Base64OutputStream stream = new Base64OutputStream( appendable );
+        encode( stream );
+        stream.finish();
+    }
+
+    /**
+     * Encodes the tag directly into a {@link ByteBuffer}, starting at its
+     * current position. The buffer can be reused for multiple tags.
+     * @param buffer The {@link ByteBuffer} to write into
+     * @exception java.nio.BufferOverflowException When the encoded tag does not
+     *                                             fit in the buffer.
+     * @since 1.2
+     */
+    public void encode( ByteBuffer buffer ) {
+        try {
+            encode( new CTagOutput( buffer ) );
+        } catch( IOException exception ) {
+            // Writing to a buffer does not do I/O
+            throw new IllegalStateException( exception );
+        }
+    }
+
+    // Gives access to the deflater a GZIP stream makes for itself, so it can
+    // be ended without closing the output
+    private static final class GZIPStream extends GZIPOutputStream {
+        GZIPStream( OutputStream stream ) throws IOException {
+            super( stream, 8192 );
+        }
+
+        Deflater deflater() {
+            return def;
+        }
     }
 }
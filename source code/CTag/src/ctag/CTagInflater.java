@@ -0,0 +1,92 @@
+package ctag;
+
+import ctag.exception.CTagInvalidException;
+import ctag.exception.EndException;
+import ctag.tags.TagRegistry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads the compression header of a CTag code, and decompresses the rest of
+ * the code. Used by {@link CTagDecoder} and {@link CTagReader}. The native
+ * memory of the decompressor is freed by {@link #end()}.
+ */
+final class CTagInflater {
+    private final CTagInput input;
+    private final Inflater inflater;
+
+    private CTagInflater( CTagInput input, Inflater inflater ) {
+        this.input = input;
+        this.inflater = inflater;
+    }
+
+    /**
+     * Reads the compression header at the position of an input
+     * @param input The input holding the CTag code
+     * @return The inflater, or null when the code is not compressed
+     */
+    static CTagInflater open( CTagInput input ) throws IOException, CTagInvalidException, EndException {
+        if( input.peekByte() != TagRegistry.END ) {
+            return null;
+        }
+        input.readByte();
+        byte id = input.readByte();
+        CTagCompression compression = CTagCompression.of( id );
+        InputStream stream;
+        Inflater inflater;
+        if( compression == CTagCompression.DEFLATE ) {
+            int dictionaryId = input.readVarInt();
+            CTagDictionary dictionary = null;
+            if( dictionaryId != 0 ) {
+                dictionary = CTagDictionary.get( dictionaryId );
+                if( dictionary == null ) {
+                    throw new CTagInvalidException( "Found compressed code with unknown dictionary: " + dictionaryId + "." );
+                }
+            }
+            inflater = new Inflater( true );
+            if( dictionary != null ) {
+                inflater.setDictionary( dictionary.bytes() );
+            }
+            stream = new InflaterInputStream( input.asInputStream(), inflater, 8192 );
+        } else if( compression == CTagCompression.GZIP ) {
+            GZIPStream gzip = new GZIPStream( input.asInputStream() );
+            inflater = gzip.inflater();
+            stream = gzip;
+        } else {
+            throw new CTagInvalidException( "Found TagEnd as main type, or compressed code with unknown codec: " + id + "." );
+        }
+        return new CTagInflater( input.derive( stream ), inflater );
+    }
+
+    /**
+     * Returns the input that reads the decompressed code
+     */
+    CTagInput getInput() {
+        return input;
+    }
+
+    /**
+     * Frees the decompressor and returns a pooled buffer of the input. The
+     * underlying input is not closed.
+     */
+    void end() {
+        inflater.end();
+        input.release();
+    }
+
+    // Gives access to the inflater a GZIP stream makes for itself, so it can
+    // be ended without closing the underlying input
+    private static final class GZIPStream extends GZIPInputStream {
+        GZIPStream( InputStream stream ) throws IOException {
+            super( stream, 8192 );
+        }
+
+        Inflater inflater() {
+            return inf;
+        }
+    }
+}
@@ -2,16 +2,42 @@ package ctag;
 
 import ctag.exception.CTagInvalidException;
 import ctag.exception.EndException;
+import ctag.exception.NegativeLengthException;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 
 /**
- * Used to read bytes using an input stream
+ * Used to read bytes using an input stream. Bytes are read from the stream in
+ * bulk into an internal buffer, the typed readers take their bytes from that
+ * buffer without allocating.
  * @since 1.0
  */
 public class CTagInput {
+    private static final int BUFFER_SIZE = 8192;
+
     private InputStream input;
+    // Position is the read index, limit is the end of the available bytes
+    private ByteBuffer buffer;
+    // A file read through mappings, and the offset the mapped window starts at
+    private FileChannel channel;
+    private long window;
+
+    private boolean capturing;
+    private int captureStart;
+    // Bytes that were captured before the buffer got refilled, stream mode only
+    private Binary.Builder capture;
+
+    private boolean lazy;
+    private boolean bitSets;
+    private boolean cached;
+    private boolean views;
+    private CTagArena arena;
+    private CTagKeyPool keyPool;
+    private CTagBufferPool pool;
 
     /**
      * Makes a {@link CTagInput} using an underlying input stream
@@ -19,7 +45,108 @@ public class CTagInput {
      * @since 1.0
      */
     public CTagInput( InputStream stream ) {
+        this( stream, null );
+    }
+
+    /**
+     * Makes a {@link CTagInput} using an underlying input stream, which is
+     * read through a buffer borrowed from a pool. Use {@link #release()} or
+     * {@link #close()} to return the buffer.
+     * @param stream The {@link InputStream}
+     * @param pool   The {@link CTagBufferPool} to borrow from, or null to
+     *               allocate the buffer
+     * @since 1.2
+     */
+    public CTagInput( InputStream stream, CTagBufferPool pool ) {
         input = stream;
+        this.pool = pool;
+        buffer = pool == null ? ByteBuffer.allocate( BUFFER_SIZE ) : pool.acquire( BUFFER_SIZE );
+        buffer.limit( 0 );
+    }
+
+    /**
+     * Makes a {@link CTagInput} that reads from a byte array. The array is
+     * used as buffer directly, so {@link #slice(int)} does not copy.
+     * @param bytes The byte array
+     * @since 1.2
+     */
+    public CTagInput( byte[] bytes ) {
+        this( ByteBuffer.wrap( bytes ) );
+    }
+
+    /**
+     * Makes a {@link CTagInput} that reads the remaining bytes of a buffer. The
+     * buffer is used directly, so {@link #slice(int)} does not copy. The
+     * position of the given buffer is not changed.
+     * @param buffer The {@link ByteBuffer}
+     * @since 1.2
+     */
+    public CTagInput( ByteBuffer buffer ) {
+        this.buffer = buffer.slice().order( ByteOrder.BIG_ENDIAN );
+    }
+
+    /**
+     * Makes a {@link CTagInput} that reads a file through memory mappings. A
+     * mapping holds at most 2 GB, so a larger file is mapped in windows: when
+     * a read passes the end of the mapped window, a new window is mapped that
+     * starts at that read. Slices and views of earlier windows stay valid.
+     * Use {@link #close()} to close the channel.
+     * @param channel The {@link FileChannel}, which is read from its start
+     * @exception IOException When the channel can not be mapped
+     * @since 1.2
+     */
+    public CTagInput( FileChannel channel ) throws IOException {
+        this.channel = channel;
+        map( 0, 0 );
+    }
+
+    // Maps the window of the file that starts at an offset
+    private void map( long start, int position ) throws IOException {
+        int size = ( int ) Math.min( channel.size() - start, Integer.MAX_VALUE );
+        buffer = channel.map( FileChannel.MapMode.READ_ONLY, start, size );
+        buffer.position( position );
+        window = start;
+    }
+
+    /**
+     * Maps a new window that starts at the read position, or at the start of
+     * a running capture, so that captured bytes stay in one buffer
+     * @return False when the window can not move further
+     */
+    private boolean moveWindow() throws IOException {
+        int start = capturing ? captureStart : buffer.position();
+        if( start == 0 ) return false;
+        map( window + start, buffer.position() - start );
+        captureStart = 0;
+        return true;
+    }
+
+    /**
+     * Makes sure the buffer holds at least a specific amount of bytes, which
+     * must not be more than the buffer capacity.
+     */
+    private void require( int bytes ) throws IOException, EndException {
+        if( buffer.remaining() >= bytes ) return;
+        if( channel != null && moveWindow() && buffer.remaining() >= bytes ) return;
+        if( input == null ) {
+            throw new EndException( "The input stream does not provide any more bytes." );
+        }
+        if( capturing ) {
+            capture.append( buffer.array(), captureStart, buffer.position() - captureStart );
+            captureStart = 0;
+        }
+        buffer.compact();
+        try {
+            while( buffer.position() < bytes ) {
+                int read = input.read( buffer.array(), buffer.position(), buffer.remaining() );
+                if( read < 0 ) {
+                    throw new EndException( "The input stream does not provide any more bytes." );
+                }
+                buffer.position( buffer.position() + read );
+            }
+        } finally {
+            buffer.flip();
+        }
     }
 
     /**
@@ -31,27 +158,763 @@ public class CTagInput {
      * @since 1.0
      */
     public Binary read( int bytes ) throws IOException, EndException {
-        Binary.Builder builder = new Binary.Builder();
-        for( int i = 0; i < bytes; i++ ) {
-            int bits = input.read();
-            if( bits > -1 ) {
-                builder.append( new byte[] {
-                        ( byte ) bits
-                } );
-            } else {
-                throw new EndException( "The input stream does not provide any more bytes." );
+        byte[] out = new byte[ Math.max( bytes, 0 ) ];
+        readFully( out, 0, out.length );
+        return new Binary( out );
+    }
+
+    /**
+     * Reads bytes into a range of a byte array. Large ranges are read from the
+     * underlying stream directly.
+     * @param bytes The array to read into
+     * @param off   The index of the first byte to fill
+     * @param len   The amount of bytes to read
+     * @exception IOException When the underlying input stream throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void readFully( byte[] bytes, int off, int len ) throws IOException, EndException {
+        int available = Math.min( len, buffer.remaining() );
+        buffer.get( bytes, off, available );
+        off += available;
+        len -= available;
+        if( len == 0 ) return;
+        if( input == null ) {
+            require( len );
+            buffer.get( bytes, off, len );
+            return;
+        }
+        if( len >= buffer.capacity() ) {
+            if( capturing ) {
+                capture.append( buffer.array(), captureStart, buffer.position() - captureStart );
+                captureStart = buffer.position();
             }
+            while( len > 0 ) {
+                int read = input.read( bytes, off, len );
+                if( read < 0 ) {
+                    throw new EndException( "The input stream does not provide any more bytes." );
+                }
+                if( capturing ) {
+                    capture.append( bytes, off, read );
+                }
+                off += read;
+                len -= read;
+            }
+        } else {
+            require( len );
+            buffer.get( bytes, off, len );
         }
-        return builder.build();
     }
 
     /**
-     * Closes the stream
+     * Reads one byte
+     * @exception IOException When the underlying input stream throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public byte readByte() throws IOException, EndException {
+        require( 1 );
+        return buffer.get();
+    }
+
+    /**
+     * Returns the next byte without reading it
+     * @exception IOException When the underlying input stream throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public byte peekByte() throws IOException, EndException {
+        require( 1 );
+        return buffer.get( buffer.position() );
+    }
+
+    /**
+     * Reads a 16-bits integer, big-endian
+     * @exception IOException When the underlying input stream throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public short readShort() throws IOException, EndException {
+        require( 2 );
+        return buffer.getShort();
+    }
+
+    /**
+     * Reads a 32-bits integer, big-endian
+     * @exception IOException When the underlying input stream throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public int readInt() throws IOException, EndException {
+        require( 4 );
+        return buffer.getInt();
+    }
+
+    /**
+     * Reads a 64-bits integer, big-endian
+     * @exception IOException When the underlying input stream throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public long readLong() throws IOException, EndException {
+        require( 8 );
+        return buffer.getLong();
+    }
+
+    /**
+     * Reads a single precision floating point number
+     * @exception IOException When the underlying input stream throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public float readFloat() throws IOException, EndException {
+        return Float.intBitsToFloat( readInt() );
+    }
+
+    /**
+     * Reads a double precision floating point number
+     * @exception IOException When the underlying input stream throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public double readDouble() throws IOException, EndException {
+        return Double.longBitsToDouble( readLong() );
+    }
+
+    /**
+     * Reads 16-bits integers into a range of an array. The values are copied from the
+     * buffer in bulk, through a big-endian view.
+     * @param values The array to read into
+     * @param off    The index of the first value to fill
+     * @param len    The amount of values to read
+     * @exception IOException When the underlying input stream throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void readShorts( short[] values, int off, int len ) throws IOException, EndException {
+        while( len > 0 ) {
+            require( 2 );
+            int amount = Math.min( len, buffer.remaining() / 2 );
+            buffer.asShortBuffer().get( values, off, amount );
+            buffer.position( buffer.position() + amount * 2 );
+            off += amount;
+            len -= amount;
+        }
+    }
+
+    /**
+     * Reads 32-bits integers into a range of an array. The values are copied from the
+     * buffer in bulk, through a big-endian view.
+     * @param values The array to read into
+     * @param off    The index of the first value to fill
+     * @param len    The amount of values to read
+     * @exception IOException When the underlying input stream throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void readInts( int[] values, int off, int len ) throws IOException, EndException {
+        while( len > 0 ) {
+            require( 4 );
+            int amount = Math.min( len, buffer.remaining() / 4 );
+            buffer.asIntBuffer().get( values, off, amount );
+            buffer.position( buffer.position() + amount * 4 );
+            off += amount;
+            len -= amount;
+        }
+    }
+
+    /**
+     * Reads 64-bits integers into a range of an array. The values are copied from the
+     * buffer in bulk, through a big-endian view.
+     * @param values The array to read into
+     * @param off    The index of the first value to fill
+     * @param len    The amount of values to read
+     * @exception IOException When the underlying input stream throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void readLongs( long[] values, int off, int len ) throws IOException, EndException {
+        while( len > 0 ) {
+            require( 8 );
+            int amount = Math.min( len, buffer.remaining() / 8 );
+            buffer.asLongBuffer().get( values, off, amount );
+            buffer.position( buffer.position() + amount * 8 );
+            off += amount;
+            len -= amount;
+        }
+    }
+
+    /**
+     * Reads single precision floating point numbers into a range of an array. The values are copied from the
+     * buffer in bulk, through a big-endian view.
+     * @param values The array to read into
+     * @param off    The index of the first value to fill
+     * @param len    The amount of values to read
+     * @exception IOException When the underlying input stream throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void readFloats( float[] values, int off, int len ) throws IOException, EndException {
+        while( len > 0 ) {
+            require( 4 );
+            int amount = Math.min( len, buffer.remaining() / 4 );
+            buffer.asFloatBuffer().get( values, off, amount );
+            buffer.position( buffer.position() + amount * 4 );
+            off += amount;
+            len -= amount;
+        }
+    }
+
+    /**
+     * Reads double precision floating point numbers into a range of an array. The values are copied from the
+     * buffer in bulk, through a big-endian view.
+     * @param values The array to read into
+     * @param off    The index of the first value to fill
+     * @param len    The amount of values to read
+     * @exception IOException When the underlying input stream throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void readDoubles( double[] values, int off, int len ) throws IOException, EndException {
+        while( len > 0 ) {
+            require( 8 );
+            int amount = Math.min( len, buffer.remaining() / 8 );
+            buffer.asDoubleBuffer().get( values, off, amount );
+            buffer.position( buffer.position() + amount * 8 );
+            off += amount;
+            len -= amount;
+        }
+    }
+
+    /**
+     * Reads booleans packed the way {@link ctag.tags.TagBooleanArray} stores
+     * them: 8 per byte, first boolean in the highest bit. The packed bytes are
+     * read in one operation and unpacked 64 booleans at a time.
+     * @param values The array to read into
+     * @param off    The index of the first value to fill
+     * @param len    The amount of booleans to read
+     * @exception IOException When the underlying input stream throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void readBooleans( boolean[] values, int off, int len ) throws IOException, EndException {
+        ByteBuffer packed = packed( len );
+        while( len >= 64 ) {
+            long word = packed.getLong();
+            for( int i = 0; i < 64; i++ ) {
+                values[ off + i ] = word << i < 0;
+            }
+            off += 64;
+            len -= 64;
+        }
+        if( len > 0 ) {
+            long word = tail( packed );
+            for( int i = 0; i < len; i++ ) {
+                values[ off + i ] = word << i < 0;
+            }
+        }
+    }
+
+    /**
+     * Reads packed booleans as the words of a {@link java.util.BitSet}: the
+     * boolean at index {@code n} is bit {@code n % 64} of word {@code n / 64}.
+     * Bits beyond the length are cleared.
+     * @param len The amount of booleans to read
+     * @return The words, as accepted by {@link java.util.BitSet#valueOf(long[])}
+     * @exception IOException When the underlying input stream throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public long[] readBits( int len ) throws IOException, EndException {
+        ByteBuffer packed = packed( len );
+        long[] words = new long[ len + 63 >> 6 ];
+        int full = len >> 6;
+        for( int i = 0; i < full; i++ ) {
+            words[ i ] = Long.reverse( packed.getLong() );
+        }
+        if( full < words.length ) {
+            // Mask off padding bits, the word is still in stored bit order
+            words[ full ] = Long.reverse( tail( packed ) & -1L << 64 - ( len & 63 ) );
+        }
+        return words;
+    }
+
+    /**
+     * Reads the last, incomplete word of packed booleans, which has less than 8
+     * bytes left. The first byte goes in the highest byte of the word.
+     */
+    private static long tail( ByteBuffer packed ) {
+        long word = 0;
+        for( int shift = 56; packed.hasRemaining(); shift -= 8 ) {
+            word |= ( packed.get() & 0xffL ) << shift;
+        }
+        return word;
+    }
+
+    /**
+     * Returns the packed bytes of a boolean array as a buffer. Without an
+     * underlying stream this is a view, otherwise the bytes are read in one
+     * operation.
+     */
+    private ByteBuffer packed( int len ) throws IOException, EndException {
+        int bytes = len + 7 >> 3;
+        if( input == null ) {
+            require( bytes );
+            ByteBuffer packed = buffer.duplicate();
+            packed.limit( packed.position() + bytes );
+            buffer.position( buffer.position() + bytes );
+            return packed;
+        }
+        byte[] packed = new byte[ bytes ];
+        readFully( packed, 0, bytes );
+        return ByteBuffer.wrap( packed );
+    }
+
+    /**
+     * Reads an unsigned variable-length integer (LEB128), as written by
+     * {@link CTagOutput#writeVarInt(int)}
+     * @exception IOException          When the underlying input stream throws
+     *                                 an {@link IOException}
+     * @exception CTagInvalidException When the integer takes more than 5 bytes
+     * @since 1.2
+     */
+    public int readVarInt() throws IOException, EndException, CTagInvalidException {
+        int value = 0;
+        for( int shift = 0; shift < 35; shift += 7 ) {
+            require( 1 );
+            byte b = buffer.get();
+            value |= ( b & 0x7F ) << shift;
+            if( b >= 0 ) return value;
+        }
+        throw new CTagInvalidException( "Found variable-length integer of more than 5 bytes" );
+    }
+
+    /**
+     * Reads an unsigned variable-length long (LEB128), as written by
+     * {@link CTagOutput#writeVarLong(long)}
+     * @exception IOException          When the underlying input stream throws
+     *                                 an {@link IOException}
+     * @exception CTagInvalidException When the long takes more than 10 bytes
+     * @since 1.2
+     */
+    public long readVarLong() throws IOException, EndException, CTagInvalidException {
+        long value = 0;
+        for( int shift = 0; shift < 70; shift += 7 ) {
+            require( 1 );
+            byte b = buffer.get();
+            value |= ( b & 0x7FL ) << shift;
+            if( b >= 0 ) return value;
+        }
+        throw new CTagInvalidException( "Found variable-length long of more than 10 bytes" );
+    }
+
+    /**
+     * Reads zigzag variable-length integers into a range of an array, as
+     * written by {@link CTagOutput#writeVarInts(int[], int, int)}
+     * @param values The array to read into
+     * @param off    The index of the first value to fill
+     * @param len    The amount of values to read
+     * @exception IOException          When the underlying input stream throws
+     *                                 an {@link IOException}
+     * @exception CTagInvalidException When an integer takes more than 5 bytes
+     * @since 1.2
+     */
+    public void readVarInts( int[] values, int off, int len ) throws IOException, EndException, CTagInvalidException {
+        for( int i = off; i < off + len; i++ ) {
+            int value = readVarInt();
+            values[ i ] = value >>> 1 ^ -( value & 1 );
+        }
+    }
+
+    /**
+     * Reads zigzag variable-length longs into a range of an array, as written
+     * by {@link CTagOutput#writeVarLongs(long[], int, int)}
+     * @param values The array to read into
+     * @param off    The index of the first value to fill
+     * @param len    The amount of values to read
+     * @exception IOException          When the underlying input stream throws
+     *                                 an {@link IOException}
+     * @exception CTagInvalidException When a long takes more than 10 bytes
+     * @since 1.2
+     */
+    public void readVarLongs( long[] values, int off, int len ) throws IOException, EndException, CTagInvalidException {
+        for( int i = off; i < off + len; i++ ) {
+            long value = readVarLong();
+            values[ i ] = value >>> 1 ^ -( value & 1 );
+        }
+    }
+
+    /**
+     * Reads a string the way {@link ctag.tags.TagString} stores it: two bytes
+     * holding the length, followed by the characters. The characters are
+     * decoded from the buffer directly.
+     * @exception IOException             When the underlying input stream
+     *                                    throws an {@link IOException}
+     * @exception NegativeLengthException When the length is negative
+     * @since 1.2
+     */
+    public String readUtf() throws IOException, EndException, NegativeLengthException {
+        short len = readShort();
+        if( len < 0 ) throw new NegativeLengthException( "Found string with negative length" );
+        if( len <= buffer.capacity() && buffer.hasArray() ) {
+            require( len );
+            String string = new String( buffer.array(), buffer.arrayOffset() + buffer.position(), len );
+            buffer.position( buffer.position() + len );
+            return string;
+        }
+        byte[] bytes = new byte[ len ];
+        readFully( bytes, 0, len );
+        return new String( bytes );
+    }
+
+    /**
+     * Reads a compound key. Keys are stored like strings, see
+     * {@link #readUtf()}, but when a {@link CTagKeyPool} is set, keys are
+     * looked up in the pool by their raw bytes first.
+     * @exception IOException             When the underlying input stream
+     *                                    throws an {@link IOException}
+     * @exception NegativeLengthException When the length is negative
+     * @since 1.2
+     */
+    public String readKey() throws IOException, EndException, NegativeLengthException {
+        if( keyPool == null ) {
+            return readUtf();
+        }
+        short len = readShort();
+        if( len < 0 ) throw new NegativeLengthException( "Found string with negative length" );
+        if( len <= CTagKeyPool.MAX_KEY_LENGTH && buffer.hasArray() ) {
+            require( len );
+            String key = keyPool.intern( buffer.array(), buffer.arrayOffset() + buffer.position(), len );
+            buffer.position( buffer.position() + len );
+            return key;
+        }
+        byte[] bytes = new byte[ len ];
+        readFully( bytes, 0, len );
+        return keyPool.intern( bytes, 0, len );
+    }
+
+    /**
+     * Returns the next bytes as a read-only {@link ByteBuffer}. When this input
+     * reads from a byte array or buffer, the returned buffer is a view over it
+     * and nothing is copied. Otherwise the bytes are copied into a new buffer.
+     * @param len The amount of bytes
+     * @exception IOException When the underlying input stream throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public ByteBuffer slice( int len ) throws IOException, EndException {
+        if( input == null ) {
+            require( len );
+            ByteBuffer slice = buffer.slice();
+            slice.limit( len );
+            buffer.position( buffer.position() + len );
+            return slice.asReadOnlyBuffer();
+        }
+        byte[] bytes = new byte[ len ];
+        readFully( bytes, 0, len );
+        return ByteBuffer.wrap( bytes ).asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the next bytes for an array view. When an arena is set and the
+     * bytes are on the heap, they are copied into the arena. Otherwise this is
+     * {@link #slice(int)}.
+     * @param len The amount of bytes
+     * @exception IOException When the underlying input stream throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public ByteBuffer view( int len ) throws IOException, EndException {
+        if( arena == null || input == null && buffer.isDirect() ) {
+            return slice( len );
+        }
+        ByteBuffer view = arena.allocate( len );
+        while( view.hasRemaining() ) {
+            require( 1 );
+            int amount = Math.min( view.remaining(), buffer.remaining() );
+            ByteBuffer part = buffer.duplicate();
+            part.limit( part.position() + amount );
+            view.put( part );
+            buffer.position( buffer.position() + amount );
+        }
+        view.flip();
+        return view;
+    }
+
+    /**
+     * Skips a specific amount of bytes
+     * @param bytes The amount of bytes
+     * @exception IOException When the underlying input stream throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void skip( int bytes ) throws IOException, EndException {
+        while( bytes > 0 ) {
+            int amount = Math.min( bytes, buffer.capacity() );
+            require( amount );
+            buffer.position( buffer.position() + amount );
+            bytes -= amount;
+        }
+    }
+
+    /**
+     * Starts recording the bytes that are read, until {@link #endCapture()} is
+     * called. Captures can't be nested.
+     * @exception IllegalStateException When a capture is already running.
+     * @since 1.2
+     */
+    public void startCapture() {
+        if( capturing ) {
+            throw new IllegalStateException( "Already capturing." );
+        }
+        capturing = true;
+        captureStart = buffer.position();
+        if( input != null ) {
+            capture = new Binary.Builder();
+        }
+    }
+
+    /**
+     * Stops recording bytes, and returns the bytes read since
+     * {@link #startCapture()} as a read-only {@link ByteBuffer}. When this
+     * input reads from a byte array or buffer, the returned buffer is a view
+     * over it and nothing is copied.
+     * @exception IllegalStateException When no capture is running.
+     * @since 1.2
+     */
+    public ByteBuffer endCapture() {
+        if( !capturing ) {
+            throw new IllegalStateException( "Not capturing." );
+        }
+        capturing = false;
+        if( input == null ) {
+            ByteBuffer slice = buffer.duplicate();
+            slice.limit( buffer.position() ).position( captureStart );
+            return slice.slice().asReadOnlyBuffer();
+        }
+        capture.append( buffer.array(), captureStart, buffer.position() - captureStart );
+        byte[] bytes = capture.build().getBytes();
+        capture = null;
+        return ByteBuffer.wrap( bytes ).asReadOnlyBuffer();
+    }
+
+    /**
+     * Makes a {@link CTagInput} that reads the remaining bytes of a buffer,
+     * with the same decoding options as this input.
+     * @param buffer The {@link ByteBuffer}
+     * @since 1.2
+     */
+    public CTagInput derive( ByteBuffer buffer ) {
+        return options( new CTagInput( buffer ) );
+    }
+
+    /**
+     * Makes a {@link CTagInput} that reads from an input stream, with the same
+     * decoding options as this input. When this input borrows its buffer from
+     * a pool, so does the derived input.
+     * @param stream The {@link InputStream}
+     * @since 1.2
+     */
+    public CTagInput derive( InputStream stream ) {
+        return options( new CTagInput( stream, pool ) );
+    }
+
+    private CTagInput options( CTagInput derived ) {
+        derived.lazy = lazy;
+        derived.bitSets = bitSets;
+        derived.cached = cached;
+        derived.views = views;
+        derived.arena = arena;
+        derived.keyPool = keyPool;
+        return derived;
+    }
+
+    /**
+     * Returns the remaining bytes of this input as an {@link InputStream}: the
+     * buffered bytes first, followed by the rest of the underlying stream.
+     * Reading from the returned stream consumes the bytes of this input.
+     * @since 1.2
+     */
+    public InputStream asInputStream() {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                if( buffer.hasRemaining() || channel != null && moveWindow() && buffer.hasRemaining() ) {
+                    return buffer.get() & 0xff;
+                }
+                return input == null ? -1 : input.read();
+            }
+
+            @Override
+            public int read( byte[] bytes, int off, int len ) throws IOException {
+                if( len == 0 ) return 0;
+                if( buffer.hasRemaining() || channel != null && moveWindow() && buffer.hasRemaining() ) {
+                    int amount = Math.min( len, buffer.remaining() );
+                    buffer.get( bytes, off, amount );
+                    return amount;
+                }
+                return input == null ? -1 : input.read( bytes, off, len );
+            }
+
+            @Override
+            public int available() throws IOException {
+                return buffer.remaining() + ( input == null ? 0 : input.available() );
+            }
+
+            @Override
+            public void close() throws IOException {
+                CTagInput.this.close();
+            }
+        };
+    }
+
+    /**
+     * Sets whether compounds are decoded lazily. A lazy compound only records
+     * the raw bytes of each value, and decodes a value the first time it is
+     * asked for.
+     * @param lazy True to decode compounds lazily
+     * @since 1.2
+     */
+    public void setLazy( boolean lazy ) {
+        this.lazy = lazy;
+    }
+
+    /**
+     * Checks whether compounds are decoded lazily
+     * @since 1.2
+     */
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    /**
+     * Sets whether boolean arrays are decoded as {@link ctag.tags.TagBitSet},
+     * which keeps the booleans packed, instead of
+     * {@link ctag.tags.TagBooleanArray}.
+     * @param bitSets True to decode boolean arrays as bit sets
+     * @since 1.2
+     */
+    public void setBitSets( boolean bitSets ) {
+        this.bitSets = bitSets;
+    }
+
+    /**
+     * Checks whether boolean arrays are decoded as bit sets
+     * @since 1.2
+     */
+    public boolean isBitSets() {
+        return bitSets;
+    }
+
+    /**
+     * Sets whether numeric arrays are decoded as views over the bytes of this
+     * input, like {@link ctag.tags.TagIntBuffer}, instead of being copied into
+     * arrays
+     * @param views True to decode array views
+     * @since 1.2
+     */
+    public void setViews( boolean views ) {
+        this.views = views;
+    }
+
+    /**
+     * Returns whether numeric arrays are decoded as views. This is the case
+     * when an arena is set as well.
+     * @since 1.2
+     */
+    public boolean isViews() {
+        return views || arena != null;
+    }
+
+    /**
+     * Sets the arena that numeric arrays are decoded into. Arrays are then
+     * decoded as views, see {@link #view(int)}.
+     * @param arena The {@link CTagArena}, or null to not decode off-heap
+     * @since 1.2
+     */
+    public void setArena( CTagArena arena ) {
+        this.arena = arena;
+    }
+
+    /**
+     * Returns the arena numeric arrays are decoded into, or null
+     * @since 1.2
+     */
+    public CTagArena getArena() {
+        return arena;
+    }
+
+    /**
+     * Sets whether null, boolean, byte and small short and integer tags are
+     * decoded as shared instances, like {@link ctag.tags.TagBoolean#TRUE} and
+     * {@link ctag.tags.TagInteger#valueOf(int)}. Shared instances can not be
+     * changed.
+     * @param cached True to decode shared scalar tags
+     * @since 1.2
+     */
+    public void setCached( boolean cached ) {
+        this.cached = cached;
+    }
+
+    /**
+     * Checks whether scalar tags are decoded as shared instances
+     * @since 1.2
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    /**
+     * Sets the pool that compound keys are shared through, or null to make a
+     * new string for every key.
+     * @param keyPool The {@link CTagKeyPool}
+     * @since 1.2
+     */
+    public void setKeyPool( CTagKeyPool keyPool ) {
+        this.keyPool = keyPool;
+    }
+
+    /**
+     * Returns the pool that compound keys are shared through, or null
+     * @since 1.2
+     */
+    public CTagKeyPool getKeyPool() {
+        return keyPool;
+    }
+
+    /**
+     * Returns the buffer to the pool it was borrowed from, without closing the
+     * stream. Does nothing when this input does not use a pool. Bytes that
+     * were buffered but not read are discarded, and this input must not be
+     * used afterwards. Tags that were already decoded stay valid, since they
+     * never share the buffer of a stream.
+     * @since 1.2
+     */
+    public void release() {
+        if( pool != null ) {
+            pool.release( buffer );
+            pool = null;
+            buffer = null;
+        }
+    }
+
+    /**
+     * Closes the stream or the mapped file, and returns a pooled buffer to its
+     * pool
      * @exception IOException When the underlying input stream throws an
      *                        {@link IOException}
      * @since 1.0
      */
     public void close() throws IOException {
-        input.close();
+        try {
+            if( input != null ) {
+                input.close();
+            }
+            if( channel != null ) {
+                channel.close();
+            }
+        } finally {
+            release();
+        }
     }
 }
@@ -0,0 +1,125 @@
+package ctag;
+
+/**
+ * Bounded pool of compound keys, used by decoders to share key strings. Keys
+ * are looked up by their raw bytes, before a {@link String} is made: a key
+ * that is in the pool costs no allocation and no character decoding. When the
+ * pool is full, new keys replace older ones.
+ * <br/><br/>
+ * A pool can be shared by many decoders, also on different threads. Keys
+ * longer than {@link #MAX_KEY_LENGTH} bytes are never pooled.
+ * @since 1.2
+ */
+public class CTagKeyPool {
+    /**
+     * The length of the longest key that is pooled, in bytes
+     * @since 1.2
+     */
+    public static final int MAX_KEY_LENGTH = 64;
+
+    // Amount of slots that are checked for a key before a slot is replaced
+    private static final int PROBES = 4;
+
+    private final Entry[] table;
+    private final int mask;
+
+    /**
+     * Makes a pool that holds up to 1024 keys
+     * @since 1.2
+     */
+    public CTagKeyPool() {
+        this( 1024 );
+    }
+
+    /**
+     * Makes a pool that holds up to a specific amount of keys
+     * @param capacity The amount of keys, rounded up to a power of two
+     * @since 1.2
+     */
+    public CTagKeyPool( int capacity ) {
+        if( capacity < 1 || capacity > 1 << 20 ) {
+            throw new IllegalArgumentException( "Capacity must be between 1 and " + ( 1 << 20 ) + ", found: " + capacity + "." );
+        }
+        int size = Math.max( PROBES, Integer.highestOneBit( capacity - 1 ) << 1 );
+        table = new Entry[ size ];
+        mask = size - 1;
+    }
+
+    /**
+     * Returns the key for a range of raw bytes. When the key is in the pool,
+     * the pooled string is returned. Otherwise a string is decoded like
+     * {@link CTagInput#readUtf()} does, and added to the pool.
+     * @param bytes The array holding the key
+     * @param off   The index of the first byte of the key
+     * @param len   The length of the key, in bytes
+     * @return The key
+     * @since 1.2
+     */
+    public String intern( byte[] bytes, int off, int len ) {
+        if( len > MAX_KEY_LENGTH ) {
+            return new String( bytes, off, len );
+        }
+        int hash = hash( bytes, off, len );
+        Entry[] table = this.table;
+        for( int i = 0; i < PROBES; i++ ) {
+            Entry entry = table[ hash + i & mask ];
+            if( entry == null ) break;
+            if( entry.hash == hash && entry.matches( bytes, off, len ) ) {
+                return entry.string;
+            }
+        }
+        String string = new String( bytes, off, len );
+        byte[] key = new byte[ len ];
+        System.arraycopy( bytes, off, key, 0, len );
+        // Fill an empty slot, or replace one picked by the hash
+        int slot = hash + ( hash >>> 16 ) % PROBES & mask;
+        for( int i = 0; i < PROBES; i++ ) {
+            if( table[ hash + i & mask ] == null ) {
+                slot = hash + i & mask;
+                break;
+            }
+        }
+        table[ slot ] = new Entry( hash, key, string );
+        return string;
+    }
+
+    /**
+     * Removes all keys from the pool
+     * @since 1.2
+     */
+    public void clear() {
+        for( int i = 0; i < table.length; i++ ) {
+            table[ i ] = null;
+        }
+    }
+
+    private static int hash( byte[] bytes, int off, int len ) {
+        int hash = len;
+        for( int i = 0; i < len; i++ ) {
+            hash = hash * 31 + bytes[ off + i ];
+        }
+        return hash ^ hash >>> 16;
+    }
+
+    // Entries are immutable, so the table can be read and written by many
+    // threads at once: a race only makes a lookup miss
+    private static final class Entry {
+        final int hash;
+        final byte[] bytes;
+        final String string;
+
+        Entry( int hash, byte[] bytes, String string ) {
+            this.hash = hash;
+            this.bytes = bytes;
+            this.string = string;
+        }
+
+        boolean matches( byte[] other, int off, int len ) {
+            if( bytes.length != len ) return false;
+            for( int i = 0; i < len; i++ ) {
+                if( bytes[ i ] != other[ off + i ] ) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,731 @@
+package ctag;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Used to write bytes to an output stream, a channel or a buffer. This is the
+ * counterpart of {@link CTagInput}: tags write their prefixes, lengths and
+ * payloads directly into it instead of building a {@link Binary} first.
+ * @since 1.2
+ */
+public class CTagOutput {
+    private static final int BUFFER_SIZE = 8192;
+    // Whether the platform charset, which strings are encoded with, maps ASCII
+    // characters to single bytes of the same value
+    private static final boolean ASCII_COMPATIBLE = asciiCompatible();
+
+    private OutputStream stream;
+    private WritableByteChannel channel;
+    private ByteBuffer buffer;
+    private final boolean growable;
+    private final CTagArena arena;
+    private final CTagBufferPool pool;
+    private boolean canonical;
+
+    /**
+     * Makes a {@link CTagOutput} that writes to an underlying output stream.
+     * Bytes are buffered until {@link #flush()} is called.
+     * @param stream The {@link OutputStream} to write to
+     * @since 1.2
+     */
+    public CTagOutput( OutputStream stream ) {
+        this( stream, null );
+    }
+
+    /**
+     * Makes a {@link CTagOutput} that writes to an underlying output stream,
+     * through a buffer borrowed from a pool. Bytes are buffered until
+     * {@link #flush()} is called. Use {@link #release()} or {@link #close()}
+     * to return the buffer.
+     * @param stream The {@link OutputStream} to write to
+     * @param pool   The {@link CTagBufferPool} to borrow from, or null to
+     *               allocate the buffer
+     * @since 1.2
+     */
+    public CTagOutput( OutputStream stream, CTagBufferPool pool ) {
+        this.stream = stream;
+        this.pool = pool;
+        buffer = pool == null ? ByteBuffer.allocate( BUFFER_SIZE ) : pool.acquire( BUFFER_SIZE );
+        growable = false;
+        arena = null;
+    }
+
+    /**
+     * Makes a {@link CTagOutput} that writes to an underlying channel. Bytes
+     * are buffered until {@link #flush()} is called.
+     * @param channel The {@link WritableByteChannel} to write to
+     * @since 1.2
+     */
+    public CTagOutput( WritableByteChannel channel ) {
+        this( channel, null );
+    }
+
+    /**
+     * Makes a {@link CTagOutput} that writes to an underlying channel, through
+     * a buffer borrowed from a pool. Bytes are buffered until {@link #flush()}
+     * is called. Use {@link #release()} or {@link #close()} to return the
+     * buffer.
+     * @param channel The {@link WritableByteChannel} to write to
+     * @param pool    The {@link CTagBufferPool} to borrow from, or null to
+     *                allocate the buffer
+     * @since 1.2
+     */
+    public CTagOutput( WritableByteChannel channel, CTagBufferPool pool ) {
+        this.channel = channel;
+        this.pool = pool;
+        buffer = pool == null ? ByteBuffer.allocate( BUFFER_SIZE ) : pool.acquire( BUFFER_SIZE );
+        growable = false;
+        arena = null;
+    }
+
+    /**
+     * Makes a {@link CTagOutput} that writes directly into a caller-supplied
+     * buffer, starting at its current position. The buffer is switched to
+     * big-endian byte order, and is not flipped afterwards.
+     * @param buffer The {@link ByteBuffer} to write into
+     * @exception BufferOverflowException When the written data does not fit in
+     *                                    the buffer.
+     * @since 1.2
+     */
+    public CTagOutput( ByteBuffer buffer ) {
+        this.buffer = buffer.order( ByteOrder.BIG_ENDIAN );
+        growable = false;
+        arena = null;
+        pool = null;
+    }
+
+    /**
+     * Makes a {@link CTagOutput} that writes into an internal buffer, which
+     * grows when needed. Use {@link #toBinary()} to get the written bytes.
+     * @since 1.2
+     */
+    public CTagOutput() {
+        buffer = ByteBuffer.allocate( 256 );
+        growable = true;
+        arena = null;
+        pool = null;
+    }
+
+    /**
+     * Makes a {@link CTagOutput} that writes into an internal buffer borrowed
+     * from a pool, which grows when needed. Use {@link #toBinary()} or
+     * {@link #toByteBuffer()} to get the written bytes, and {@link #release()}
+     * to return the buffer when they are no longer needed.
+     * @param pool The {@link CTagBufferPool} to borrow from
+     * @since 1.2
+     */
+    public CTagOutput( CTagBufferPool pool ) {
+        this.pool = pool;
+        buffer = pool.acquire( 256 );
+        growable = true;
+        arena = null;
+    }
+
+    /**
+     * Makes a {@link CTagOutput} that writes into an off-heap buffer of an
+     * arena, which grows when needed. Use {@link #toByteBuffer()} to get the
+     * written bytes. Every growth step allocates a new buffer from the arena,
+     * the old one is reclaimed by the garbage collector.
+     * @param arena The {@link CTagArena} to allocate from
+     * @since 1.2
+     */
+    public CTagOutput( CTagArena arena ) {
+        this.arena = arena;
+        buffer = arena.allocate( 256 );
+        growable = true;
+        pool = null;
+    }
+
+    private static boolean asciiCompatible() {
+        char[] chars = new char[ 128 ];
+        for( int i = 0; i < 128; i++ ) {
+            chars[ i ] = ( char ) i;
+        }
+        byte[] bytes = new String( chars ).getBytes();
+        if( bytes.length != 128 ) return false;
+        for( int i = 0; i < 128; i++ ) {
+            if( bytes[ i ] != i ) return false;
+        }
+        return true;
+    }
+
+    private void ensure( int bytes ) throws IOException {
+        if( buffer.remaining() >= bytes ) return;
+        if( growable ) {
+            int capacity = buffer.capacity();
+            int needed = Math.addExact( buffer.position(), bytes );
+            while( capacity < needed ) {
+                capacity = capacity << 1 > 0 ? capacity << 1 : Integer.MAX_VALUE;
+            }
+            ByteBuffer grown;
+            if( arena != null ) {
+                grown = arena.allocate( capacity );
+            } else if( pool != null ) {
+                grown = pool.acquire( capacity );
+            } else {
+                grown = ByteBuffer.allocate( capacity );
+            }
+            buffer.flip();
+            grown.put( buffer );
+            if( pool != null ) {
+                pool.release( buffer );
+            }
+            buffer = grown;
+        } else if( stream != null || channel != null ) {
+            drain();
+        } else {
+            throw new BufferOverflowException();
+        }
+    }
+
+    private void drain() throws IOException {
+        if( stream != null ) {
+            stream.write( buffer.array(), 0, buffer.position() );
+            buffer.clear();
+        } else if( channel != null ) {
+            buffer.flip();
+            while( buffer.hasRemaining() ) {
+                channel.write( buffer );
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Returns an {@link OutputStream} that writes into this output. Closing
+     * the stream closes this output.
+     * @since 1.2
+     */
+    public OutputStream asOutputStream() {
+        return new OutputStream() {
+            @Override
+            public void write( int b ) throws IOException {
+                writeByte( ( byte ) b );
+            }
+
+            @Override
+            public void write( byte[] bytes, int off, int len ) throws IOException {
+                CTagOutput.this.write( bytes, off, len );
+            }
+
+            @Override
+            public void flush() throws IOException {
+                CTagOutput.this.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                CTagOutput.this.close();
+            }
+        };
+    }
+
+    /**
+     * Writes one byte
+     * @param b The byte to write
+     * @exception IOException When the underlying stream or channel throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void writeByte( byte b ) throws IOException {
+        ensure( 1 );
+        buffer.put( b );
+    }
+
+    /**
+     * Writes a 16-bits integer, big-endian
+     * @param s The short to write
+     * @exception IOException When the underlying stream or channel throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void writeShort( short s ) throws IOException {
+        ensure( 2 );
+        buffer.putShort( s );
+    }
+
+    /**
+     * Writes a 32-bits integer, big-endian
+     * @param i The integer to write
+     * @exception IOException When the underlying stream or channel throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void writeInt( int i ) throws IOException {
+        ensure( 4 );
+        buffer.putInt( i );
+    }
+
+    /**
+     * Writes a 64-bits integer, big-endian
+     * @param l The long to write
+     * @exception IOException When the underlying stream or channel throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void writeLong( long l ) throws IOException {
+        ensure( 8 );
+        buffer.putLong( l );
+    }
+
+    /**
+     * Writes a range of an array of 16-bits integers, big-endian. The values are
+     * copied into the buffer in bulk, through a big-endian view.
+     * @param values The array
+     * @param off    The index of the first value to write
+     * @param len    The amount of values to write
+     * @exception IOException When the underlying stream or channel throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void writeShorts( short[] values, int off, int len ) throws IOException {
+        while( len > 0 ) {
+            ensure( growable ? Math.multiplyExact( len, 2 ) : 2 );
+            int amount = Math.min( len, buffer.remaining() / 2 );
+            buffer.asShortBuffer().put( values, off, amount );
+            buffer.position( buffer.position() + amount * 2 );
+            off += amount;
+            len -= amount;
+        }
+    }
+
+    /**
+     * Writes a range of an array of 32-bits integers, big-endian. The values are
+     * copied into the buffer in bulk, through a big-endian view.
+     * @param values The array
+     * @param off    The index of the first value to write
+     * @param len    The amount of values to write
+     * @exception IOException When the underlying stream or channel throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void writeInts( int[] values, int off, int len ) throws IOException {
+        while( len > 0 ) {
+            ensure( growable ? Math.multiplyExact( len, 4 ) : 4 );
+            int amount = Math.min( len, buffer.remaining() / 4 );
+            buffer.asIntBuffer().put( values, off, amount );
+            buffer.position( buffer.position() + amount * 4 );
+            off += amount;
+            len -= amount;
+        }
+    }
+
+    /**
+     * Writes a range of an array of 64-bits integers, big-endian. The values are
+     * copied into the buffer in bulk, through a big-endian view.
+     * @param values The array
+     * @param off    The index of the first value to write
+     * @param len    The amount of values to write
+     * @exception IOException When the underlying stream or channel throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void writeLongs( long[] values, int off, int len ) throws IOException {
+        while( len > 0 ) {
+            ensure( growable ? Math.multiplyExact( len, 8 ) : 8 );
+            int amount = Math.min( len, buffer.remaining() / 8 );
+            buffer.asLongBuffer().put( values, off, amount );
+            buffer.position( buffer.position() + amount * 8 );
+            off += amount;
+            len -= amount;
+        }
+    }
+
+    /**
+     * Writes a range of an array of single precision floating point numbers, big-endian. The values are
+     * copied into the buffer in bulk, through a big-endian view.
+     * @param values The array
+     * @param off    The index of the first value to write
+     * @param len    The amount of values to write
+     * @exception IOException When the underlying stream or channel throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void writeFloats( float[] values, int off, int len ) throws IOException {
+        while( len > 0 ) {
+            ensure( growable ? Math.multiplyExact( len, 4 ) : 4 );
+            int amount = Math.min( len, buffer.remaining() / 4 );
+            buffer.asFloatBuffer().put( values, off, amount );
+            buffer.position( buffer.position() + amount * 4 );
+            off += amount;
+            len -= amount;
+        }
+    }
+
+    /**
+     * Writes a range of an array of double precision floating point numbers, big-endian. The values are
+     * copied into the buffer in bulk, through a big-endian view.
+     * @param values The array
+     * @param off    The index of the first value to write
+     * @param len    The amount of values to write
+     * @exception IOException When the underlying stream or channel throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void writeDoubles( double[] values, int off, int len ) throws IOException {
+        while( len > 0 ) {
+            ensure( growable ? Math.multiplyExact( len, 8 ) : 8 );
+            int amount = Math.min( len, buffer.remaining() / 8 );
+            buffer.asDoubleBuffer().put( values, off, amount );
+            buffer.position( buffer.position() + amount * 8 );
+            off += amount;
+            len -= amount;
+        }
+    }
+
+    /**
+     * Writes booleans packed the way {@link ctag.tags.TagBooleanArray} stores
+     * them: 8 per byte, first boolean in the highest bit. The booleans are
+     * packed into 64-bit words, which are written at once.
+     * @param values The array
+     * @param off    The index of the first value to write
+     * @param len    The amount of booleans to write
+     * @exception IOException When the underlying stream or channel throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void writeBooleans( boolean[] values, int off, int len ) throws IOException {
+        while( len > 0 ) {
+            long word = 0;
+            int amount = Math.min( len, 64 );
+            for( int i = 0; i < amount; i++ ) {
+                if( values[ off + i ] ) {
+                    word |= Long.MIN_VALUE >>> i;
+                }
+            }
+            writeWord( word, amount );
+            off += amount;
+            len -= amount;
+        }
+    }
+
+    /**
+     * Writes the words of a {@link java.util.BitSet} as packed booleans: the
+     * boolean at index {@code n} is bit {@code n % 64} of word {@code n / 64}.
+     * Missing words are written as false.
+     * @param words The words, as returned by {@link java.util.BitSet#toLongArray()}
+     * @param len   The amount of booleans to write
+     * @exception IOException When the underlying stream or channel throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void writeBits( long[] words, int len ) throws IOException {
+        for( int i = 0; len > 0; i++ ) {
+            int amount = Math.min( len, 64 );
+            writeWord( i < words.length ? Long.reverse( words[ i ] ) : 0, amount );
+            len -= amount;
+        }
+    }
+
+    /**
+     * Writes the bytes of a word that hold a specific amount of booleans,
+     * highest byte first. Padding bits are cleared.
+     */
+    private void writeWord( long word, int bits ) throws IOException {
+        if( bits == 64 ) {
+            writeLong( word );
+            return;
+        }
+        word &= -1L << 64 - bits;
+        int bytes = bits + 7 >> 3;
+        ensure( bytes );
+        for( int i = 0; i < bytes; i++ ) {
+            buffer.put( ( byte ) ( word >>> 56 - i * 8 ) );
+        }
+    }
+
+    /**
+     * Writes an unsigned variable-length integer (LEB128): 7 bits per byte,
+     * lowest bits first, the highest bit of each byte is set when more bytes
+     * follow. Values below 128 take one byte, the largest take 5 bytes.
+     * @param i The integer to write, treated as unsigned
+     * @exception IOException When the underlying stream or channel throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void writeVarInt( int i ) throws IOException {
+        ensure( ( 31 - Integer.numberOfLeadingZeros( i | 1 ) ) / 7 + 1 );
+        while( ( i & ~0x7F ) != 0 ) {
+            buffer.put( ( byte ) ( i & 0x7F | 0x80 ) );
+            i >>>= 7;
+        }
+        buffer.put( ( byte ) i );
+    }
+
+    /**
+     * Writes an unsigned variable-length long (LEB128), see
+     * {@link #writeVarInt(int)}. The largest values take 10 bytes.
+     * @param l The long to write, treated as unsigned
+     * @exception IOException When the underlying stream or channel throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void writeVarLong( long l ) throws IOException {
+        ensure( ( 63 - Long.numberOfLeadingZeros( l | 1 ) ) / 7 + 1 );
+        while( ( l & ~0x7FL ) != 0 ) {
+            buffer.put( ( byte ) ( l & 0x7F | 0x80 ) );
+            l >>>= 7;
+        }
+        buffer.put( ( byte ) l );
+    }
+
+    /**
+     * Writes a range of an array of 32-bits integers as zigzag variable-length
+     * integers. Zigzag encoding maps small negative values to small unsigned
+     * values ({@code 0, -1, 1, -2} become {@code 0, 1, 2, 3}), so that they
+     * take few bytes too.
+     * @param values The array
+     * @param off    The index of the first value to write
+     * @param len    The amount of values to write
+     * @exception IOException When the underlying stream or channel throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void writeVarInts( int[] values, int off, int len ) throws IOException {
+        for( int i = off; i < off + len; i++ ) {
+            int value = values[ i ];
+            writeVarInt( value << 1 ^ value >> 31 );
+        }
+    }
+
+    /**
+     * Writes a range of an array of 64-bits integers as zigzag variable-length
+     * longs, see {@link #writeVarInts(int[], int, int)}.
+     * @param values The array
+     * @param off    The index of the first value to write
+     * @param len    The amount of values to write
+     * @exception IOException When the underlying stream or channel throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void writeVarLongs( long[] values, int off, int len ) throws IOException {
+        for( int i = off; i < off + len; i++ ) {
+            long value = values[ i ];
+            writeVarLong( value << 1 ^ value >> 63 );
+        }
+    }
+
+    /**
+     * Writes a range of a byte array. Ranges larger than the internal buffer
+     * are passed to the underlying stream or channel directly.
+     * @param bytes The byte array
+     * @param off   The index of the first byte to write
+     * @param len   The amount of bytes to write
+     * @exception IOException When the underlying stream or channel throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void write( byte[] bytes, int off, int len ) throws IOException {
+        if( !growable && ( stream != null || channel != null ) && len > buffer.capacity() ) {
+            drain();
+            if( stream != null ) {
+                stream.write( bytes, off, len );
+            } else {
+                ByteBuffer wrapped = ByteBuffer.wrap( bytes, off, len );
+                while( wrapped.hasRemaining() ) {
+                    channel.write( wrapped );
+                }
+            }
+            return;
+        }
+        ensure( len );
+        buffer.put( bytes, off, len );
+    }
+
+    /**
+     * Writes a byte array
+     * @param bytes The byte array to write
+     * @exception IOException When the underlying stream or channel throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void write( byte[] bytes ) throws IOException {
+        write( bytes, 0, bytes.length );
+    }
+
+    /**
+     * Writes the remaining bytes of a {@link ByteBuffer}. The position of the
+     * given buffer is not changed.
+     * @param bytes The {@link ByteBuffer} to write
+     * @exception IOException When the underlying stream or channel throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void write( ByteBuffer bytes ) throws IOException {
+        if( bytes.hasArray() ) {
+            write( bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining() );
+            return;
+        }
+        ByteBuffer source = bytes.duplicate();
+        boolean draining = !growable && ( stream != null || channel != null );
+        while( source.hasRemaining() ) {
+            ensure( draining ? Math.min( source.remaining(), buffer.capacity() ) : source.remaining() );
+            int amount = Math.min( source.remaining(), buffer.remaining() );
+            ByteBuffer part = source.duplicate();
+            part.limit( part.position() + amount );
+            buffer.put( part );
+            source.position( source.position() + amount );
+        }
+    }
+
+    /**
+     * Writes the bytes of a {@link Binary}
+     * @param binary The {@link Binary} to write
+     * @exception IOException When the underlying stream or channel throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void write( Binary binary ) throws IOException {
+        write( binary.getBytes() );
+    }
+
+    /**
+     * Writes a string the way {@link ctag.tags.TagString} encodes it: two
+     * bytes holding the length, followed by the characters. ASCII strings are
+     * written directly, without encoding them into a byte array first.
+     * @param string The string to write
+     * @exception IOException When the underlying stream or channel throws an
+     *                        {@link IOException}
+     * @exception IllegalArgumentException When the encoded string is longer
+     *                                     than 32767 bytes.
+     * @since 1.2
+     */
+    public void writeString( String string ) throws IOException {
+        int len = string.length();
+        if( ASCII_COMPATIBLE && len <= BUFFER_SIZE - 2 && isAscii( string, len ) ) {
+            ensure( len + 2 );
+            buffer.putShort( ( short ) len );
+            for( int i = 0; i < len; i++ ) {
+                buffer.put( ( byte ) string.charAt( i ) );
+            }
+            return;
+        }
+        byte[] bytes = string.getBytes();
+        if( bytes.length > Short.MAX_VALUE ) {
+            throw new IllegalArgumentException( "String of " + bytes.length + " bytes does not fit in two bytes." );
+        }
+        writeShort( ( short ) bytes.length );
+        write( bytes );
+    }
+
+    private static boolean isAscii( String string, int len ) {
+        for( int i = 0; i < len; i++ ) {
+            if( string.charAt( i ) >= 0x80 ) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Sets whether compounds are written in canonical form: with their entries
+     * sorted by key, instead of in insertion order. Equal compounds then
+     * always give equal bytes, no matter in which order their entries were
+     * put.
+     * @param canonical True to sort compound entries by key
+     * @since 1.2
+     */
+    public void setCanonical( boolean canonical ) {
+        this.canonical = canonical;
+    }
+
+    /**
+     * Checks whether compounds are written in canonical form
+     * @since 1.2
+     */
+    public boolean isCanonical() {
+        return canonical;
+    }
+
+    /**
+     * Passes all buffered bytes to the underlying stream or channel. Does
+     * nothing when writing into a buffer, or once this output is released.
+     * @exception IOException When the underlying stream or channel throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void flush() throws IOException {
+        if( buffer == null ) return;
+        drain();
+        if( stream != null ) {
+            stream.flush();
+        }
+    }
+
+    /**
+     * Returns the bytes written so far when this output writes into an internal
+     * buffer.
+     * @return A {@link Binary} containing the written bytes
+     * @exception IllegalStateException When this output writes to a stream,
+     *                                  channel or caller-supplied buffer.
+     * @since 1.2
+     */
+    public Binary toBinary() {
+        if( !growable ) {
+            throw new IllegalStateException( "Only an output with an internal buffer can make a binary." );
+        }
+        byte[] bytes = new byte[ buffer.position() ];
+        buffer.duplicate().flip().get( bytes );
+        return new Binary( bytes );
+    }
+
+    /**
+     * Returns the bytes written so far as a read-only view over the internal
+     * buffer, without copying. The view is off-heap when this output writes
+     * into an arena.
+     * @exception IllegalStateException When this output writes to a stream,
+     *                                  channel or caller-supplied buffer.
+     * @since 1.2
+     */
+    public ByteBuffer toByteBuffer() {
+        if( !growable ) {
+            throw new IllegalStateException( "Only an output with an internal buffer can make a buffer." );
+        }
+        return buffer.duplicate().flip().asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the pool the buffer of this output is borrowed from, or null
+     */
+    CTagBufferPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Returns the internal buffer to the pool it was borrowed from, without
+     * flushing. Does nothing when this output does not use a pool. This output,
+     * and buffers returned by {@link #toByteBuffer()}, must not be used
+     * afterwards, except for {@link #flush()} and {@link #close()}, which then
+     * write nothing.
+     * @since 1.2
+     */
+    public void release() {
+        if( pool != null && buffer != null ) {
+            pool.release( buffer );
+            buffer = null;
+        }
+    }
+
+    /**
+     * Flushes and closes the underlying stream or channel, and returns a
+     * pooled buffer to its pool
+     * @exception IOException When the underlying stream or channel throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void close() throws IOException {
+        try {
+            flush();
+            if( stream != null ) {
+                stream.close();
+            } else if( channel != null ) {
+                channel.close();
+            }
+        } finally {
+            release();
+        }
+    }
+}
@@ -0,0 +1,765 @@
+package ctag;
+
+import ctag.exception.CTagInvalidException;
+import ctag.exception.EndException;
+import ctag.exception.NegativeLengthException;
+import ctag.tags.ITag;
+import ctag.tags.TagRegistry;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Pull parser for CTag codes. Instead of decoding a complete tag tree, the
+ * reader walks through the code one token at a time: {@link #next()} moves to
+ * the next token, and the accessors return the value of the current token as
+ * a primitive, so no tags, {@link Compound}s or {@link Array}s are made.
+ * <br/><br/>
+ * <pre>
+ * CTagReader reader = new CTagReader( stream );
+ * while( reader.next() != CTagReader.Token.END_DOCUMENT ) {
+ *     if( reader.getToken() == CTagReader.Token.INTEGER ) {
+ *         System.out.println( reader.getKey() + " = " + reader.getInt() );
+ *     }
+ * }
+ * </pre>
+ * Strings and arrays are only read when their accessor is called, and skipped
+ * otherwise. Strings and arrays with the {@link TagRegistry#LARGE} prefix are
+ * returned as the token of their own type, with their full length, and
+ * varint arrays as {@link Token#INTEGER_ARRAY} and {@link Token#LONG_ARRAY}.
+ * A record table is read column by column: each column is an array token
+ * whose key is the field name. Tag types that are registered in the
+ * {@link TagRegistry} by other code are returned as {@link Token#TAG}.
+ * Compressed codes, made with {@link CTagEncoder#setCompression}, are
+ * decompressed while they are read.
+ * @since 1.2
+ */
+public class CTagReader {
+    /**
+     * The tokens returned by {@link CTagReader#next()}
+     * @since 1.2
+     */
+    public enum Token {
+        /** A compound begins. Its entries follow, until the matching {@link #END}. */
+        START_COMPOUND,
+        /** An array begins. Its elements follow, until the matching {@link #END}. */
+        START_ARRAY,
+        /**
+         * A record table begins. Its columns follow as keyed arrays with one
+         * element per row, until the matching {@link #END}.
+         */
+        START_RECORD_TABLE,
+        /** The compound or array that began last ends. */
+        END,
+        BYTE,
+        SHORT,
+        INTEGER,
+        LONG,
+        FLOAT,
+        DOUBLE,
+        BOOLEAN,
+        NULL,
+        STRING,
+        BYTE_ARRAY,
+        SHORT_ARRAY,
+        INTEGER_ARRAY,
+        LONG_ARRAY,
+        FLOAT_ARRAY,
+        DOUBLE_ARRAY,
+        BOOLEAN_ARRAY,
+        STRING_ARRAY,
+        /** A tag of a type registered in the {@link TagRegistry} by other code. */
+        TAG,
+        /** The main tag is read completely. */
+        END_DOCUMENT
+    }
+
+    // Marks a compound on the container stack, arrays store their remaining
+    // length, record tables store -2 minus their remaining amount of columns
+    private static final int COMPOUND = -1;
+    private static final int RECORD_TABLE = -2;
+
+    private final CTagInput source;
+    // The input tokens are read from: the source, or a decompressing input
+    private CTagInput input;
+    private CTagInflater inflater;
+    private int[] stack = new int[ 16 ];
+    private int depth;
+    private boolean started;
+
+    private Token token;
+    private byte prefix;
+    private String key;
+    private int length;
+    private long longValue;
+    private double doubleValue;
+    private String string;
+    // True while the payload of the current token is not read yet
+    private boolean pending;
+    // True when the current value has the LARGE prefix, its length is read
+    private boolean large;
+    // True when the elements of the current array are varints
+    private boolean varint;
+
+    /**
+     * Reads from a {@link CTagInput} stream
+     * @param input The {@link CTagInput}
+     * @since 1.2
+     */
+    public CTagReader( CTagInput input ) {
+        source = input;
+        this.input = input;
+    }
+
+    /**
+     * Reads from an {@link InputStream}
+     * @param stream The {@link InputStream}
+     * @since 1.2
+     */
+    public CTagReader( InputStream stream ) {
+        this( new CTagInput( stream ) );
+    }
+
+    /**
+     * Reads from a byte array
+     * @param bytes The byte array
+     * @since 1.2
+     */
+    public CTagReader( byte[] bytes ) {
+        this( new CTagInput( bytes ) );
+    }
+
+    /**
+     * Moves to the next token. Anything of the current token that is not read
+     * yet is skipped.
+     * @return The new current token
+     * @exception IOException          If the {@link CTagInput}'s underlying
+     *                                 stream throws an IOException.
+     * @exception CTagInvalidException If the CTag code is invalid.
+     * @since 1.2
+     */
+    public Token next() throws IOException, CTagInvalidException, EndException, NegativeLengthException {
+        if( pending ) {
+            skipPayload();
+        }
+        key = null;
+        string = null;
+        large = false;
+        varint = false;
+        if( !started ) {
+            started = true;
+            inflater = CTagInflater.open( input );
+            if( inflater != null ) {
+                input = inflater.getInput();
+            }
+            byte next = input.readByte();
+            if( next == TagRegistry.END ) {
+                throw new CTagInvalidException( "Found TagEnd as main type. TagEnd should not be used." );
+            }
+            return dispatch( next );
+        }
+        if( depth == 0 ) {
+            end();
+            return token = Token.END_DOCUMENT;
+        }
+        int top = stack[ depth - 1 ];
+        if( top == COMPOUND ) {
+            byte next = input.readByte();
+            if( next == TagRegistry.END ) {
+                depth--;
+                return token = Token.END;
+            }
+            key = input.readKey();
+            return dispatch( next );
+        }
+        if( top <= RECORD_TABLE ) {
+            if( top == RECORD_TABLE ) {
+                depth--;
+                return token = Token.END;
+            }
+            stack[ depth - 1 ] = top + 1;
+            key = input.readKey();
+            byte next = input.readByte();
+            if( next == TagRegistry.END ) {
+                throw new CTagInvalidException( "Found a TagEnd in TagRecordTable." );
+            }
+            return dispatch( next );
+        }
+        if( top == 0 ) {
+            depth--;
+            return token = Token.END;
+        }
+        stack[ depth - 1 ] = top - 1;
+        byte next = input.readByte();
+        if( next == TagRegistry.END ) {
+            throw new CTagInvalidException( "Found a TagEnd in TagArray." );
+        }
+        return dispatch( next );
+    }
+
+    // Frees the decompressor of a compressed code
+    private void end() {
+        if( inflater != null ) {
+            inflater.end();
+            inflater = null;
+            input = source;
+        }
+    }
+
+    private Token dispatch( byte prefix ) throws IOException, CTagInvalidException, EndException, NegativeLengthException {
+        this.prefix = prefix;
+        switch( prefix ) {
+            case TagRegistry.BYTE:
+                longValue = input.readByte();
+                return token = Token.BYTE;
+            case TagRegistry.SHORT:
+                longValue = input.readShort();
+                return token = Token.SHORT;
+            case TagRegistry.INTEGER:
+                longValue = input.readInt();
+                return token = Token.INTEGER;
+            case TagRegistry.LONG:
+                longValue = input.readLong();
+                return token = Token.LONG;
+            case TagRegistry.FLOAT:
+                doubleValue = input.readFloat();
+                return token = Token.FLOAT;
+            case TagRegistry.DOUBLE:
+                doubleValue = input.readDouble();
+                return token = Token.DOUBLE;
+            case TagRegistry.BOOLEAN:
+                longValue = input.readByte() & 1;
+                return token = Token.BOOLEAN;
+            case TagRegistry.NULL:
+                return token = Token.NULL;
+            case TagRegistry.STRING:
+                pending = true;
+                return token = Token.STRING;
+            case TagRegistry.COMPOUND:
+                push( COMPOUND );
+                return token = Token.START_COMPOUND;
+            case TagRegistry.ARRAY:
+                length = length();
+                push( length );
+                return token = Token.START_ARRAY;
+            case TagRegistry.BYTE_ARRAY:
+                return array( Token.BYTE_ARRAY );
+            case TagRegistry.SHORT_ARRAY:
+                return array( Token.SHORT_ARRAY );
+            case TagRegistry.INTEGER_ARRAY:
+                return array( Token.INTEGER_ARRAY );
+            case TagRegistry.LONG_ARRAY:
+                return array( Token.LONG_ARRAY );
+            case TagRegistry.FLOAT_ARRAY:
+                return array( Token.FLOAT_ARRAY );
+            case TagRegistry.DOUBLE_ARRAY:
+                return array( Token.DOUBLE_ARRAY );
+            case TagRegistry.BOOLEAN_ARRAY:
+                return array( Token.BOOLEAN_ARRAY );
+            case TagRegistry.STRING_ARRAY:
+                return array( Token.STRING_ARRAY );
+            case TagRegistry.RECORD_TABLE:
+                length = input.readVarInt();
+                int columns = input.readShort();
+                if( length < 0 || columns < 0 ) throw new NegativeLengthException( "Found record table with negative length" );
+                push( RECORD_TABLE - columns );
+                return token = Token.START_RECORD_TABLE;
+            case TagRegistry.VAR_INTEGER_ARRAY:
+                return varArray( Token.INTEGER_ARRAY );
+            case TagRegistry.VAR_LONG_ARRAY:
+                return varArray( Token.LONG_ARRAY );
+            case TagRegistry.LARGE:
+                return large();
+            default:
+                if( !TagRegistry.isRegistered( prefix ) ) {
+                    throw new CTagInvalidException( "Found invalid prefix: '" + new Binary( prefix ) + "'." );
+                }
+                pending = true;
+                return token = Token.TAG;
+        }
+    }
+
+    private Token array( Token type ) throws IOException, EndException, NegativeLengthException {
+        length = length();
+        pending = true;
+        return token = type;
+    }
+
+    private Token varArray( Token type ) throws IOException, CTagInvalidException, EndException, NegativeLengthException {
+        length = input.readVarInt();
+        if( length < 0 ) throw new NegativeLengthException( "Found array with negative length" );
+        varint = true;
+        pending = true;
+        return token = type;
+    }
+
+    private Token large() throws IOException, CTagInvalidException, EndException, NegativeLengthException {
+        byte inner = input.readByte();
+        int len = input.readVarInt();
+        if( len < 0 ) throw new NegativeLengthException( "Found large tag with negative length" );
+        large = true;
+        length = len;
+        pending = true;
+        switch( inner ) {
+            case TagRegistry.STRING:
+                return token = Token.STRING;
+            case TagRegistry.ARRAY:
+                pending = false;
+                push( len );
+                return token = Token.START_ARRAY;
+            case TagRegistry.BYTE_ARRAY:
+                return token = Token.BYTE_ARRAY;
+            case TagRegistry.SHORT_ARRAY:
+                return token = Token.SHORT_ARRAY;
+            case TagRegistry.INTEGER_ARRAY:
+                return token = Token.INTEGER_ARRAY;
+            case TagRegistry.LONG_ARRAY:
+                return token = Token.LONG_ARRAY;
+            case TagRegistry.FLOAT_ARRAY:
+                return token = Token.FLOAT_ARRAY;
+            case TagRegistry.DOUBLE_ARRAY:
+                return token = Token.DOUBLE_ARRAY;
+            case TagRegistry.BOOLEAN_ARRAY:
+                return token = Token.BOOLEAN_ARRAY;
+            case TagRegistry.STRING_ARRAY:
+                return token = Token.STRING_ARRAY;
+            default:
+                throw new CTagInvalidException( "Found large tag of type '" + new Binary( inner ) + "', which has no large form." );
+        }
+    }
+
+    private void push( int entry ) {
+        if( depth == stack.length ) {
+            int[] grown = new int[ depth * 2 ];
+            System.arraycopy( stack, 0, grown, 0, depth );
+            stack = grown;
+        }
+        stack[ depth++ ] = entry;
+    }
+
+    private int length() throws IOException, EndException, NegativeLengthException {
+        short len = input.readShort();
+        if( len < 0 ) throw new NegativeLengthException( "Found array with negative length" );
+        return len;
+    }
+
+    private void skipPayload() throws IOException, CTagInvalidException, EndException, NegativeLengthException {
+        pending = false;
+        switch( token ) {
+            case STRING:
+                input.skip( large ? length : length() );
+                break;
+            case BYTE_ARRAY:
+                input.skip( length );
+                break;
+            case SHORT_ARRAY:
+                skipElements( 2 );
+                break;
+            case INTEGER_ARRAY:
+            case LONG_ARRAY:
+                if( varint ) {
+                    for( int i = 0; i < length; i++ ) {
+                        input.readVarLong();
+                    }
+                } else {
+                    skipElements( token == Token.INTEGER_ARRAY ? 4 : 8 );
+                }
+                break;
+            case FLOAT_ARRAY:
+                skipElements( 4 );
+                break;
+            case DOUBLE_ARRAY:
+                skipElements( 8 );
+                break;
+            case BOOLEAN_ARRAY:
+                input.skip( ( int ) ( ( length + 7L ) / 8 ) );
+                break;
+            case STRING_ARRAY:
+                for( int i = 0; i < length; i++ ) {
+                    input.skip( length() );
+                }
+                break;
+            default:
+                TagRegistry.skip( prefix, input );
+                break;
+        }
+    }
+
+    // Skips the elements of an array in steps, so the amount of bytes does not
+    // overflow for large arrays
+    private void skipElements( int size ) throws IOException, EndException {
+        int step = Integer.MAX_VALUE / size;
+        for( int len = length; len > 0; len -= step ) {
+            input.skip( Math.min( len, step ) * size );
+        }
+    }
+
+    /**
+     * Skips the current value. When the current token is
+     * {@link Token#START_COMPOUND}, {@link Token#START_ARRAY} or
+     * {@link Token#START_RECORD_TABLE}, the complete compound, array or table
+     * is skipped and the current token becomes
+     * {@link Token#END}.
+     * @exception IOException          If the {@link CTagInput}'s underlying
+     *                                 stream throws an IOException.
+     * @exception CTagInvalidException If the CTag code is invalid.
+     * @since 1.2
+     */
+    public void skipValue() throws IOException, CTagInvalidException, EndException, NegativeLengthException {
+        if( pending ) {
+            skipPayload();
+        } else if( token == Token.START_COMPOUND ) {
+            TagRegistry.skip( TagRegistry.COMPOUND, input );
+            depth--;
+            token = Token.END;
+        } else if( token == Token.START_RECORD_TABLE ) {
+            int remaining = RECORD_TABLE - stack[ depth - 1 ];
+            for( int i = 0; i < remaining; i++ ) {
+                input.skip( length() );
+                byte column = input.readByte();
+                if( column == TagRegistry.END ) {
+                    throw new CTagInvalidException( "Found a TagEnd in TagRecordTable." );
+                }
+                TagRegistry.skip( column, input );
+            }
+            depth--;
+            token = Token.END;
+        } else if( token == Token.START_ARRAY ) {
+            int remaining = stack[ depth - 1 ];
+            for( int i = 0; i < remaining; i++ ) {
+                byte element = input.readByte();
+                if( element == TagRegistry.END ) {
+                    throw new CTagInvalidException( "Found a TagEnd in TagArray." );
+                }
+                TagRegistry.skip( element, input );
+            }
+            depth--;
+            token = Token.END;
+        }
+    }
+
+    /**
+     * Returns the current token, or null when {@link #next()} was not called
+     * yet.
+     * @since 1.2
+     */
+    public Token getToken() {
+        return token;
+    }
+
+    /**
+     * Returns the key of the current value when it is an entry of a compound,
+     * or null otherwise.
+     * @since 1.2
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the amount of compounds, arrays and record tables the current
+     * token is in. The tokens of the main tag have depth 0, a
+     * {@link Token#START_COMPOUND}, {@link Token#START_ARRAY} or
+     * {@link Token#START_RECORD_TABLE} counts for the entries it contains.
+     * @since 1.2
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the prefix byte of the current value
+     * @since 1.2
+     */
+    public byte getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Returns the length of the current array, for {@link Token#START_ARRAY}
+     * and the primitive and string array tokens. Arrays with the
+     * {@link TagRegistry#LARGE} prefix return their full length. For
+     * {@link Token#START_RECORD_TABLE} this is the amount of rows.
+     * @exception IllegalStateException When the current token is no array.
+     * @since 1.2
+     */
+    public int getLength() {
+        if( token == null ) {
+            throw new IllegalStateException( "Current token null is no array." );
+        }
+        switch( token ) {
+            case START_ARRAY:
+            case START_RECORD_TABLE:
+            case BYTE_ARRAY:
+            case SHORT_ARRAY:
+            case INTEGER_ARRAY:
+            case LONG_ARRAY:
+            case FLOAT_ARRAY:
+            case DOUBLE_ARRAY:
+            case BOOLEAN_ARRAY:
+            case STRING_ARRAY:
+                return length;
+            default:
+                throw new IllegalStateException( "Current token " + token + " is no array." );
+        }
+    }
+
+    private void expect( Token expected ) {
+        if( token != expected ) {
+            throw new IllegalStateException( "Current token is " + token + ", expected " + expected + "." );
+        }
+    }
+
+    private void expectPending( Token expected ) {
+        expect( expected );
+        if( !pending ) {
+            throw new IllegalStateException( "Value of " + expected + " is already read." );
+        }
+        pending = false;
+    }
+
+    /**
+     * Returns the value of a {@link Token#BYTE}
+     * @exception IllegalStateException When the current token is no byte.
+     * @since 1.2
+     */
+    public byte getByte() {
+        expect( Token.BYTE );
+        return ( byte ) longValue;
+    }
+
+    /**
+     * Returns the value of a {@link Token#SHORT} or {@link Token#BYTE}
+     * @exception IllegalStateException When the current token is no short or
+     *                                  byte.
+     * @since 1.2
+     */
+    public short getShort() {
+        if( token != Token.BYTE ) expect( Token.SHORT );
+        return ( short ) longValue;
+    }
+
+    /**
+     * Returns the value of an {@link Token#INTEGER}, {@link Token#SHORT} or
+     * {@link Token#BYTE}
+     * @exception IllegalStateException When the current token is no integer,
+     *                                  short or byte.
+     * @since 1.2
+     */
+    public int getInt() {
+        if( token != Token.BYTE && token != Token.SHORT ) expect( Token.INTEGER );
+        return ( int ) longValue;
+    }
+
+    /**
+     * Returns the value of a {@link Token#LONG}, {@link Token#INTEGER},
+     * {@link Token#SHORT} or {@link Token#BYTE}
+     * @exception IllegalStateException When the current token is no integer
+     *                                  type.
+     * @since 1.2
+     */
+    public long getLong() {
+        if( token != Token.BYTE && token != Token.SHORT && token != Token.INTEGER ) expect( Token.LONG );
+        return longValue;
+    }
+
+    /**
+     * Returns the value of a {@link Token#FLOAT}
+     * @exception IllegalStateException When the current token is no float.
+     * @since 1.2
+     */
+    public float getFloat() {
+        expect( Token.FLOAT );
+        return ( float ) doubleValue;
+    }
+
+    /**
+     * Returns the value of a {@link Token#DOUBLE} or {@link Token#FLOAT}
+     * @exception IllegalStateException When the current token is no double or
+     *                                  float.
+     * @since 1.2
+     */
+    public double getDouble() {
+        if( token != Token.FLOAT ) expect( Token.DOUBLE );
+        return doubleValue;
+    }
+
+    /**
+     * Returns the value of a {@link Token#BOOLEAN}
+     * @exception IllegalStateException When the current token is no boolean.
+     * @since 1.2
+     */
+    public boolean getBoolean() {
+        expect( Token.BOOLEAN );
+        return longValue != 0;
+    }
+
+    /**
+     * Reads the value of a {@link Token#STRING}. The string is read the first
+     * time this method is called, it is skipped when this method is not called.
+     * @exception IllegalStateException When the current token is no string.
+     * @since 1.2
+     */
+    public String getString() throws IOException, EndException, NegativeLengthException {
+        expect( Token.STRING );
+        if( string == null ) {
+            pending = false;
+            if( large ) {
+                byte[] bytes = new byte[ length ];
+                input.readFully( bytes, 0, length );
+                string = new String( bytes );
+            } else {
+                string = input.readUtf();
+            }
+        }
+        return string;
+    }
+
+    /**
+     * Reads the value of a {@link Token#BYTE_ARRAY}. Can be called once per
+     * token.
+     * @exception IllegalStateException When the current token is no byte array,
+     *                                  or the array is already read.
+     * @since 1.2
+     */
+    public byte[] getByteArray() throws IOException, EndException {
+        expectPending( Token.BYTE_ARRAY );
+        byte[] array = new byte[ length ];
+        input.readFully( array, 0, length );
+        return array;
+    }
+
+    /**
+     * Reads the value of a {@link Token#SHORT_ARRAY}. Can be called once per
+     * token.
+     * @exception IllegalStateException When the current token is no short
+     *                                  array, or the array is already read.
+     * @since 1.2
+     */
+    public short[] getShortArray() throws IOException, EndException {
+        expectPending( Token.SHORT_ARRAY );
+        short[] array = new short[ length ];
+        input.readShorts( array, 0, length );
+        return array;
+    }
+
+    /**
+     * Reads the value of an {@link Token#INTEGER_ARRAY}, which is also the
+     * token of varint integer arrays. Can be called once per token.
+     * @exception IllegalStateException When the current token is no integer
+     *                                  array, or the array is already read.
+     * @exception CTagInvalidException  If a varint is too long.
+     * @since 1.2
+     */
+    public int[] getIntArray() throws IOException, CTagInvalidException, EndException {
+        expectPending( Token.INTEGER_ARRAY );
+        int[] array = new int[ length ];
+        if( varint ) {
+            input.readVarInts( array, 0, length );
+        } else {
+            input.readInts( array, 0, length );
+        }
+        return array;
+    }
+
+    /**
+     * Reads the value of a {@link Token#LONG_ARRAY}, which is also the token of
+     * varint long arrays. Can be called once per token.
+     * @exception IllegalStateException When the current token is no long array,
+     *                                  or the array is already read.
+     * @exception CTagInvalidException  If a varint is too long.
+     * @since 1.2
+     */
+    public long[] getLongArray() throws IOException, CTagInvalidException, EndException {
+        expectPending( Token.LONG_ARRAY );
+        long[] array = new long[ length ];
+        if( varint ) {
+            input.readVarLongs( array, 0, length );
+        } else {
+            input.readLongs( array, 0, length );
+        }
+        return array;
+    }
+
+    /**
+     * Reads the value of a {@link Token#FLOAT_ARRAY}. Can be called once per
+     * token.
+     * @exception IllegalStateException When the current token is no float
+     *                                  array, or the array is already read.
+     * @since 1.2
+     */
+    public float[] getFloatArray() throws IOException, EndException {
+        expectPending( Token.FLOAT_ARRAY );
+        float[] array = new float[ length ];
+        input.readFloats( array, 0, length );
+        return array;
+    }
+
+    /**
+     * Reads the value of a {@link Token#DOUBLE_ARRAY}. Can be called once per
+     * token.
+     * @exception IllegalStateException When the current token is no double
+     *                                  array, or the array is already read.
+     * @since 1.2
+     */
+    public double[] getDoubleArray() throws IOException, EndException {
+        expectPending( Token.DOUBLE_ARRAY );
+        double[] array = new double[ length ];
+        input.readDoubles( array, 0, length );
+        return array;
+    }
+
+    /**
+     * Reads the value of a {@link Token#BOOLEAN_ARRAY}. Can be called once per
+     * token.
+     * @exception IllegalStateException When the current token is no boolean
+     *                                  array, or the array is already read.
+     * @since 1.2
+     */
+    public boolean[] getBooleanArray() throws IOException, EndException {
+        expectPending( Token.BOOLEAN_ARRAY );
+        boolean[] array = new boolean[ length ];
+        input.readBooleans( array, 0, length );
+        return array;
+    }
+
+    /**
+     * Reads the value of a {@link Token#STRING_ARRAY}. Can be called once per
+     * token.
+     * @exception IllegalStateException When the current token is no string
+     *                                  array, or the array is already read.
+     * @since 1.2
+     */
+    public String[] getStringArray() throws IOException, EndException, NegativeLengthException {
+        expectPending( Token.STRING_ARRAY );
+        String[] array = new String[ length ];
+        for( int i = 0; i < length; i++ ) {
+            array[ i ] = input.readUtf();
+        }
+        return array;
+    }
+
+    /**
+     * Parses the value of a {@link Token#TAG} with the parser registered for
+     * its prefix. Can be called once per token.
+     * @exception IllegalStateException When the current token is no
+     *                                  {@link Token#TAG}, or the tag is
+     *                                  already read.
+     * @since 1.2
+     */
+    public ITag getTag() throws IOException, CTagInvalidException, EndException, NegativeLengthException {
+        expectPending( Token.TAG );
+        return TagRegistry.parse( prefix, input );
+    }
+
+    /**
+     * Closes the stream
+     * @exception IOException When the underlying input stream throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void close() throws IOException {
+        end();
+        source.close();
+    }
+}
@@ -0,0 +1,477 @@
+package ctag;
+
+import ctag.tags.ITag;
+import ctag.tags.TagRegistry;
+import ctag.tags.TagString;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Streaming writer for CTag codes. This is the counterpart of
+ * {@link CTagReader}: instead of building a tag tree and encoding it, the
+ * values are written one by one, directly into a {@link CTagOutput}. No tags,
+ * {@link Compound}s or {@link Array}s are made.
+ * <br/><br/>
+ * <pre>
+ * CTagWriter writer = new CTagWriter( stream );
+ * writer.beginCompound();
+ * writer.key( "x" ).writeInt( 5 );
+ * writer.key( "tags" ).beginArray( 2 ).writeString( "a" ).writeString( "b" ).endArray();
+ * writer.endCompound();
+ * writer.flush();
+ * </pre>
+ * Every value inside a compound needs a key, values inside an array don't.
+ * The output equals the encoding of the same tree with {@link CTagEncoder}.
+ * @since 1.2
+ */
+public class CTagWriter {
+    // Marks a compound on the container stack, arrays store their remaining length
+    private static final int COMPOUND = -1;
+
+    private final CTagOutput output;
+    private int[] stack = new int[ 16 ];
+    private int depth;
+    private boolean started;
+    private String key;
+
+    /**
+     * Writes to a {@link CTagOutput}
+     * @param output The {@link CTagOutput}
+     * @since 1.2
+     */
+    public CTagWriter( CTagOutput output ) {
+        this.output = output;
+    }
+
+    /**
+     * Writes to an {@link OutputStream}. Bytes are buffered until
+     * {@link #flush()} is called.
+     * @param stream The {@link OutputStream}
+     * @since 1.2
+     */
+    public CTagWriter( OutputStream stream ) {
+        this( new CTagOutput( stream ) );
+    }
+
+    /**
+     * Writes to a {@link WritableByteChannel}. Bytes are buffered until
+     * {@link #flush()} is called.
+     * @param channel The {@link WritableByteChannel}
+     * @since 1.2
+     */
+    public CTagWriter( WritableByteChannel channel ) {
+        this( new CTagOutput( channel ) );
+    }
+
+    /**
+     * Writes directly into a {@link ByteBuffer}, starting at its current
+     * position.
+     * @param buffer The {@link ByteBuffer}
+     * @since 1.2
+     */
+    public CTagWriter( ByteBuffer buffer ) {
+        this( new CTagOutput( buffer ) );
+    }
+
+    /**
+     * Writes into an internal buffer. Use {@link #toBinary()} to get the
+     * written bytes.
+     * @since 1.2
+     */
+    public CTagWriter() {
+        this( new CTagOutput() );
+    }
+
+    /**
+     * Sets the key of the next value. Must be called before every value inside
+     * a compound.
+     * @param key The key
+     * @return This writer
+     * @exception IllegalStateException    When not writing a compound, or a
+     *                                     key is already set.
+     * @exception IllegalArgumentException When the key is longer than 32767
+     *                                     bytes.
+     * @since 1.2
+     */
+    public CTagWriter key( String key ) {
+        if( depth == 0 || stack[ depth - 1 ] != COMPOUND ) {
+            throw new IllegalStateException( "Keys can only be written in a compound." );
+        }
+        if( this.key != null ) {
+            throw new IllegalStateException( "Key '" + this.key + "' has no value." );
+        }
+        if( key == null ) {
+            throw new NullPointerException( "Key is null. Not allowed." );
+        }
+        // Checked before the value is written, so an oversize key leaves no
+        // prefix behind in the output
+        if( key.length() > Short.MAX_VALUE / 4 ) {
+            int bytes = key.getBytes().length;
+            if( bytes > Short.MAX_VALUE ) {
+                throw new IllegalArgumentException( "String of " + bytes + " bytes does not fit in two bytes." );
+            }
+        }
+        this.key = key;
+        return this;
+    }
+
+    /**
+     * Checks whether a value may be written here, and writes its prefix and
+     * key.
+     */
+    private void value( byte prefix ) throws IOException {
+        if( depth == 0 ) {
+            if( started ) {
+                throw new IllegalStateException( "The main tag is already written." );
+            }
+            started = true;
+        } else if( stack[ depth - 1 ] == COMPOUND ) {
+            if( key == null ) {
+                throw new IllegalStateException( "Values in a compound need a key." );
+            }
+        } else if( stack[ depth - 1 ] == 0 ) {
+            throw new IllegalStateException( "Array has more elements than its length." );
+        } else {
+            stack[ depth - 1 ]--;
+        }
+        output.writeByte( prefix );
+        if( key != null ) {
+            output.writeString( key );
+            key = null;
+        }
+    }
+
+    private void push( int entry ) {
+        if( depth == stack.length ) {
+            int[] grown = new int[ depth * 2 ];
+            System.arraycopy( stack, 0, grown, 0, depth );
+            stack = grown;
+        }
+        stack[ depth++ ] = entry;
+    }
+
+    /**
+     * Checks whether a value may be written here, and writes its prefix, key
+     * and length. Values longer than two bytes can hold are written as a
+     * {@link TagRegistry#LARGE} tag.
+     */
+    private void value( byte prefix, int length ) throws IOException {
+        value( TagRegistry.prefix( prefix, length ) );
+        TagRegistry.writeLength( output, prefix, length );
+    }
+
+    /**
+     * Begins a compound. Write its entries with {@link #key(String)} and a
+     * value, and end it with {@link #endCompound()}.
+     * @return This writer
+     * @exception IOException When the underlying output throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public CTagWriter beginCompound() throws IOException {
+        value( TagRegistry.COMPOUND );
+        push( COMPOUND );
+        return this;
+    }
+
+    /**
+     * Ends the compound that began last
+     * @return This writer
+     * @exception IOException When the underlying output throws an
+     *                        {@link IOException}
+     * @exception IllegalStateException When not writing a compound, or the
+     *                                  last key has no value.
+     * @since 1.2
+     */
+    public CTagWriter endCompound() throws IOException {
+        if( depth == 0 || stack[ depth - 1 ] != COMPOUND ) {
+            throw new IllegalStateException( "Not writing a compound." );
+        }
+        if( key != null ) {
+            throw new IllegalStateException( "Key '" + key + "' has no value." );
+        }
+        output.writeByte( TagRegistry.END );
+        depth--;
+        return this;
+    }
+
+    /**
+     * Begins an array. Exactly {@code length} values must be written before
+     * calling {@link #endArray()}.
+     * @param length The amount of elements
+     * @return This writer
+     * @exception IOException When the underlying output throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public CTagWriter beginArray( int length ) throws IOException {
+        if( length < 0 ) {
+            throw new IllegalArgumentException( "Negative array length: " + length + "." );
+        }
+        value( TagRegistry.ARRAY, length );
+        push( length );
+        return this;
+    }
+
+    /**
+     * Ends the array that began last
+     * @return This writer
+     * @exception IllegalStateException When not writing an array, or less
+     *                                  elements were written than its length.
+     * @since 1.2
+     */
+    public CTagWriter endArray() {
+        if( depth == 0 || stack[ depth - 1 ] == COMPOUND ) {
+            throw new IllegalStateException( "Not writing an array." );
+        }
+        if( stack[ depth - 1 ] != 0 ) {
+            throw new IllegalStateException( "Array misses " + stack[ depth - 1 ] + " elements." );
+        }
+        depth--;
+        return this;
+    }
+
+    /**
+     * Writes a byte
+     * @since 1.2
+     */
+    public CTagWriter writeByte( byte value ) throws IOException {
+        value( TagRegistry.BYTE );
+        output.writeByte( value );
+        return this;
+    }
+
+    /**
+     * Writes a short
+     * @since 1.2
+     */
+    public CTagWriter writeShort( short value ) throws IOException {
+        value( TagRegistry.SHORT );
+        output.writeShort( value );
+        return this;
+    }
+
+    /**
+     * Writes an integer
+     * @since 1.2
+     */
+    public CTagWriter writeInt( int value ) throws IOException {
+        value( TagRegistry.INTEGER );
+        output.writeInt( value );
+        return this;
+    }
+
+    /**
+     * Writes a long
+     * @since 1.2
+     */
+    public CTagWriter writeLong( long value ) throws IOException {
+        value( TagRegistry.LONG );
+        output.writeLong( value );
+        return this;
+    }
+
+    /**
+     * Writes a float
+     * @since 1.2
+     */
+    public CTagWriter writeFloat( float value ) throws IOException {
+        value( TagRegistry.FLOAT );
+        output.writeInt( Float.floatToRawIntBits( value ) );
+        return this;
+    }
+
+    /**
+     * Writes a double
+     * @since 1.2
+     */
+    public CTagWriter writeDouble( double value ) throws IOException {
+        value( TagRegistry.DOUBLE );
+        output.writeLong( Double.doubleToRawLongBits( value ) );
+        return this;
+    }
+
+    /**
+     * Writes a boolean
+     * @since 1.2
+     */
+    public CTagWriter writeBoolean( boolean value ) throws IOException {
+        value( TagRegistry.BOOLEAN );
+        output.writeByte( ( byte ) ( value ? 1 : 0 ) );
+        return this;
+    }
+
+    /**
+     * Writes a null value
+     * @since 1.2
+     */
+    public CTagWriter writeNull() throws IOException {
+        value( TagRegistry.NULL );
+        return this;
+    }
+
+    /**
+     * Writes a string
+     * @since 1.2
+     */
+    public CTagWriter writeString( String value ) throws IOException {
+        if( value.length() > Short.MAX_VALUE / 4 ) {
+            // Might not fit in a two-byte length
+            return writeTag( new TagString( value ) );
+        }
+        value( TagRegistry.STRING );
+        output.writeString( value );
+        return this;
+    }
+
+    /**
+     * Writes a byte array
+     * @since 1.2
+     */
+    public CTagWriter writeByteArray( byte[] value ) throws IOException {
+        value( TagRegistry.BYTE_ARRAY, value.length );
+        output.write( value );
+        return this;
+    }
+
+    /**
+     * Writes a short array
+     * @since 1.2
+     */
+    public CTagWriter writeShortArray( short[] value ) throws IOException {
+        value( TagRegistry.SHORT_ARRAY, value.length );
+        output.writeShorts( value, 0, value.length );
+        return this;
+    }
+
+    /**
+     * Writes an integer array
+     * @since 1.2
+     */
+    public CTagWriter writeIntArray( int[] value ) throws IOException {
+        value( TagRegistry.INTEGER_ARRAY, value.length );
+        output.writeInts( value, 0, value.length );
+        return this;
+    }
+
+    /**
+     * Writes a long array
+     * @since 1.2
+     */
+    public CTagWriter writeLongArray( long[] value ) throws IOException {
+        value( TagRegistry.LONG_ARRAY, value.length );
+        output.writeLongs( value, 0, value.length );
+        return this;
+    }
+
+    /**
+     * Writes a float array
+     * @since 1.2
+     */
+    public CTagWriter writeFloatArray( float[] value ) throws IOException {
+        value( TagRegistry.FLOAT_ARRAY, value.length );
+        output.writeFloats( value, 0, value.length );
+        return this;
+    }
+
+    /**
+     * Writes a double array
+     * @since 1.2
+     */
+    public CTagWriter writeDoubleArray( double[] value ) throws IOException {
+        value( TagRegistry.DOUBLE_ARRAY, value.length );
+        output.writeDoubles( value, 0, value.length );
+        return this;
+    }
+
+    /**
+     * Writes a boolean array, packed into 8 booleans per byte
+     * @since 1.2
+     */
+    public CTagWriter writeBooleanArray( boolean[] value ) throws IOException {
+        value( TagRegistry.BOOLEAN_ARRAY, value.length );
+        output.writeBooleans( value, 0, value.length );
+        return this;
+    }
+
+    /**
+     * Writes a string array
+     * @since 1.2
+     */
+    public CTagWriter writeStringArray( String[] value ) throws IOException {
+        value( TagRegistry.STRING_ARRAY, value.length );
+        for( String s : value ) {
+            output.writeString( s );
+        }
+        return this;
+    }
+
+    /**
+     * Writes an integer array with variable-length values, see
+     * {@link ctag.tags.TagVarIntArray}
+     * @since 1.2
+     */
+    public CTagWriter writeVarIntArray( int[] value ) throws IOException {
+        value( TagRegistry.VAR_INTEGER_ARRAY );
+        output.writeVarInt( value.length );
+        output.writeVarInts( value, 0, value.length );
+        return this;
+    }
+
+    /**
+     * Writes a long array with variable-length values, see
+     * {@link ctag.tags.TagVarLongArray}
+     * @since 1.2
+     */
+    public CTagWriter writeVarLongArray( long[] value ) throws IOException {
+        value( TagRegistry.VAR_LONG_ARRAY );
+        output.writeVarInt( value.length );
+        output.writeVarLongs( value, 0, value.length );
+        return this;
+    }
+
+    /**
+     * Writes a tag, for example of a custom tag type or a part of a tree that
+     * is already built
+     * @since 1.2
+     */
+    public CTagWriter writeTag( ITag tag ) throws IOException {
+        value( tag.getPrefix() );
+        tag.write( output );
+        return this;
+    }
+
+    /**
+     * Passes all buffered bytes to the underlying stream or channel
+     * @exception IOException When the underlying stream or channel throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void flush() throws IOException {
+        output.flush();
+    }
+
+    /**
+     * Returns the bytes written so far, when this writer writes into an
+     * internal buffer
+     * @exception IllegalStateException When this writer writes to a stream,
+     *                                  channel or caller-supplied buffer.
+     * @since 1.2
+     */
+    public Binary toBinary() {
+        return output.toBinary();
+    }
+
+    /**
+     * Flushes and closes the underlying stream or channel
+     * @exception IOException When the underlying stream or channel throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void close() throws IOException {
+        output.close();
+    }
+}
@@ -4,25 +4,27 @@ import ctag.exception.NoSuchKeyException;
 import ctag.exception.WrongTagException;
 import ctag.tags.*;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * Represents a {@link String}-{@link ITag} map. Used by the {@link TagCompound}
- * as value.
+ * as value. Entries keep the order in which they were put, so encoding the
+ * same compound always gives the same bytes.
  * @since 1.0
  */
 public class Compound {
-    private HashMap<String, ITag> values;
+    private LinkedHashMap<String, ITag> values;
 
     /**
      * Makes an empty compound
      * @since 1.0
      */
     public Compound() {
-        values = new HashMap<>();
+        values = new LinkedHashMap<>();
     }
 
     /**
@@ -31,7 +33,7 @@ public class Compound {
      * @since 1.0
      */
     public Compound( Map<String, ? extends ITag> values ) {
-        this.values = new HashMap<>( values );
+        this.values = new LinkedHashMap<>( values );
     }
 
     private void checkKey( String key ) throws NoSuchKeyException {
@@ -43,6 +45,18 @@ public class Compound {
         }
     }
 
+    /**
+     * Returns the tag for a key, and decodes it first if it was decoded lazily
+     */
+    private ITag lookup( String key ) {
+        ITag tag = values.get( key );
+        if( tag instanceof TagLazy ) {
+            tag = ( ( TagLazy ) tag ).getTag();
+            values.put( key, tag );
+        }
+        return tag;
+    }
+
     /**
      * Puts a specific tag into the compound
      * @param key   The key for this tag
@@ -224,6 +238,18 @@ public class Compound {
         return put( key, new TagBooleanArray( value ) );
     }
 
+    /**
+     * Puts a boolean array tag into the compound, that keeps the booleans
+     * packed in a {@link BitSet}
+     * @param key    The key for this tag
+     * @param value  The booleans
+     * @param length The amount of booleans
+     * @since 1.2
+     */
+    public Compound put( String key, BitSet value, int length ) {
+        return put( key, new TagBitSet( value, length ) );
+    }
+
     /**
      * Puts a string array tag into the compound
      * @param key   The key for this tag
@@ -243,7 +269,7 @@ public class Compound {
      */
     public ITag get( String key ) throws NoSuchKeyException {
         checkKey( key );
-        return values.get( key );
+        return lookup( key );
     }
 
     /**
@@ -257,7 +283,7 @@ public class Compound {
     public TagInteger getTagInteger( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( TagInteger ) values.get( key );
+            return ( TagInteger ) lookup( key );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for TagInteger, but did not found that." );
         }
@@ -274,7 +300,7 @@ public class Compound {
     public TagLong getTagLong( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( TagLong ) values.get( key );
+            return ( TagLong ) lookup( key );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for TagLong, but did not found that." );
         }
@@ -291,7 +317,7 @@ public class Compound {
     public TagShort getTagShort( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( TagShort ) values.get( key );
+            return ( TagShort ) lookup( key );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for TagShort, but did not found that." );
         }
@@ -308,7 +334,7 @@ public class Compound {
     public TagByte getTagByte( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( TagByte ) values.get( key );
+            return ( TagByte ) lookup( key );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for TagByte, but did not found that." );
         }
@@ -325,7 +351,7 @@ public class Compound {
     public TagDouble getTagDouble( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( TagDouble ) values.get( key );
+            return ( TagDouble ) lookup( key );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for TagDouble, but did not found that." );
         }
@@ -342,7 +368,7 @@ public class Compound {
     public TagFloat getTagFloat( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( TagFloat ) values.get( key );
+            return ( TagFloat ) lookup( key );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for TagFloat, but did not found that." );
         }
@@ -359,7 +385,7 @@ public class Compound {
     public TagBoolean getTagBoolean( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( TagBoolean ) values.get( key );
+            return ( TagBoolean ) lookup( key );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for TagBoolean, but did not found that." );
         }
@@ -376,7 +402,7 @@ public class Compound {
     public TagNull getTagNull( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( TagNull ) values.get( key );
+            return ( TagNull ) lookup( key );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for TagNull, but did not found that." );
         }
@@ -393,7 +419,7 @@ public class Compound {
     public TagString getTagString( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( TagString ) values.get( key );
+            return ( TagString ) lookup( key );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for TagString, but did not found that." );
         }
@@ -410,7 +436,7 @@ public class Compound {
     public TagArray getTagArray( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( TagArray ) values.get( key );
+            return ( TagArray ) lookup( key );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for TagArray, but did not found that." );
         }
@@ -427,14 +453,16 @@ public class Compound {
     public TagCompound getTagCompound( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( TagCompound ) values.get( key );
+            return ( TagCompound ) lookup( key );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for TagCompound, but did not found that." );
         }
     }
 
     /**
-     * Returns a byte array tag from the compound
+     * Returns a byte array tag from the compound.
+     * Off-heap views are converted into a new tag, which is
+     * not stored in the compound.
      * @param key The key of the tag
      * @return The byte array tag
      * @exception NoSuchKeyException When the key is not contained by the byte array
@@ -444,14 +472,16 @@ public class Compound {
     public TagByteArray getTagByteArray( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( TagByteArray ) values.get( key );
+            return ArrayTags.tagByteArray( lookup( key ) );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for TagByteArray, but did not found that." );
         }
     }
 
     /**
-     * Returns a short array tag from the compound
+     * Returns a short array tag from the compound.
+     * Off-heap views are converted into a new tag, which is
+     * not stored in the compound.
      * @param key The key of the tag
      * @return The short array tag
      * @exception NoSuchKeyException When the key is not contained by the short array
@@ -461,14 +491,16 @@ public class Compound {
     public TagShortArray getTagShortArray( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( TagShortArray ) values.get( key );
+            return ArrayTags.tagShortArray( lookup( key ) );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for TagShortArray, but did not found that." );
         }
     }
 
     /**
-     * Returns an integer array tag from the compound
+     * Returns an integer array tag from the compound.
+     * Varint arrays and off-heap views are converted into a new tag, which is
+     * not stored in the compound.
      * @param key The key of the tag
      * @return The integer array tag
      * @exception NoSuchKeyException When the key is not contained by the integer array
@@ -478,14 +510,16 @@ public class Compound {
     public TagIntegerArray getTagIntegerArray( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( TagIntegerArray ) values.get( key );
+            return ArrayTags.tagIntegerArray( lookup( key ) );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for TagIntegerArray, but did not found that." );
         }
     }
 
     /**
-     * Returns a long array tag from the compound
+     * Returns a long array tag from the compound.
+     * Varint arrays and off-heap views are converted into a new tag, which is
+     * not stored in the compound.
      * @param key The key of the tag
      * @return The long array tag
      * @exception NoSuchKeyException When the key is not contained by the long array
@@ -495,14 +529,16 @@ public class Compound {
     public TagLongArray getTagLongArray( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( TagLongArray ) values.get( key );
+            return ArrayTags.tagLongArray( lookup( key ) );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for TagLongArray, but did not found that." );
         }
     }
 
     /**
-     * Returns a float array tag from the compound
+     * Returns a float array tag from the compound.
+     * Off-heap views are converted into a new tag, which is
+     * not stored in the compound.
      * @param key The key of the tag
      * @return The float array tag
      * @exception NoSuchKeyException When the key is not contained by the float array
@@ -512,14 +548,16 @@ public class Compound {
     public TagFloatArray getTagFloatArray( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( TagFloatArray ) values.get( key );
+            return ArrayTags.tagFloatArray( lookup( key ) );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for TagFloatArray, but did not found that." );
         }
     }
 
     /**
-     * Returns a double array tag from the compound
+     * Returns a double array tag from the compound.
+     * Off-heap views are converted into a new tag, which is
+     * not stored in the compound.
      * @param key The key of the tag
      * @return The double array tag
      * @exception NoSuchKeyException When the key is not contained by the double array
@@ -529,14 +567,16 @@ public class Compound {
     public TagDoubleArray getTagDoubleArray( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( TagDoubleArray ) values.get( key );
+            return ArrayTags.tagDoubleArray( lookup( key ) );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for TagDoubleArray, but did not found that." );
         }
     }
 
     /**
-     * Returns a boolean array tag from the compound
+     * Returns a boolean array tag from the compound.
+     * Bit sets are converted into a new tag, which is
+     * not stored in the compound.
      * @param key The key of the tag
      * @return The boolean array tag
      * @exception NoSuchKeyException When the key is not contained by the boolean array
@@ -546,7 +586,7 @@ public class Compound {
     public TagBooleanArray getTagBooleanArray( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( TagBooleanArray ) values.get( key );
+            return ArrayTags.tagBooleanArray( lookup( key ) );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for TagBooleanArray, but did not found that." );
         }
@@ -563,7 +603,7 @@ public class Compound {
     public TagStringArray getTagStringArray( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( TagStringArray ) values.get( key );
+            return ( TagStringArray ) lookup( key );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for TagStringArray, but did not found that." );
         }
@@ -580,7 +620,7 @@ public class Compound {
     public int getInteger( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( ( TagInteger ) values.get( key ) ).getValue();
+            return ( ( TagInteger ) lookup( key ) ).getValue();
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for Integer, but did not found tag for that." );
         }
@@ -597,7 +637,7 @@ public class Compound {
     public long getLong( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( ( TagLong ) values.get( key ) ).getValue();
+            return ( ( TagLong ) lookup( key ) ).getValue();
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for Long, but did not found tag for that." );
         }
@@ -614,7 +654,7 @@ public class Compound {
     public short getShort( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( ( TagShort ) values.get( key ) ).getValue();
+            return ( ( TagShort ) lookup( key ) ).getValue();
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for Short, but did not found tag for that." );
         }
@@ -631,7 +671,7 @@ public class Compound {
     public byte getByte( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( ( TagByte ) values.get( key ) ).getValue();
+            return ( ( TagByte ) lookup( key ) ).getValue();
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for Byte, but did not found tag for that." );
         }
@@ -648,7 +688,7 @@ public class Compound {
     public double getDouble( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( ( TagDouble ) values.get( key ) ).getValue();
+            return ( ( TagDouble ) lookup( key ) ).getValue();
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for Double, but did not found tag for that." );
         }
@@ -665,7 +705,7 @@ public class Compound {
     public float getFloat( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( ( TagFloat ) values.get( key ) ).getValue();
+            return ( ( TagFloat ) lookup( key ) ).getValue();
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for Float, but did not found tag for that." );
         }
@@ -682,7 +722,7 @@ public class Compound {
     public boolean getBoolean( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( ( TagBoolean ) values.get( key ) ).getValue();
+            return ( ( TagBoolean ) lookup( key ) ).getValue();
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for Boolean, but did not found tag for that." );
         }
@@ -699,7 +739,7 @@ public class Compound {
     public String getString( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( ( TagString ) values.get( key ) ).getValue();
+            return ( ( TagString ) lookup( key ) ).getValue();
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for String, but did not found tag for that." );
         }
@@ -716,7 +756,7 @@ public class Compound {
     public Array getArray( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( ( TagArray ) values.get( key ) ).getValue();
+            return ( ( TagArray ) lookup( key ) ).getValue();
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for Array, but did not found tag for that." );
         }
@@ -733,7 +773,7 @@ public class Compound {
     public Compound getCompound( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( ( TagCompound ) values.get( key ) ).getValue();
+            return ( ( TagCompound ) lookup( key ) ).getValue();
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for Compound, but did not found tag for that." );
         }
@@ -750,7 +790,7 @@ public class Compound {
     public byte[] getByteArray( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( ( TagByteArray ) values.get( key ) ).getValue();
+            return ArrayTags.bytes( lookup( key ) );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for ByteArray, but did not found tag for that." );
         }
@@ -767,7 +807,7 @@ public class Compound {
     public short[] getShortArray( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( ( TagShortArray ) values.get( key ) ).getValue();
+            return ArrayTags.shorts( lookup( key ) );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for ShortArray, but did not found tag for that." );
         }
@@ -784,7 +824,7 @@ public class Compound {
     public int[] getIntegerArray( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( ( TagIntegerArray ) values.get( key ) ).getValue();
+            return ArrayTags.ints( lookup( key ) );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for IntegerArray, but did not found tag for that." );
         }
@@ -801,7 +841,7 @@ public class Compound {
     public long[] getLongArray( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( ( TagLongArray ) values.get( key ) ).getValue();
+            return ArrayTags.longs( lookup( key ) );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for LongArray, but did not found tag for that." );
         }
@@ -818,7 +858,7 @@ public class Compound {
     public float[] getFloatArray( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( ( TagFloatArray ) values.get( key ) ).getValue();
+            return ArrayTags.floats( lookup( key ) );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for FloatArray, but did not found tag for that." );
         }
@@ -835,7 +875,7 @@ public class Compound {
     public double[] getDoubleArray( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( ( TagDoubleArray ) values.get( key ) ).getValue();
+            return ArrayTags.doubles( lookup( key ) );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for DoubleArray, but did not found tag for that." );
         }
@@ -852,12 +892,30 @@ public class Compound {
     public boolean[] getBooleanArray( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( ( TagBooleanArray ) values.get( key ) ).getValue();
+            return ArrayTags.booleans( lookup( key ) );
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for BooleanArray, but did not found tag for that." );
         }
     }
 
+    /**
+     * Returns the value of a boolean array tag from the compound as a
+     * {@link BitSet}. The length of the array is not included.
+     * @param key The key of the tag
+     * @return The booleans
+     * @exception NoSuchKeyException When the key is not contained by the compound
+     * @exception WrongTagException  When the tag is not a boolean array tag
+     * @since 1.2
+     */
+    public BitSet getBitSet( String key ) throws WrongTagException, NoSuchKeyException {
+        checkKey( key );
+        try {
+            return ArrayTags.bits( lookup( key ) );
+        } catch( ClassCastException exception ) {
+            throw new WrongTagException( "Asked for BitSet, but did not found tag for that." );
+        }
+    }
+
     /**
      * Returns the value of a string array tag from the compound
      * @param key The key of the tag
@@ -869,7 +927,7 @@ public class Compound {
     public String[] getStringArray( String key ) throws WrongTagException, NoSuchKeyException {
         checkKey( key );
         try {
-            return ( ( TagStringArray ) values.get( key ) ).getValue();
+            return ( ( TagStringArray ) lookup( key ) ).getValue();
         } catch( ClassCastException exception ) {
             throw new WrongTagException( "Asked for StringArray, but did not found tag for that." );
         }
@@ -891,7 +949,7 @@ public class Compound {
      */
     public ITag opt( String key, ITag def ) {
         if( ! checkKeyDef( key ) ) return def;
-        return values.get( key );
+        return lookup( key );
     }
 
     /**
@@ -905,7 +963,7 @@ public class Compound {
     public TagInteger optTagInteger( String key, TagInteger def ) {
         if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( TagInteger ) values.get( key );
+            return ( TagInteger ) lookup( key );
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -921,7 +979,7 @@ public class Compound {
     public TagLong optTagLong( String key, TagLong def ) {
         if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( TagLong ) values.get( key );
+            return ( TagLong ) lookup( key );
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -937,7 +995,7 @@ public class Compound {
     public TagShort optTagShort( String key, TagShort def ) {
         if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( TagShort ) values.get( key );
+            return ( TagShort ) lookup( key );
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -953,7 +1011,7 @@ public class Compound {
     public TagByte optTagByte( String key, TagByte def ) {
         if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( TagByte ) values.get( key );
+            return ( TagByte ) lookup( key );
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -969,7 +1027,7 @@ public class Compound {
     public TagDouble optTagDouble( String key, TagDouble def ) {
         if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( TagDouble ) values.get( key );
+            return ( TagDouble ) lookup( key );
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -985,7 +1043,7 @@ public class Compound {
     public TagFloat optTagFloat( String key, TagFloat def ) {
         if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( TagFloat ) values.get( key );
+            return ( TagFloat ) lookup( key );
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -1001,7 +1059,7 @@ public class Compound {
     public TagBoolean optTagBoolean( String key, TagBoolean def ) {
         if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( TagBoolean ) values.get( key );
+            return ( TagBoolean ) lookup( key );
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -1017,7 +1075,7 @@ public class Compound {
     public TagNull optTagNull( String key, TagNull def ) {
         if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( TagNull ) values.get( key );
+            return ( TagNull ) lookup( key );
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -1033,7 +1091,7 @@ public class Compound {
     public TagString optTagString( String key, TagString def ) {
         if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( TagString ) values.get( key );
+            return ( TagString ) lookup( key );
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -1049,7 +1107,7 @@ public class Compound {
     public TagArray optTagArray( String key, TagArray def ) {
         if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( TagArray ) values.get( key );
+            return ( TagArray ) lookup( key );
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -1065,14 +1123,16 @@ public class Compound {
     public TagCompound optTagCompound( String key, TagCompound def ) {
         if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( TagCompound ) values.get( key );
+            return ( TagCompound ) lookup( key );
         } catch( ClassCastException exception ) {
             return def;
         }
     }
 
     /**
-     * Returns a byte array tag from the compound
+     * Returns a byte array tag from the compound.
+     * Off-heap views are converted into a new tag, which is
+     * not stored in the compound.
      * @param key The key of the tag
      * @param def The default value if the key or a byte array tag is not found
      * @return The byte array tag
@@ -1081,14 +1141,16 @@ public class Compound {
     public TagByteArray optTagByteArray( String key, TagByteArray def ) {
         if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( TagByteArray ) values.get( key );
+            return ArrayTags.tagByteArray( lookup( key ) );
         } catch( ClassCastException exception ) {
             return def;
         }
     }
 
     /**
-     * Returns a short array tag from the compound
+     * Returns a short array tag from the compound.
+     * Off-heap views are converted into a new tag, which is
+     * not stored in the compound.
      * @param key The key of the tag
      * @param def The default value if the key or a short array tag is not found
      * @return The short array tag
@@ -1097,14 +1159,16 @@ public class Compound {
     public TagShortArray optTagShortArray( String key, TagShortArray def ) {
         if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( TagShortArray ) values.get( key );
+            return ArrayTags.tagShortArray( lookup( key ) );
         } catch( ClassCastException exception ) {
             return def;
         }
     }
 
     /**
-     * Returns an integer array tag from the compound
+     * Returns an integer array tag from the compound.
+     * Varint arrays and off-heap views are converted into a new tag, which is
+     * not stored in the compound.
      * @param key The key of the tag
      * @param def The default value if the key or a integer array tag is not found
      * @return The integer array tag
@@ -1113,14 +1177,16 @@ public class Compound {
     public TagIntegerArray optTagIntegerArray( String key, TagIntegerArray def ) {
         if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( TagIntegerArray ) values.get( key );
+            return ArrayTags.tagIntegerArray( lookup( key ) );
         } catch( ClassCastException exception ) {
             return def;
         }
     }
 
     /**
-     * Returns a long array tag from the compound
+     * Returns a long array tag from the compound.
+     * Varint arrays and off-heap views are converted into a new tag, which is
+     * not stored in the compound.
      * @param key The key of the tag
      * @param def The default value if the key or a long array tag is not found
      * @return The long array tag
@@ -1129,14 +1195,16 @@ public class Compound {
     public TagLongArray optTagLongArray( String key, TagLongArray def ) {
         if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( TagLongArray ) values.get( key );
+            return ArrayTags.tagLongArray( lookup( key ) );
         } catch( ClassCastException exception ) {
             return def;
         }
     }
 
     /**
-     * Returns a float array tag from the compound
+     * Returns a float array tag from the compound.
+     * Off-heap views are converted into a new tag, which is
+     * not stored in the compound.
      * @param key The key of the tag
      * @param def The default value if the key or a float array tag is not found
      * @return The float array tag
@@ -1145,14 +1213,16 @@ public class Compound {
     public TagFloatArray optTagFloatArray( String key, TagFloatArray def ) {
         if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( TagFloatArray ) values.get( key );
+            return ArrayTags.tagFloatArray( lookup( key ) );
         } catch( ClassCastException exception ) {
             return def;
         }
     }
 
     /**
-     * Returns a double array tag from the compound
+     * Returns a double array tag from the compound.
+     * Off-heap views are converted into a new tag, which is
+     * not stored in the compound.
      * @param key The key of the tag
      * @param def The default value if the key or a double array tag is not found
      * @return The double array tag
@@ -1161,14 +1231,16 @@ public class Compound {
     public TagDoubleArray optTagDoubleArray( String key, TagDoubleArray def ) {
         if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( TagDoubleArray ) values.get( key );
+            return ArrayTags.tagDoubleArray( lookup( key ) );
         } catch( ClassCastException exception ) {
             return def;
         }
     }
 
     /**
-     * Returns a boolean array tag from the compound
+     * Returns a boolean array tag from the compound.
+     * Bit sets are converted into a new tag, which is
+     * not stored in the compound.
      * @param key The key of the tag
      * @param def The default value if the key or a boolean array tag is not found
      * @return The boolean array tag
@@ -1177,7 +1249,7 @@ public class Compound {
     public TagBooleanArray optTagBooleanArray( String key, TagBooleanArray def ) {
         if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( TagBooleanArray ) values.get( key );
+            return ArrayTags.tagBooleanArray( lookup( key ) );
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -1193,7 +1265,7 @@ public class Compound {
     public TagStringArray optTagStringArray( String key, TagStringArray def ) {
         if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( TagStringArray ) values.get( key );
+            return ( TagStringArray ) lookup( key );
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -1207,9 +1279,9 @@ public class Compound {
      * @since 1.1
      */
     public int optInteger( String key, int def ) {
-        if ( ! checkKeyDef( key ) ) return def;
+        if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( ( TagInteger ) values.get( key ) ).getValue();
+            return ( ( TagInteger ) lookup( key ) ).getValue();
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -1223,9 +1295,9 @@ public class Compound {
      * @since 1.1
      */
     public long optLong( String key, long def ) {
-        if ( ! checkKeyDef( key ) ) return def;
+        if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( ( TagLong ) values.get( key ) ).getValue();
+            return ( ( TagLong ) lookup( key ) ).getValue();
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -1239,9 +1311,9 @@ public class Compound {
      * @since 1.1
      */
     public short optShort( String key, short def ) {
-        if ( ! checkKeyDef( key ) ) return def;
+        if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( ( TagShort ) values.get( key ) ).getValue();
+            return ( ( TagShort ) lookup( key ) ).getValue();
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -1255,9 +1327,9 @@ public class Compound {
      * @since 1.1
      */
     public byte optByte( String key, byte def ) {
-        if ( ! checkKeyDef( key ) ) return def;
+        if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( ( TagByte ) values.get( key ) ).getValue();
+            return ( ( TagByte ) lookup( key ) ).getValue();
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -1271,9 +1343,9 @@ public class Compound {
      * @since 1.1
      */
     public double optDouble( String key, double def ) {
-        if ( ! checkKeyDef( key ) ) return def;
+        if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( ( TagDouble ) values.get( key ) ).getValue();
+            return ( ( TagDouble ) lookup( key ) ).getValue();
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -1287,9 +1359,9 @@ public class Compound {
      * @since 1.1
      */
     public float optFloat( String key, float def ) {
-        if ( ! checkKeyDef( key ) ) return def;
+        if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( ( TagFloat ) values.get( key ) ).getValue();
+            return ( ( TagFloat ) lookup( key ) ).getValue();
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -1303,9 +1375,9 @@ public class Compound {
      * @since 1.1
      */
     public boolean optBoolean( String key, boolean def ) {
-        if ( ! checkKeyDef( key ) ) return def;
+        if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( ( TagBoolean ) values.get( key ) ).getValue();
+            return ( ( TagBoolean ) lookup( key ) ).getValue();
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -1319,9 +1391,9 @@ public class Compound {
      * @since 1.1
      */
     public String optString( String key, String def ) {
-        if ( ! checkKeyDef( key ) ) return def;
+        if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( ( TagString ) values.get( key ) ).getValue();
+            return ( ( TagString ) lookup( key ) ).getValue();
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -1335,9 +1407,9 @@ public class Compound {
      * @since 1.1
      */
     public Array optArray( String key, Array def ) {
-        if ( ! checkKeyDef( key ) ) return def;
+        if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( ( TagArray ) values.get( key ) ).getValue();
+            return ( ( TagArray ) lookup( key ) ).getValue();
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -1351,9 +1423,9 @@ public class Compound {
      * @since 1.1
      */
     public Compound optCompound( String key, Compound def ) {
-        if ( ! checkKeyDef( key ) ) return def;
+        if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( ( TagCompound ) values.get( key ) ).getValue();
+            return ( ( TagCompound ) lookup( key ) ).getValue();
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -1367,9 +1439,9 @@ public class Compound {
      * @since 1.1
      */
     public byte[] optByteArray( String key, byte[] def ) {
-        if ( ! checkKeyDef( key ) ) return def;
+        if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( ( TagByteArray ) values.get( key ) ).getValue();
+            return ArrayTags.bytes( lookup( key ) );
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -1383,9 +1455,9 @@ public class Compound {
      * @since 1.1
      */
     public short[] optShortArray( String key, short[] def ) {
-        if ( ! checkKeyDef( key ) ) return def;
+        if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( ( TagShortArray ) values.get( key ) ).getValue();
+            return ArrayTags.shorts( lookup( key ) );
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -1399,9 +1471,9 @@ public class Compound {
      * @since 1.1
      */
     public int[] optIntegerArray( String key, int[] def ) {
-        if ( ! checkKeyDef( key ) ) return def;
+        if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( ( TagIntegerArray ) values.get( key ) ).getValue();
+            return ArrayTags.ints( lookup( key ) );
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -1415,9 +1487,9 @@ public class Compound {
      * @since 1.1
      */
     public long[] optLongArray( String key, long[] def ) {
-        if ( ! checkKeyDef( key ) ) return def;
+        if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( ( TagLongArray ) values.get( key ) ).getValue();
+            return ArrayTags.longs( lookup( key ) );
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -1431,9 +1503,9 @@ public class Compound {
      * @since 1.1
      */
     public float[] optFloatArray( String key, float[] def ) {
-        if ( ! checkKeyDef( key ) ) return def;
+        if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( ( TagFloatArray ) values.get( key ) ).getValue();
+            return ArrayTags.floats( lookup( key ) );
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -1447,9 +1519,9 @@ public class Compound {
      * @since 1.1
      */
     public double[] optDoubleArray( String key, double[] def ) {
-        if ( ! checkKeyDef( key ) ) return def;
+        if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( ( TagDoubleArray ) values.get( key ) ).getValue();
+            return ArrayTags.doubles( lookup( key ) );
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -1463,9 +1535,26 @@ public class Compound {
      * @since 1.1
      */
     public boolean[] optBooleanArray( String key, boolean[] def ) {
-        if ( ! checkKeyDef( key ) ) return def;
+        if( ! checkKeyDef( key ) ) return def;
+        try {
+            return ArrayTags.booleans( lookup( key ) );
+        } catch( ClassCastException exception ) {
+            return def;
+        }
+    }
+
+    /**
+     * Returns the value of a boolean array tag from the compound as a
+     * {@link BitSet}
+     * @param key The key of the tag
+     * @param def The default value if the key or a boolean array tag is not found
+     * @return The booleans
+     * @since 1.2
+     */
+    public BitSet optBitSet( String key, BitSet def ) {
+        if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( ( TagBooleanArray ) values.get( key ) ).getValue();
+            return ArrayTags.bits( lookup( key ) );
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -1479,9 +1568,9 @@ public class Compound {
      * @since 1.1
      */
     public String[] optStringArray( String key, String[] def ) {
-        if ( ! checkKeyDef( key ) ) return def;
+        if( ! checkKeyDef( key ) ) return def;
         try {
-            return ( ( TagStringArray ) values.get( key ) ).getValue();
+            return ( ( TagStringArray ) lookup( key ) ).getValue();
         } catch( ClassCastException exception ) {
             return def;
         }
@@ -1521,6 +1610,15 @@ public class Compound {
         return values.containsKey( key );
     }
 
+    /**
+     * Returns the amount of pairs in the compound
+     * @return The size of the compound
+     * @since 1.2
+     */
+    public int size() {
+        return values.size();
+    }
+
     /**
      * Checks if the compound contains a tag
      * @param value The tag
@@ -1533,15 +1631,53 @@ public class Compound {
 
 
     /**
-     * Returns the {@link KeyValuePair}{@code []} for this compound
+     * Writes the entries of this compound, followed by the end tag, directly to
+     * a {@link CTagOutput}. The entries are written straight from the map, no
+     * {@link KeyValuePair}s are made. Lazily decoded values are passed through
+     * without decoding them.
+     * <br/><br/>
+     * When the output is {@linkplain CTagOutput#isCanonical() canonical}, the
+     * entries are written sorted by key instead of in insertion order, and
+     * lazily decoded values are decoded first, so that nested compounds are
+     * sorted as well.
+     * @param output The {@link CTagOutput} to write to
+     * @exception IOException When the output's underlying stream throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public void write( CTagOutput output ) throws IOException {
+        if( output.isCanonical() ) {
+            String[] keys = values.keySet().toArray( new String[ 0 ] );
+            Arrays.sort( keys );
+            for( String key : keys ) {
+                ITag value = lookup( key );
+                output.writeByte( value.getPrefix() );
+                output.writeString( key );
+                value.write( output );
+            }
+        } else {
+            for( Map.Entry<String, ITag> entry : values.entrySet() ) {
+                ITag value = entry.getValue();
+                output.writeByte( value.getPrefix() );
+                output.writeString( entry.getKey() );
+                value.write( output );
+            }
+        }
+        output.writeByte( TagRegistry.END );
+    }
+
+    /**
+     * Returns the {@link KeyValuePair}{@code []} for this compound. Values of
+     * a lazily decoded compound that were not asked for yet are
+     * {@link TagLazy} instances. The pairs are in insertion order.
      * @since 1.0
      */
     public KeyValuePair[] getPairs() {
-        Set<String> keys = values.keySet();
-        ArrayList<KeyValuePair> pairs = new ArrayList<>();
-        for( String key : keys ) {
-            pairs.add( new KeyValuePair( key, values.get( key ) ) );
+        KeyValuePair[] pairs = new KeyValuePair[ values.size() ];
+        int i = 0;
+        for( Map.Entry<String, ITag> entry : values.entrySet() ) {
+            pairs[ i++ ] = new KeyValuePair( entry.getKey(), entry.getValue() );
         }
-        return pairs.toArray( new KeyValuePair[ 0 ] );
+        return pairs;
     }
 }
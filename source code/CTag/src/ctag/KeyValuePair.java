@@ -2,7 +2,8 @@ package ctag;
 
 import ctag.tags.ITag;
 import ctag.tags.TagCompound;
-import ctag.tags.TagString;
+
+import java.io.IOException;
 
 /**
  * Used by the {@link TagCompound} to represent a key-value pair.
@@ -19,12 +20,38 @@ public class KeyValuePair {
     /**
      * Encodes this pair of a compound
      * @return The encoded data as a {@link Binary}
+     * @exception IllegalArgumentException When the key is longer than 32767
+     *                                     bytes.
      */
     public Binary encode() {
+        // The key is written like write() does, so long keys are rejected
+        // instead of getting the large string form
+        CTagOutput keyOutput = new CTagOutput();
+        try {
+            keyOutput.writeString( key );
+        } catch( IOException exception ) {
+            // Writing to an internal buffer does not do I/O
+            throw new IllegalStateException( exception );
+        }
         Binary.Builder builder = new Binary.Builder();
         builder.append( value.getPrefixByte() );
-        builder.append( new TagString( key ).encode() );
+        builder.append( keyOutput.toBinary() );
         builder.append( value.encode() );
         return builder.build();
     }
+
+    /**
+     * Writes this pair of a compound directly to a {@link CTagOutput}
+     * @param output The {@link CTagOutput} to write to
+     * @exception IOException              When the output's underlying stream
+     *                                     throws an {@link IOException}
+     * @exception IllegalArgumentException When the key is longer than 32767
+     *                                     bytes.
+     * @since 1.2
+     */
+    public void write( CTagOutput output ) throws IOException {
+        output.writeByte( value.getPrefix() );
+        output.writeString( key );
+        value.write( output );
+    }
 }
@@ -0,0 +1,301 @@
+package ctag;
+
+import ctag.exception.CTagInvalidException;
+import ctag.exception.EndException;
+import ctag.exception.NegativeLengthException;
+import ctag.exception.NoSuchKeyException;
+import ctag.exception.WrongTagException;
+import ctag.tags.ITag;
+import ctag.tags.TagBoolean;
+import ctag.tags.TagInteger;
+import ctag.tags.TagLong;
+import ctag.tags.TagRegistry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * A path to a value deep inside a CTag code, like {@code players[3].inventory}.
+ * Keys select a value of a compound and are separated by dots, {@code [n]}
+ * selects an element of an array. Indices work on any-type arrays as well as
+ * on primitive and string arrays.
+ * <br/><br/>
+ * The path is followed while reading: siblings are skipped by using their
+ * prefixes and lengths, and only the selected value is decoded. A path can be
+ * parsed once and used for many extractions.
+ * @since 1.2
+ */
+public class TagPath {
+    private final String path;
+    // For each segment either a key, or null when the segment is an index
+    private final String[] keys;
+    private final byte[][] keyBytes;
+    private final int[] indices;
+    private final int longestKey;
+
+    private TagPath( String path, String[] keys, int[] indices ) {
+        this.path = path;
+        this.keys = keys;
+        this.indices = indices;
+        keyBytes = new byte[ keys.length ][];
+        int longest = 0;
+        for( int i = 0; i < keys.length; i++ ) {
+            if( keys[ i ] != null ) {
+                keyBytes[ i ] = keys[ i ].getBytes();
+                longest = Math.max( longest, keyBytes[ i ].length );
+            }
+        }
+        longestKey = longest;
+    }
+
+    /**
+     * Parses a path, like {@code a.b[3].c}. Keys can not contain dots or
+     * brackets.
+     * @param path The path string
+     * @return The parsed path
+     * @exception IllegalArgumentException When the path is malformed
+     * @since 1.2
+     */
+    public static TagPath parse( String path ) {
+        ArrayList<String> keys = new ArrayList<>();
+        ArrayList<Integer> indices = new ArrayList<>();
+        int i = 0;
+        int len = path.length();
+        boolean expectKey = true;
+        while( i < len ) {
+            char c = path.charAt( i );
+            if( c == '[' ) {
+                int close = path.indexOf( ']', i );
+                if( close < 0 ) {
+                    throw new IllegalArgumentException( "Missing ']' in path '" + path + "'." );
+                }
+                int index;
+                try {
+                    index = Integer.parseInt( path.substring( i + 1, close ) );
+                } catch( NumberFormatException exception ) {
+                    throw new IllegalArgumentException( "Invalid index in path '" + path + "'." );
+                }
+                if( index < 0 ) {
+                    throw new IllegalArgumentException( "Negative index in path '" + path + "'." );
+                }
+                keys.add( null );
+                indices.add( index );
+                i = close + 1;
+                expectKey = false;
+            } else if( c == '.' ) {
+                if( expectKey ) {
+                    throw new IllegalArgumentException( "Empty key in path '" + path + "'." );
+                }
+                i++;
+                expectKey = true;
+            } else {
+                if( !expectKey ) {
+                    throw new IllegalArgumentException( "Missing '.' before key in path '" + path + "'." );
+                }
+                int end = i;
+                while( end < len && path.charAt( end ) != '.' && path.charAt( end ) != '[' ) {
+                    end++;
+                }
+                keys.add( path.substring( i, end ) );
+                indices.add( -1 );
+                i = end;
+                expectKey = false;
+            }
+        }
+        if( expectKey && !keys.isEmpty() ) {
+            throw new IllegalArgumentException( "Empty key in path '" + path + "'." );
+        }
+        int[] indexArray = new int[ indices.size() ];
+        for( int j = 0; j < indexArray.length; j++ ) {
+            indexArray[ j ] = indices.get( j );
+        }
+        return new TagPath( path, keys.toArray( new String[ 0 ] ), indexArray );
+    }
+
+    /**
+     * Reads a prefixed CTag code and returns only the value this path points
+     * to. Everything before the value is skipped, everything after it is not
+     * read.
+     * @param input The {@link CTagInput} stream that begins with the CTag code
+     * @return The selected tag
+     * @exception IOException          If the {@link CTagInput}'s underlying
+     *                                 stream throws an IOException.
+     * @exception CTagInvalidException If the CTag code is invalid.
+     * @exception NoSuchKeyException   If a key or index does not exist.
+     * @exception WrongTagException    If a key is used on something that is
+     *                                 not a compound, or an index on
+     *                                 something that is not an array.
+     * @since 1.2
+     */
+    public ITag extract( CTagInput input ) throws IOException, CTagInvalidException, EndException, NegativeLengthException, NoSuchKeyException, WrongTagException {
+        byte prefix = input.readByte();
+        if( prefix == TagRegistry.END ) {
+            throw new CTagInvalidException( "Found TagEnd as main type. TagEnd should not be used." );
+        }
+        byte[] scratch = new byte[ longestKey ];
+        for( int i = 0; i < keys.length; i++ ) {
+            if( keys[ i ] != null ) {
+                prefix = selectKey( input, prefix, i, scratch );
+            } else {
+                int index = indices[ i ];
+                int length;
+                if( prefix == TagRegistry.LARGE ) {
+                    // The prefix of the array type and the length as a varint follow
+                    prefix = input.readByte();
+                    checkArray( prefix, index );
+                    length = input.readVarInt();
+                    if( length < 0 ) throw new NegativeLengthException( "Found large tag with negative length" );
+                } else if( prefix == TagRegistry.VAR_INTEGER_ARRAY || prefix == TagRegistry.VAR_LONG_ARRAY ) {
+                    length = input.readVarInt();
+                    if( length < 0 ) throw new NegativeLengthException( "Found array with negative length" );
+                } else {
+                    checkArray( prefix, index );
+                    length = length( input );
+                }
+                checkIndex( length, index );
+                if( prefix == TagRegistry.BOOLEAN_ARRAY ) {
+                    // Booleans are packed, the element can't be parsed as a tag
+                    if( i != keys.length - 1 ) {
+                        throw new WrongTagException( "Path '" + path + "' continues after a boolean." );
+                    }
+                    input.skip( index / 8 );
+                    return new TagBoolean( ( input.readByte() & 1 << 7 - ( index & 7 ) ) != 0 );
+                }
+                if( prefix == TagRegistry.VAR_INTEGER_ARRAY || prefix == TagRegistry.VAR_LONG_ARRAY ) {
+                    // Varints differ in size, the elements before the index are read
+                    if( i != keys.length - 1 ) {
+                        throw new WrongTagException( "Path '" + path + "' continues after an integer." );
+                    }
+                    for( int j = 0; j < index; j++ ) {
+                        input.readVarLong();
+                    }
+                    // Zigzag-decode the element, see CTagInput.readVarLongs
+                    long value = input.readVarLong();
+                    value = value >>> 1 ^ -( value & 1 );
+                    return prefix == TagRegistry.VAR_INTEGER_ARRAY ? new TagInteger( ( int ) value ) : new TagLong( value );
+                }
+                prefix = selectIndex( input, prefix, index );
+            }
+        }
+        return TagRegistry.parse( prefix, input );
+    }
+
+    private byte selectKey( CTagInput input, byte prefix, int segment, byte[] scratch ) throws IOException, CTagInvalidException, EndException, NegativeLengthException, NoSuchKeyException, WrongTagException {
+        if( prefix != TagRegistry.COMPOUND ) {
+            throw new WrongTagException( "Key '" + keys[ segment ] + "' in path '" + path + "' needs a compound." );
+        }
+        byte[] key = keyBytes[ segment ];
+        while( true ) {
+            byte entry = input.readByte();
+            if( entry == TagRegistry.END ) {
+                throw new NoSuchKeyException( "Key '" + keys[ segment ] + "' does not exist in this compound." );
+            }
+            int len = length( input );
+            if( len == key.length ) {
+                input.readFully( scratch, 0, len );
+                if( matches( scratch, key ) ) {
+                    return entry;
+                }
+            } else {
+                input.skip( len );
+            }
+            TagRegistry.skip( entry, input );
+        }
+    }
+
+    private void checkArray( byte prefix, int index ) throws WrongTagException {
+        switch( prefix ) {
+            case TagRegistry.ARRAY:
+            case TagRegistry.STRING_ARRAY:
+            case TagRegistry.BYTE_ARRAY:
+            case TagRegistry.SHORT_ARRAY:
+            case TagRegistry.INTEGER_ARRAY:
+            case TagRegistry.LONG_ARRAY:
+            case TagRegistry.FLOAT_ARRAY:
+            case TagRegistry.DOUBLE_ARRAY:
+            case TagRegistry.BOOLEAN_ARRAY:
+                return;
+            default:
+                throw new WrongTagException( "Index [" + index + "] in path '" + path + "' needs an array." );
+        }
+    }
+
+    // Skips the elements before the index, the length is already read
+    private byte selectIndex( CTagInput input, byte prefix, int index ) throws IOException, CTagInvalidException, EndException, NegativeLengthException, WrongTagException {
+        int size;
+        byte element;
+        switch( prefix ) {
+            case TagRegistry.ARRAY:
+                for( int i = 0; i < index; i++ ) {
+                    TagRegistry.skip( input.readByte(), input );
+                }
+                return input.readByte();
+            case TagRegistry.STRING_ARRAY:
+                for( int i = 0; i < index; i++ ) {
+                    input.skip( length( input ) );
+                }
+                return TagRegistry.STRING;
+            case TagRegistry.BYTE_ARRAY:
+                size = 1;
+                element = TagRegistry.BYTE;
+                break;
+            case TagRegistry.SHORT_ARRAY:
+                size = 2;
+                element = TagRegistry.SHORT;
+                break;
+            case TagRegistry.INTEGER_ARRAY:
+                size = 4;
+                element = TagRegistry.INTEGER;
+                break;
+            case TagRegistry.LONG_ARRAY:
+                size = 8;
+                element = TagRegistry.LONG;
+                break;
+            case TagRegistry.FLOAT_ARRAY:
+                size = 4;
+                element = TagRegistry.FLOAT;
+                break;
+            case TagRegistry.DOUBLE_ARRAY:
+                size = 8;
+                element = TagRegistry.DOUBLE;
+                break;
+            default:
+                throw new WrongTagException( "Index [" + index + "] in path '" + path + "' needs an array." );
+        }
+        skipElements( input, index, size );
+        return element;
+    }
+
+    // Skips in steps, so the amount of bytes does not overflow for large arrays
+    private static void skipElements( CTagInput input, int count, int size ) throws IOException, EndException {
+        int step = Integer.MAX_VALUE / size;
+        while( count > 0 ) {
+            int amount = Math.min( count, step );
+            input.skip( amount * size );
+            count -= amount;
+        }
+    }
+
+    private static boolean matches( byte[] scratch, byte[] key ) {
+        for( int i = 0; i < key.length; i++ ) {
+            if( scratch[ i ] != key[ i ] ) return false;
+        }
+        return true;
+    }
+
+    private void checkIndex( int length, int index ) throws NoSuchKeyException {
+        if( index >= length ) {
+            throw new NoSuchKeyException( "Index [" + index + "] in path '" + path + "' is out of bounds, length is " + length + "." );
+        }
+    }
+
+    private static int length( CTagInput input ) throws IOException, EndException, NegativeLengthException {
+        short len = input.readShort();
+        if( len < 0 ) throw new NegativeLengthException( "Found array with negative length" );
+        return len;
+    }
+
+    public String toString() {
+        return path;
+    }
+}
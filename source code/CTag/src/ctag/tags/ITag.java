@@ -1,11 +1,15 @@
 package ctag.tags;
 
 import ctag.Binary;
+import ctag.CTagOutput;
 import ctag.exception.CTagInvalidException;
 
+import java.io.IOException;
+
 /**
- * Base of all tag types. Do not make and use custom tags. The decoder will
- * throw a {@link CTagInvalidException} if it finds an unknown type.
+ * Base of all tag types. Custom tags must register a parser for their prefix
+ * in the {@link TagRegistry}, the decoder will throw a
+ * {@link CTagInvalidException} if it finds an unknown type.
  * @param <TType> The type this tag encodes.
  * @since 1.0
  */
@@ -17,6 +21,31 @@ public interface ITag <TType> {
      */
     Binary encode();
 
+    /**
+     * Writes the encoded data directly to a {@link CTagOutput}. This writes the
+     * same bytes as {@link #encode()}, without the prefix.
+     * @param output The {@link CTagOutput} to write to.
+     * @exception IOException If the {@link CTagOutput}'s underlying stream
+     *                        throws an IOException.
+     * @since 1.2
+     */
+    default void write( CTagOutput output ) throws IOException {
+        output.write( encode() );
+    }
+
+    /**
+     * Writes the prefix followed by the encoded data directly to a
+     * {@link CTagOutput}. For the built-in scalar tags this does not allocate.
+     * @param output The {@link CTagOutput} to write to.
+     * @exception IOException If the {@link CTagOutput}'s underlying stream
+     *                        throws an IOException.
+     * @since 1.2
+     */
+    default void writePrefixed( CTagOutput output ) throws IOException {
+        output.writeByte( getPrefix() );
+        write( output );
+    }
+
     /**
      * Returns the value to encode.
      * @return The value to encode.
@@ -26,7 +55,8 @@ public interface ITag <TType> {
 
     /**
      * Sets the value to encode. Some tags may not support this operation and
-     * do nothing.
+     * do nothing. Shared instances, like {@link TagBoolean#TRUE}, throw an
+     * {@link UnsupportedOperationException}.
      * @param value The value to encode.
      * @since 1.0
      */
@@ -35,8 +65,19 @@ public interface ITag <TType> {
     /**
      * Returns the byte where this type should be prefixed with. This is used to
      * tell the decoder which type to read here.
+     * The built-in tags return a shared instance, which must not be modified.
      * @return A binary containing exactly one byte holding the prefix.
      * @since 1.0
      */
     Binary getPrefixByte();
+
+    /**
+     * Returns the prefix of this type as a plain byte, like
+     * {@link #getPrefixByte()} but without making a {@link Binary}.
+     * @return The prefix byte.
+     * @since 1.2
+     */
+    default byte getPrefix() {
+        return getPrefixByte().getByte( 0 );
+    }
 }
@@ -0,0 +1,41 @@
+package ctag.tags;
+
+import ctag.CTagInput;
+import ctag.exception.CTagInvalidException;
+import ctag.exception.EndException;
+import ctag.exception.NegativeLengthException;
+
+import java.io.IOException;
+
+/**
+ * Parses the payload of one tag type. Parsers are registered for a prefix in
+ * the {@link TagRegistry}, the prefix itself is already read when the parser
+ * is called.
+ * @since 1.2
+ */
+public interface ITagParser {
+    /**
+     * Parses a tag payload.
+     * @param input The {@link CTagInput} stream that begins with the payload.
+     * @return The parsed tag.
+     * @exception IOException          If the {@link CTagInput}'s underlying
+     *                                 stream throws an IOException.
+     * @exception CTagInvalidException If the payload is invalid.
+     * @since 1.2
+     */
+    ITag parse( CTagInput input ) throws IOException, CTagInvalidException, EndException, NegativeLengthException;
+
+    /**
+     * Skips a tag payload without keeping the parsed tag. Parses the payload
+     * by default, parsers should override this when the payload length can
+     * be found without parsing it.
+     * @param input The {@link CTagInput} stream that begins with the payload.
+     * @exception IOException          If the {@link CTagInput}'s underlying
+     *                                 stream throws an IOException.
+     * @exception CTagInvalidException If the payload is invalid.
+     * @since 1.2
+     */
+    default void skip( CTagInput input ) throws IOException, CTagInvalidException, EndException, NegativeLengthException {
+        parse( input );
+    }
+}
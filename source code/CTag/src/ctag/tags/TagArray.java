@@ -3,6 +3,7 @@ package ctag.tags;
 import ctag.Array;
 import ctag.Binary;
 import ctag.CTagInput;
+import ctag.CTagOutput;
 import ctag.Compound;
 import ctag.exception.CTagInvalidException;
 import ctag.exception.EndException;
@@ -41,6 +42,8 @@ import java.util.Collection;
  * @since 1.0
  */
 public class TagArray implements ITag<Array> {
+    private static final Binary PREFIX = new Binary( TagRegistry.ARRAY );
+
     private Array array;
 
     public TagArray() {
@@ -61,6 +64,9 @@ public class TagArray implements ITag<Array> {
 
     @Override
     public Binary encode() {
+        if( array.length() > Short.MAX_VALUE ) {
+            return TagRegistry.encode( this );
+        }
         ITag[] tags = array.getTags();
         Binary binary = new TagShort( array.size() ).encode();
         Binary.Builder builder = new Binary.Builder();
@@ -72,6 +78,14 @@ public class TagArray implements ITag<Array> {
         return builder.build();
     }
 
+    @Override
+    public void write( CTagOutput output ) throws IOException {
+        TagRegistry.writeLength( output, TagRegistry.ARRAY, array.length() );
+        for( ITag tag : array ) {
+            tag.writePrefixed( output );
+        }
+    }
+
     @Override
     public Array getValue() {
         return array;
@@ -84,7 +98,12 @@ public class TagArray implements ITag<Array> {
 
     @Override
     public Binary getPrefixByte() {
-        return new Binary( ( byte ) 0b1000 );
+        return TagRegistry.prefixByte( PREFIX, array.length() );
+    }
+
+    @Override
+    public byte getPrefix() {
+        return TagRegistry.prefix( TagRegistry.ARRAY, array.length() );
     }
 
     /**
@@ -98,55 +117,22 @@ public class TagArray implements ITag<Array> {
      * @since 1.0
      */
     public static TagArray parse( CTagInput input ) throws IOException, CTagInvalidException, EndException, NegativeLengthException {
-        Array value = new Array();
-        short len = TagShort.parse( input ).getValue();
+        short len = input.readShort();
         if( len < 0 ) throw new NegativeLengthException( "Found array with negative length" );
+        return parse( input, len );
+    }
+
+    /**
+     * Parses the elements of an array whose length is already read
+     */
+    static TagArray parse( CTagInput input, int len ) throws IOException, CTagInvalidException, EndException, NegativeLengthException {
+        Array value = new Array();
         for( int i = 0; i < len; i++ ) {
-            Binary prefixBin = input.read( 1 );
-            byte prefix = prefixBin.getByte( 0 );
-            if( prefix == 0 ) {
+            byte prefix = input.readByte();
+            if( prefix == TagRegistry.END ) {
                 throw new CTagInvalidException( "Found a TagEnd in TagArray." );
-            } else if( prefix == 1 ) {
-                value.add( TagByte.parse( input ) );
-            } else if( prefix == 2 ) {
-                value.add( TagShort.parse( input ) );
-            } else if( prefix == 3 ) {
-                value.add( TagInteger.parse( input ) );
-            } else if( prefix == 4 ) {
-                value.add( TagLong.parse( input ) );
-            } else if( prefix == 5 ) {
-                value.add( TagFloat.parse( input ) );
-            } else if( prefix == 6 ) {
-                value.add( TagDouble.parse( input ) );
-            } else if( prefix == 7 ) {
-                value.add( TagString.parse( input ) );
-            } else if( prefix == 8 ) {
-                value.add( TagArray.parse( input ) );
-            } else if( prefix == 9 ) {
-                value.add( TagCompound.parse( input ) );
-            } else if( prefix == 10 ) {
-                value.add( TagNull.parse( input ) );
-            } else if( prefix == 11 ) {
-                value.add( TagBoolean.parse( input ) );
-            } else if( prefix == 12 ) {
-                value.add( TagByteArray.parse( input ) );
-            } else if( prefix == 13 ) {
-                value.add( TagShortArray.parse( input ) );
-            } else if( prefix == 14 ) {
-                value.add( TagIntegerArray.parse( input ) );
-            } else if( prefix == 15 ) {
-                value.add( TagLongArray.parse( input ) );
-            } else if( prefix == 16 ) {
-                value.add( TagFloatArray.parse( input ) );
-            } else if( prefix == 17 ) {
-                value.add( TagDoubleArray.parse( input ) );
-            } else if( prefix == 18 ) {
-                value.add( TagBooleanArray.parse( input ) );
-            } else if( prefix == 19 ) {
-                value.add( TagStringArray.parse( input ) );
-            } else {
-                throw new CTagInvalidException( "Found invalid tag prefix: '" + prefixBin + "'." );
             }
+            value.add( TagRegistry.parse( prefix, input ) );
         }
         return new TagArray( value );
     }
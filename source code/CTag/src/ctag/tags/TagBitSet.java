@@ -0,0 +1,155 @@
+package ctag.tags;
+
+import ctag.Binary;
+import ctag.CTagInput;
+import ctag.CTagOutput;
+import ctag.exception.EndException;
+import ctag.exception.NegativeLengthException;
+
+import java.io.IOException;
+import java.util.BitSet;
+
+/**
+ * The tag that represents a boolean array as a {@link BitSet}. It is encoded
+ * exactly like a {@link TagBooleanArray}, and uses the same prefix, but it
+ * keeps the booleans packed in memory instead of using one byte per boolean.
+ * Since a {@link BitSet} has no fixed size, the tag also holds the length.
+ * <br/><br/>
+ * Decoders produce this tag for boolean arrays when
+ * {@link ctag.CTagDecoder#setBitSets(boolean)} is enabled.
+ * @since 1.2
+ */
+public class TagBitSet implements ITag<BitSet> {
+    private static final Binary PREFIX = new Binary( TagRegistry.BOOLEAN_ARRAY );
+
+    private BitSet bits;
+    private int length;
+
+    /**
+     * @param bits   The booleans
+     * @param length The amount of booleans, bits from this index are ignored
+     * @since 1.2
+     */
+    public TagBitSet( BitSet bits, int length ) {
+        if( length < 0 ) {
+            throw new IllegalArgumentException( "Length must not be negative, found: " + length + "." );
+        }
+        this.bits = bits;
+        this.length = length;
+    }
+
+    /**
+     * @param bools The booleans
+     * @since 1.2
+     */
+    public TagBitSet( boolean... bools ) {
+        this( new BitSet( bools.length ), bools.length );
+        for( int i = 0; i < bools.length; i++ ) {
+            if( bools[ i ] ) bits.set( i );
+        }
+    }
+
+    @Override
+    public Binary encode() {
+        CTagOutput output = new CTagOutput();
+        try {
+            write( output );
+        } catch( IOException exception ) {
+            // Writing to an internal buffer does not do I/O
+            throw new IllegalStateException( exception );
+        }
+        return output.toBinary();
+    }
+
+    @Override
+    public void write( CTagOutput output ) throws IOException {
+        TagRegistry.writeLength( output, TagRegistry.BOOLEAN_ARRAY, length );
+        output.writeBits( bits.toLongArray(), length );
+    }
+
+    @Override
+    public BitSet getValue() {
+        return bits;
+    }
+
+    @Override
+    public void setValue( BitSet value ) {
+        bits = value;
+    }
+
+    /**
+     * Returns the amount of booleans
+     * @since 1.2
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Sets the amount of booleans
+     * @since 1.2
+     */
+    public void setLength( int length ) {
+        if( length < 0 ) {
+            throw new IllegalArgumentException( "Length must not be negative, found: " + length + "." );
+        }
+        this.length = length;
+    }
+
+    /**
+     * Unpacks the booleans into an array
+     * @since 1.2
+     */
+    public boolean[] toBooleanArray() {
+        boolean[] bools = new boolean[ length ];
+        for( int i = bits.nextSetBit( 0 ); i >= 0 && i < length; i = bits.nextSetBit( i + 1 ) ) {
+            bools[ i ] = true;
+        }
+        return bools;
+    }
+
+    @Override
+    public Binary getPrefixByte() {
+        return TagRegistry.prefixByte( PREFIX, length );
+    }
+
+    @Override
+    public byte getPrefix() {
+        return TagRegistry.prefix( TagRegistry.BOOLEAN_ARRAY, length );
+    }
+
+    /**
+     * Parses a CTag code of a boolean array as a bit set.
+     * @param input The {@link CTagInput} stream that possibly begins with this
+     *              boolean array data.
+     * @return The parsed {@link TagBitSet} if parsed with success.
+     * @exception IOException If the {@link CTagInput}'s underlying stream
+     *                        throws an IOException.
+     * @since 1.2
+     */
+    public static TagBitSet parse( CTagInput input ) throws IOException, EndException, NegativeLengthException {
+        short len = input.readShort();
+        if( len < 0 ) throw new NegativeLengthException( "Found array with negative length" );
+        return parse( input, len );
+    }
+
+    /**
+     * Parses the values of a boolean array whose length is already read
+     */
+    static TagBitSet parse( CTagInput input, int len ) throws IOException, EndException, NegativeLengthException {
+        return new TagBitSet( BitSet.valueOf( input.readBits( len ) ), len );
+    }
+
+    public String toString() {
+        StringBuilder builder = new StringBuilder( "BOOLEAN_ARRAY [\n" );
+        for( int i = 0; i < length; i++ ) {
+            builder.append( "    " );
+            builder.append( i );
+            builder.append( ": " );
+            builder.append( bits.get( i ) );
+            builder.append( "\n" );
+        }
+        builder.append( "]" );
+        return builder.toString();
+    }
+}
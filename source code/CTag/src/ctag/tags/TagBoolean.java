@@ -2,6 +2,7 @@ package ctag.tags;
 
 import ctag.Binary;
 import ctag.CTagInput;
+import ctag.CTagOutput;
 import ctag.exception.EndException;
 
 import java.io.IOException;
@@ -34,14 +35,48 @@ import java.io.IOException;
  * @since 1.0
  */
 public class TagBoolean implements ITag<Boolean> {
+    private static final Binary PREFIX = new Binary( TagRegistry.BOOLEAN );
+
+    /**
+     * Shared, unmodifiable {@code true} tag
+     * @since 1.2
+     */
+    public static final TagBoolean TRUE = new TagBoolean( true, true );
+
+    /**
+     * Shared, unmodifiable {@code false} tag
+     * @since 1.2
+     */
+    public static final TagBoolean FALSE = new TagBoolean( false, true );
+
     private boolean value;
+    private final boolean cached;
 
     public TagBoolean( boolean value ) {
         this.value = value;
+        cached = false;
+    }
+
+    private TagBoolean( boolean value, boolean cached ) {
+        this.value = value;
+        this.cached = cached;
     }
 
     public TagBoolean() {
         value = false;
+        cached = false;
+    }
+
+    /**
+     * Returns the shared tag for a boolean. The returned tag can not be
+     * changed, {@link #setValue(Boolean)} throws an
+     * {@link UnsupportedOperationException}.
+     * @param value The boolean
+     * @return {@link #TRUE} or {@link #FALSE}
+     * @since 1.2
+     */
+    public static TagBoolean valueOf( boolean value ) {
+        return value ? TRUE : FALSE;
     }
 
     @Override
@@ -49,6 +84,11 @@ public class TagBoolean implements ITag<Boolean> {
         return new Binary( ( byte ) ( value ? 1 : 0 ) );
     }
 
+    @Override
+    public void write( CTagOutput output ) throws IOException {
+        output.writeByte( ( byte ) ( value ? 1 : 0 ) );
+    }
+
     @Override
     public Boolean getValue() {
         return value;
@@ -56,12 +96,20 @@ public class TagBoolean implements ITag<Boolean> {
 
     @Override
     public void setValue( Boolean value ) {
+        if( cached ) {
+            throw new UnsupportedOperationException( "Cached TagBoolean can not be changed." );
+        }
         this.value = value;
     }
 
     @Override
     public Binary getPrefixByte() {
-        return new Binary( ( byte ) 0b1011 );
+        return PREFIX;
+    }
+
+    @Override
+    public byte getPrefix() {
+        return TagRegistry.BOOLEAN;
     }
 
     /**
@@ -74,7 +122,10 @@ public class TagBoolean implements ITag<Boolean> {
      * @since 1.0
      */
     public static TagBoolean parse( CTagInput input ) throws IOException, EndException {
-        byte b = input.read( 1 ).getByte( 0 );
+        byte b = input.readByte();
+        if( input.isCached() ) {
+            return valueOf( ( b & 1 ) != 0 );
+        }
         return new TagBoolean( ( b & 1 ) != 0 );
     }
 
@@ -2,6 +2,7 @@ package ctag.tags;
 
 import ctag.Binary;
 import ctag.CTagInput;
+import ctag.CTagOutput;
 import ctag.exception.EndException;
 import ctag.exception.NegativeLengthException;
 
@@ -36,6 +37,8 @@ import java.io.IOException;
  * @since 1.0
  */
 public class TagBooleanArray implements ITag<boolean[]> {
+    private static final Binary PREFIX = new Binary( TagRegistry.BOOLEAN_ARRAY );
+
     private boolean[] array;
 
     public TagBooleanArray( boolean... bools ) {
@@ -44,23 +47,20 @@ public class TagBooleanArray implements ITag<boolean[]> {
 
     @Override
     public Binary encode() {
-        Binary.Builder builder = new Binary.Builder();
-        builder.append( new TagShort( ( short ) array.length ).encode() );
-        int i = 7;
-        byte bits = 0;
-        for( boolean b : array ) {
-            if( i == -1 ) {
-                builder.append( new byte[] { bits } );
-                bits = 0;
-                i = 7;
-            }
-            if( b ) {
-                bits |= 1 << i;
-            }
-            i--;
+        CTagOutput output = new CTagOutput();
+        try {
+            write( output );
+        } catch( IOException exception ) {
+            // Writing to an internal buffer does not do I/O
+            throw new IllegalStateException( exception );
         }
-        builder.append( new byte[] { bits } );
-        return builder.build();
+        return output.toBinary();
+    }
+
+    @Override
+    public void write( CTagOutput output ) throws IOException {
+        TagRegistry.writeLength( output, TagRegistry.BOOLEAN_ARRAY, array.length );
+        output.writeBooleans( array, 0, array.length );
     }
 
     @Override
@@ -75,7 +75,12 @@ public class TagBooleanArray implements ITag<boolean[]> {
 
     @Override
     public Binary getPrefixByte() {
-        return new Binary( ( byte ) 0b10010 );
+        return TagRegistry.prefixByte( PREFIX, array.length );
+    }
+
+    @Override
+    public byte getPrefix() {
+        return TagRegistry.prefix( TagRegistry.BOOLEAN_ARRAY, array.length );
     }
 
     /**
@@ -88,17 +93,17 @@ public class TagBooleanArray implements ITag<boolean[]> {
      * @since 1.0
      */
     public static TagBooleanArray parse( CTagInput input ) throws IOException, EndException, NegativeLengthException {
-        short len = TagShort.parse( input ).getValue();
+        short len = input.readShort();
         if( len < 0 ) throw new NegativeLengthException( "Found array with negative length" );
+        return parse( input, len );
+    }
+
+    /**
+     * Parses the values of a boolean array whose length is already read
+     */
+    static TagBooleanArray parse( CTagInput input, int len ) throws IOException, EndException, NegativeLengthException {
         boolean[] bools = new boolean[ len ];
-        byte current = 0;
-        for( int i = 0; i < len; i++ ) {
-            int bit = 7 - ( i & 7 );
-            if( bit == 7 ) {
-                current = input.read( 1 ).getByte( 0 );
-            }
-            bools[ i ] = ( current & 1 << bit ) != 0;
-        }
+        input.readBooleans( bools, 0, len );
         return new TagBooleanArray( bools );
     }
 
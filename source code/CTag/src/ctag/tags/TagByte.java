@@ -2,6 +2,7 @@ package ctag.tags;
 
 import ctag.Binary;
 import ctag.CTagInput;
+import ctag.CTagOutput;
 import ctag.exception.EndException;
 
 import java.io.IOException;
@@ -33,14 +34,43 @@ import java.io.IOException;
  * @since 1.0
  */
 public class TagByte implements ITag<Byte> {
+    private static final Binary PREFIX = new Binary( TagRegistry.BYTE );
+
+    private static final TagByte[] CACHE = new TagByte[ 256 ];
+
+    static {
+        for( int i = 0; i < 256; i++ ) {
+            CACHE[ i ] = new TagByte( ( byte ) i, true );
+        }
+    }
+
     private byte value;
+    private final boolean cached;
 
     public TagByte( byte value ) {
         this.value = value;
+        cached = false;
+    }
+
+    private TagByte( byte value, boolean cached ) {
+        this.value = value;
+        this.cached = cached;
     }
 
     public TagByte() {
         value = 0;
+        cached = false;
+    }
+
+    /**
+     * Returns the shared tag for a byte. The returned tag can not be changed,
+     * {@link #setValue(Byte)} throws an {@link UnsupportedOperationException}.
+     * @param value The byte
+     * @return The shared tag
+     * @since 1.2
+     */
+    public static TagByte valueOf( byte value ) {
+        return CACHE[ value & 0xff ];
     }
 
     @Override
@@ -48,6 +78,11 @@ public class TagByte implements ITag<Byte> {
         return new Binary( value );
     }
 
+    @Override
+    public void write( CTagOutput output ) throws IOException {
+        output.writeByte( value );
+    }
+
     @Override
     public Byte getValue() {
         return value;
@@ -55,12 +90,20 @@ public class TagByte implements ITag<Byte> {
 
     @Override
     public void setValue( Byte value ) {
+        if( cached ) {
+            throw new UnsupportedOperationException( "Cached TagByte can not be changed." );
+        }
         this.value = value;
     }
 
     @Override
     public Binary getPrefixByte() {
-        return new Binary( ( byte ) 0b1 );
+        return PREFIX;
+    }
+
+    @Override
+    public byte getPrefix() {
+        return TagRegistry.BYTE;
     }
 
     /**
@@ -73,8 +116,8 @@ public class TagByte implements ITag<Byte> {
      * @since 1.0
      */
     public static TagByte parse( CTagInput input ) throws IOException, EndException {
-        Binary bytes = input.read( 1 );
-        return new TagByte( bytes.getByte( 0 ) );
+        byte b = input.readByte();
+        return input.isCached() ? valueOf( b ) : new TagByte( b );
     }
 
     public String toString() {
@@ -2,6 +2,7 @@ package ctag.tags;
 
 import ctag.Binary;
 import ctag.CTagInput;
+import ctag.CTagOutput;
 import ctag.exception.EndException;
 import ctag.exception.NegativeLengthException;
 
@@ -35,6 +36,8 @@ import java.io.IOException;
  * @since 1.0
  */
 public class TagByteArray implements ITag<byte[]> {
+    private static final Binary PREFIX = new Binary( TagRegistry.BYTE_ARRAY );
+
     private byte[] array;
 
     public TagByteArray( byte... bytes ) {
@@ -43,12 +46,21 @@ public class TagByteArray implements ITag<byte[]> {
 
     @Override
     public Binary encode() {
+        if( array.length > Short.MAX_VALUE ) {
+            return TagRegistry.encode( this );
+        }
         Binary.Builder builder = new Binary.Builder();
         builder.append( new TagShort( ( short ) array.length ).encode() );
         builder.append( array );
         return builder.build();
     }
 
+    @Override
+    public void write( CTagOutput output ) throws IOException {
+        TagRegistry.writeLength( output, TagRegistry.BYTE_ARRAY, array.length );
+        output.write( array );
+    }
+
     @Override
     public byte[] getValue() {
         return array;
@@ -61,7 +73,12 @@ public class TagByteArray implements ITag<byte[]> {
 
     @Override
     public Binary getPrefixByte() {
-        return new Binary( ( byte ) 0b1100 );
+        return TagRegistry.prefixByte( PREFIX, array.length );
+    }
+
+    @Override
+    public byte getPrefix() {
+        return TagRegistry.prefix( TagRegistry.BYTE_ARRAY, array.length );
     }
 
     /**
@@ -74,10 +91,18 @@ public class TagByteArray implements ITag<byte[]> {
      * @since 1.0
      */
     public static TagByteArray parse( CTagInput input ) throws IOException, EndException, NegativeLengthException {
-        short len = TagShort.parse( input ).getValue();
+        short len = input.readShort();
         if( len < 0 ) throw new NegativeLengthException( "Found array with negative length" );
-        Binary bytes = input.read( len );
-        return new TagByteArray( bytes.getBytes() );
+        return parse( input, len );
+    }
+
+    /**
+     * Parses the values of a byte array whose length is already read
+     */
+    static TagByteArray parse( CTagInput input, int len ) throws IOException, EndException, NegativeLengthException {
+        byte[] bytes = new byte[ len ];
+        input.readFully( bytes, 0, len );
+        return new TagByteArray( bytes );
     }
 
     public String toString() {
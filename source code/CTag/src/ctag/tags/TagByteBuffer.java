@@ -0,0 +1,126 @@
+package ctag.tags;
+
+import ctag.Binary;
+import ctag.CTagInput;
+import ctag.CTagOutput;
+import ctag.exception.EndException;
+import ctag.exception.NegativeLengthException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The tag that represents a byte array as a view over encoded bytes. It is
+ * encoded exactly like a {@link TagByteArray}, and uses the same prefix, but
+ * the bytes are not copied out of the buffer they were decoded from. When
+ * that buffer maps a file, the bytes stay in the file until they are read.
+ * <br/><br/>
+ * Decoders produce this tag for byte arrays when
+ * {@link ctag.CTagDecoder#setViews(boolean)} is enabled.
+ * @since 1.2
+ */
+public class TagByteBuffer implements ITag<ByteBuffer> {
+    private static final Binary PREFIX = new Binary( TagRegistry.BYTE_ARRAY );
+
+    private ByteBuffer bytes;
+
+    /**
+     * @param bytes The bytes. The remaining bytes of the buffer are used,
+     *              without copying.
+     * @since 1.2
+     */
+    public TagByteBuffer( ByteBuffer bytes ) {
+        this.bytes = bytes.slice();
+    }
+
+    @Override
+    public Binary encode() {
+        return TagRegistry.encode( this );
+    }
+
+    @Override
+    public void write( CTagOutput output ) throws IOException {
+        TagRegistry.writeLength( output, TagRegistry.BYTE_ARRAY, bytes.remaining() );
+        output.write( bytes );
+    }
+
+    /**
+     * Returns a view over the bytes
+     */
+    @Override
+    public ByteBuffer getValue() {
+        return bytes.duplicate();
+    }
+
+    /**
+     * Sets the bytes. The remaining bytes of the buffer are used, without
+     * copying.
+     */
+    @Override
+    public void setValue( ByteBuffer value ) {
+        bytes = value.slice();
+    }
+
+    /**
+     * Returns the amount of bytes
+     * @since 1.2
+     */
+    public int getLength() {
+        return bytes.remaining();
+    }
+
+    /**
+     * Copies the bytes into an array
+     * @since 1.2
+     */
+    public byte[] toByteArray() {
+        byte[] array = new byte[ bytes.remaining() ];
+        bytes.duplicate().get( array );
+        return array;
+    }
+
+    @Override
+    public Binary getPrefixByte() {
+        return TagRegistry.prefixByte( PREFIX, getLength() );
+    }
+
+    @Override
+    public byte getPrefix() {
+        return TagRegistry.prefix( TagRegistry.BYTE_ARRAY, getLength() );
+    }
+
+    /**
+     * Parses a CTag code of a byte array as a view.
+     * @param input The {@link CTagInput} stream that possibly begins with this
+     *              byte array data.
+     * @return The parsed {@link TagByteBuffer} if parsed with success.
+     * @exception IOException If the {@link CTagInput}'s underlying stream
+     *                        throws an IOException.
+     * @since 1.2
+     */
+    public static TagByteBuffer parse( CTagInput input ) throws IOException, EndException, NegativeLengthException {
+        short len = input.readShort();
+        if( len < 0 ) throw new NegativeLengthException( "Found array with negative length" );
+        return parse( input, len );
+    }
+
+    /**
+     * Parses the bytes of a byte array whose length is already read
+     */
+    static TagByteBuffer parse( CTagInput input, int len ) throws IOException, EndException {
+        return new TagByteBuffer( input.view( len ) );
+    }
+
+    public String toString() {
+        StringBuilder builder = new StringBuilder( "BYTE_ARRAY [\n" );
+        for( int i = 0; i < bytes.remaining(); i++ ) {
+            builder.append( "    " );
+            builder.append( i );
+            builder.append( ": " );
+            builder.append( bytes.get( bytes.position() + i ) );
+            builder.append( "\n" );
+        }
+        builder.append( "]" );
+        return builder.toString();
+    }
+}
@@ -2,6 +2,7 @@ package ctag.tags;
 
 import ctag.Binary;
 import ctag.CTagInput;
+import ctag.CTagOutput;
 import ctag.Compound;
 import ctag.KeyValuePair;
 import ctag.exception.CTagInvalidException;
@@ -12,7 +13,7 @@ import java.io.IOException;
 import java.util.Map;
 
 /**
- * The tag that represents a string-value map, order not preserved.
+ * The tag that represents a string-value map, insertion order is preserved.
  * <br/><br/>
  * <table>
  * <tr>
@@ -42,6 +43,8 @@ import java.util.Map;
  * @since 1.0
  */
 public class TagCompound implements ITag<Compound> {
+    private static final Binary PREFIX = new Binary( TagRegistry.COMPOUND );
+
     private Compound compound;
 
     public TagCompound() {
@@ -67,6 +70,11 @@ public class TagCompound implements ITag<Compound> {
         return builder.build();
     }
 
+    @Override
+    public void write( CTagOutput output ) throws IOException {
+        compound.write( output );
+    }
+
     @Override
     public Compound getValue() {
         return compound;
@@ -79,7 +87,12 @@ public class TagCompound implements ITag<Compound> {
 
     @Override
     public Binary getPrefixByte() {
-        return new Binary( ( byte ) 0b1001 );
+        return PREFIX;
+    }
+
+    @Override
+    public byte getPrefix() {
+        return TagRegistry.COMPOUND;
     }
 
     /**
@@ -96,52 +109,17 @@ public class TagCompound implements ITag<Compound> {
         Compound value = new Compound();
         boolean foundEnd = false;
         while( !foundEnd ) {
-            Binary prefixBin = input.read( 1 );
-            byte prefix = prefixBin.getByte( 0 );
-            if( prefix == 0 ) {
+            byte prefix = input.readByte();
+            if( prefix == TagRegistry.END ) {
                 foundEnd = true;
             } else {
-                String name = TagString.parse( input ).getValue();
-                if( prefix == 1 ) {
-                    value.put( name, TagByte.parse( input ) );
-                } else if( prefix == 2 ) {
-                    value.put( name, TagShort.parse( input ) );
-                } else if( prefix == 3 ) {
-                    value.put( name, TagInteger.parse( input ) );
-                } else if( prefix == 4 ) {
-                    value.put( name, TagLong.parse( input ) );
-                } else if( prefix == 5 ) {
-                    value.put( name, TagFloat.parse( input ) );
-                } else if( prefix == 6 ) {
-                    value.put( name, TagDouble.parse( input ) );
-                } else if( prefix == 7 ) {
-                    value.put( name, TagString.parse( input ) );
-                } else if( prefix == 8 ) {
-                    value.put( name, TagArray.parse( input ) );
-                } else if( prefix == 9 ) {
-                    value.put( name, TagCompound.parse( input ) );
-                } else if( prefix == 10 ) {
-                    value.put( name, TagNull.parse( input ) );
-                } else if( prefix == 11 ) {
-                    value.put( name, TagBoolean.parse( input ) );
-                } else if( prefix == 12 ) {
-                    value.put( name, TagByteArray.parse( input ) );
-                } else if( prefix == 13 ) {
-                    value.put( name, TagShortArray.parse( input ) );
-                } else if( prefix == 14 ) {
-                    value.put( name, TagIntegerArray.parse( input ) );
-                } else if( prefix == 15 ) {
-                    value.put( name, TagLongArray.parse( input ) );
-                } else if( prefix == 16 ) {
-                    value.put( name, TagFloatArray.parse( input ) );
-                } else if( prefix == 17 ) {
-                    value.put( name, TagDoubleArray.parse( input ) );
-                } else if( prefix == 18 ) {
-                    value.put( name, TagBooleanArray.parse( input ) );
-                } else if( prefix == 19 ) {
-                    value.put( name, TagStringArray.parse( input ) );
+                String name = input.readKey();
+                if( input.isLazy() ) {
+                    input.startCapture();
+                    TagRegistry.skip( prefix, input );
+                    value.put( name, new TagLazy( prefix, input.endCapture(), input ) );
                 } else {
-                    throw new CTagInvalidException( "Found invalid prefix: '" + prefixBin + "'." );
+                    value.put( name, TagRegistry.parse( prefix, input ) );
                 }
             }
         }
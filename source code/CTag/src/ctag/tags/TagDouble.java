@@ -2,6 +2,7 @@ package ctag.tags;
 
 import ctag.Binary;
 import ctag.CTagInput;
+import ctag.CTagOutput;
 import ctag.exception.EndException;
 
 import java.io.IOException;
@@ -33,6 +34,8 @@ import java.io.IOException;
  * @since 1.0
  */
 public class TagDouble implements ITag<Double> {
+    private static final Binary PREFIX = new Binary( TagRegistry.DOUBLE );
+
     private double value;
     private long bits;
 
@@ -88,6 +91,11 @@ public class TagDouble implements ITag<Double> {
         } );
     }
 
+    @Override
+    public void write( CTagOutput output ) throws IOException {
+        output.writeLong( bits );
+    }
+
     @Override
     public Double getValue() {
         return value;
@@ -101,7 +109,12 @@ public class TagDouble implements ITag<Double> {
 
     @Override
     public Binary getPrefixByte() {
-        return new Binary( ( byte ) 0b110 );
+        return PREFIX;
+    }
+
+    @Override
+    public byte getPrefix() {
+        return TagRegistry.DOUBLE;
     }
 
     /**
@@ -114,17 +127,7 @@ public class TagDouble implements ITag<Double> {
      * @since 1.0
      */
     public static TagDouble parse( CTagInput input ) throws IOException, EndException {
-        Binary bytes = input.read( 8 );
-        long byte1 = bytes.getByte( 7 ) & 0xff;
-        long byte2 = bytes.getByte( 6 ) & 0xff;
-        long byte3 = bytes.getByte( 5 ) & 0xff;
-        long byte4 = bytes.getByte( 4 ) & 0xff;
-        long byte5 = bytes.getByte( 3 ) & 0xff;
-        long byte6 = bytes.getByte( 2 ) & 0xff;
-        long byte8 = bytes.getByte( 0 ) & 0xff;
-        long byte7 = bytes.getByte( 1 ) & 0xff;
-        long value = ( byte8 << 56 ) + ( byte7 << 48 ) + ( byte6 << 40 ) + ( byte5 << 32 ) + ( byte4 << 24 ) + ( byte3 << 16 ) + ( byte2 << 8 ) + byte1;
-        return new TagDouble( Double.longBitsToDouble( value ) );
+        return new TagDouble( input.readDouble() );
     }
 
     public String toString() {
@@ -2,10 +2,12 @@ package ctag.tags;
 
 import ctag.Binary;
 import ctag.CTagInput;
+import ctag.CTagOutput;
 import ctag.exception.EndException;
 import ctag.exception.NegativeLengthException;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * The tag that represents a double precision floating point array.
@@ -35,6 +37,8 @@ import java.io.IOException;
  * @since 1.0
  */
 public class TagDoubleArray implements ITag<double[]> {
+    private static final Binary PREFIX = new Binary( TagRegistry.DOUBLE_ARRAY );
+
     private double[] array;
 
     public TagDoubleArray( double... doubles ) {
@@ -43,12 +47,20 @@ public class TagDoubleArray implements ITag<double[]> {
 
     @Override
     public Binary encode() {
-        Binary.Builder builder = new Binary.Builder();
-        builder.append( new TagShort( ( short ) array.length ).encode() );
-        for( double s : array ) {
-            builder.append( new TagDouble( s ).encode() );
+        if( array.length > Short.MAX_VALUE ) {
+            return TagRegistry.encode( this );
         }
-        return builder.build();
+        byte[] bytes = new byte[ 2 + array.length * 8 ];
+        ByteBuffer buffer = ByteBuffer.wrap( bytes );
+        buffer.putShort( ( short ) array.length );
+        buffer.asDoubleBuffer().put( array );
+        return new Binary( bytes );
+    }
+
+    @Override
+    public void write( CTagOutput output ) throws IOException {
+        TagRegistry.writeLength( output, TagRegistry.DOUBLE_ARRAY, array.length );
+        output.writeDoubles( array, 0, array.length );
     }
 
     @Override
@@ -63,7 +75,12 @@ public class TagDoubleArray implements ITag<double[]> {
 
     @Override
     public Binary getPrefixByte() {
-        return new Binary( ( byte ) 0b10001 );
+        return TagRegistry.prefixByte( PREFIX, array.length );
+    }
+
+    @Override
+    public byte getPrefix() {
+        return TagRegistry.prefix( TagRegistry.DOUBLE_ARRAY, array.length );
     }
 
     /**
@@ -76,12 +93,17 @@ public class TagDoubleArray implements ITag<double[]> {
      * @since 1.0
      */
     public static TagDoubleArray parse( CTagInput input ) throws IOException, EndException, NegativeLengthException {
-        short len = TagShort.parse( input ).getValue();
+        short len = input.readShort();
         if( len < 0 ) throw new NegativeLengthException( "Found array with negative length" );
+        return parse( input, len );
+    }
+
+    /**
+     * Parses the values of a double array whose length is already read
+     */
+    static TagDoubleArray parse( CTagInput input, int len ) throws IOException, EndException, NegativeLengthException {
         double[] doubles = new double[ len ];
-        for( int i = 0; i < len; i++ ) {
-            doubles[ i ] = TagDouble.parse( input ).getValue();
-        }
+        input.readDoubles( doubles, 0, len );
         return new TagDoubleArray( doubles );
     }
 
@@ -32,6 +32,7 @@ import ctag.Binary;
  */
 @Deprecated
 public class TagEnd implements ITag<Object> {
+    private static final Binary PREFIX = new Binary( TagRegistry.END );
 
     @Override
     public Binary encode() {
@@ -50,7 +51,12 @@ public class TagEnd implements ITag<Object> {
 
     @Override
     public Binary getPrefixByte() {
-        return new Binary( ( byte ) 0 );
+        return PREFIX;
+    }
+
+    @Override
+    public byte getPrefix() {
+        return TagRegistry.END;
     }
 
 }
@@ -2,6 +2,7 @@ package ctag.tags;
 
 import ctag.Binary;
 import ctag.CTagInput;
+import ctag.CTagOutput;
 import ctag.exception.EndException;
 
 import java.io.IOException;
@@ -33,6 +34,8 @@ import java.io.IOException;
  * @since 1.0
  */
 public class TagFloat implements ITag<Float> {
+    private static final Binary PREFIX = new Binary( TagRegistry.FLOAT );
+
     private float value;
     private int bits;
 
@@ -70,6 +73,11 @@ public class TagFloat implements ITag<Float> {
         } );
     }
 
+    @Override
+    public void write( CTagOutput output ) throws IOException {
+        output.writeInt( bits );
+    }
+
     @Override
     public Float getValue() {
         return value;
@@ -83,7 +91,12 @@ public class TagFloat implements ITag<Float> {
 
     @Override
     public Binary getPrefixByte() {
-        return new Binary( ( byte ) 0b101 );
+        return PREFIX;
+    }
+
+    @Override
+    public byte getPrefix() {
+        return TagRegistry.FLOAT;
     }
 
     /**
@@ -96,13 +109,7 @@ public class TagFloat implements ITag<Float> {
      * @since 1.0
      */
     public static TagFloat parse( CTagInput input ) throws IOException, EndException {
-        Binary bytes = input.read( 4 );
-        int byte1 = bytes.getByte( 3 ) & 0xff;
-        int byte2 = bytes.getByte( 2 ) & 0xff;
-        int byte3 = bytes.getByte( 1 ) & 0xff;
-        int byte4 = bytes.getByte( 0 ) & 0xff;
-        int value = ( byte4 << 24 ) + ( byte3 << 16 ) + ( byte2 << 8 ) + byte1;
-        return new TagFloat( Float.intBitsToFloat( value ) );
+        return new TagFloat( input.readFloat() );
     }
 
     public String toString() {
@@ -2,10 +2,12 @@ package ctag.tags;
 
 import ctag.Binary;
 import ctag.CTagInput;
+import ctag.CTagOutput;
 import ctag.exception.EndException;
 import ctag.exception.NegativeLengthException;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * The tag that represents a single precision floating point array.
@@ -35,6 +37,8 @@ import java.io.IOException;
  * @since 1.0
  */
 public class TagFloatArray implements ITag<float[]> {
+    private static final Binary PREFIX = new Binary( TagRegistry.FLOAT_ARRAY );
+
     private float[] array;
 
     public TagFloatArray( float... floats ) {
@@ -43,12 +47,20 @@ public class TagFloatArray implements ITag<float[]> {
 
     @Override
     public Binary encode() {
-        Binary.Builder builder = new Binary.Builder();
-        builder.append( new TagShort( ( short ) array.length ).encode() );
-        for( float s : array ) {
-            builder.append( new TagFloat( s ).encode() );
+        if( array.length > Short.MAX_VALUE ) {
+            return TagRegistry.encode( this );
         }
-        return builder.build();
+        byte[] bytes = new byte[ 2 + array.length * 4 ];
+        ByteBuffer buffer = ByteBuffer.wrap( bytes );
+        buffer.putShort( ( short ) array.length );
+        buffer.asFloatBuffer().put( array );
+        return new Binary( bytes );
+    }
+
+    @Override
+    public void write( CTagOutput output ) throws IOException {
+        TagRegistry.writeLength( output, TagRegistry.FLOAT_ARRAY, array.length );
+        output.writeFloats( array, 0, array.length );
     }
 
     @Override
@@ -63,7 +75,12 @@ public class TagFloatArray implements ITag<float[]> {
 
     @Override
     public Binary getPrefixByte() {
-        return new Binary( ( byte ) 0b10000 );
+        return TagRegistry.prefixByte( PREFIX, array.length );
+    }
+
+    @Override
+    public byte getPrefix() {
+        return TagRegistry.prefix( TagRegistry.FLOAT_ARRAY, array.length );
     }
 
     /**
@@ -76,12 +93,17 @@ public class TagFloatArray implements ITag<float[]> {
      * @since 1.0
      */
     public static TagFloatArray parse( CTagInput input ) throws IOException, EndException, NegativeLengthException {
-        short len = TagShort.parse( input ).getValue();
+        short len = input.readShort();
         if( len < 0 ) throw new NegativeLengthException( "Found array with negative length" );
+        return parse( input, len );
+    }
+
+    /**
+     * Parses the values of a float array whose length is already read
+     */
+    static TagFloatArray parse( CTagInput input, int len ) throws IOException, EndException, NegativeLengthException {
         float[] floats = new float[ len ];
-        for( int i = 0; i < len; i++ ) {
-            floats[ i ] = TagFloat.parse( input ).getValue();
-        }
+        input.readFloats( floats, 0, len );
         return new TagFloatArray( floats );
     }
 
@@ -2,6 +2,7 @@ package ctag.tags;
 
 import ctag.Binary;
 import ctag.CTagInput;
+import ctag.CTagOutput;
 import ctag.exception.EndException;
 
 import java.io.IOException;
@@ -33,14 +34,34 @@ import java.io.IOException;
  * @since 1.0
  */
 public class TagInteger implements ITag<Integer> {
+    private static final Binary PREFIX = new Binary( TagRegistry.INTEGER );
+
+    // Values from -128 up to and including 1023 are cached
+    private static final int CACHE_LOW = -128;
+    private static final TagInteger[] CACHE = new TagInteger[ 1152 ];
+
+    static {
+        for( int i = 0; i < CACHE.length; i++ ) {
+            CACHE[ i ] = new TagInteger( i + CACHE_LOW, true );
+        }
+    }
+
     private int value;
+    private final boolean cached;
 
     public TagInteger( int value ) {
         this.value = value;
+        cached = false;
+    }
+
+    private TagInteger( int value, boolean cached ) {
+        this.value = value;
+        this.cached = cached;
     }
 
     public TagInteger() {
         value = 0;
+        cached = false;
     }
 
     private byte get1() {
@@ -59,6 +80,23 @@ public class TagInteger implements ITag<Integer> {
         return ( byte ) ( value >>> 24 & 0xff );
     }
 
+    /**
+     * Returns a tag for an int. Small values, from -128 up to and including
+     * 1023, return a shared tag that can not be changed:
+     * {@link #setValue(Integer)} throws an
+     * {@link UnsupportedOperationException}. Other values return a new tag.
+     * @param value The integer
+     * @return The tag
+     * @since 1.2
+     */
+    public static TagInteger valueOf( int value ) {
+        int index = value - CACHE_LOW;
+        if( index >= 0 && index < CACHE.length ) {
+            return CACHE[ index ];
+        }
+        return new TagInteger( value );
+    }
+
     @Override
     public Binary encode() {
         return new Binary( new byte[] {
@@ -67,6 +105,11 @@ public class TagInteger implements ITag<Integer> {
         } );
     }
 
+    @Override
+    public void write( CTagOutput output ) throws IOException {
+        output.writeInt( value );
+    }
+
     @Override
     public Integer getValue() {
         return value;
@@ -74,12 +117,20 @@ public class TagInteger implements ITag<Integer> {
 
     @Override
     public void setValue( Integer value ) {
+        if( cached ) {
+            throw new UnsupportedOperationException( "Cached TagInteger can not be changed." );
+        }
         this.value = value;
     }
 
     @Override
     public Binary getPrefixByte() {
-        return new Binary( ( byte ) 0b11 );
+        return PREFIX;
+    }
+
+    @Override
+    public byte getPrefix() {
+        return TagRegistry.INTEGER;
     }
 
     /**
@@ -92,13 +143,8 @@ public class TagInteger implements ITag<Integer> {
      * @since 1.0
      */
     public static TagInteger parse( CTagInput input ) throws IOException, EndException {
-        Binary bytes = input.read( 4 );
-        int byte1 = bytes.getByte( 3 ) & 0xff;
-        int byte2 = bytes.getByte( 2 ) & 0xff;
-        int byte3 = bytes.getByte( 1 ) & 0xff;
-        int byte4 = bytes.getByte( 0 ) & 0xff;
-        int value = ( byte4 << 24 ) + ( byte3 << 16 ) + ( byte2 << 8 ) + byte1;
-        return new TagInteger( value );
+        int value = input.readInt();
+        return input.isCached() ? valueOf( value ) : new TagInteger( value );
     }
 
     public String toString() {
@@ -2,10 +2,12 @@ package ctag.tags;
 
 import ctag.Binary;
 import ctag.CTagInput;
+import ctag.CTagOutput;
 import ctag.exception.EndException;
 import ctag.exception.NegativeLengthException;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * The tag that represents a signed 32bit integer array.
@@ -35,6 +37,8 @@ import java.io.IOException;
  * @since 1.0
  */
 public class TagIntegerArray implements ITag<int[]> {
+    private static final Binary PREFIX = new Binary( TagRegistry.INTEGER_ARRAY );
+
     private int[] array;
 
     public TagIntegerArray( int... ints ) {
@@ -43,12 +47,20 @@ public class TagIntegerArray implements ITag<int[]> {
 
     @Override
     public Binary encode() {
-        Binary.Builder builder = new Binary.Builder();
-        builder.append( new TagShort( ( short ) array.length ).encode() );
-        for( int s : array ) {
-            builder.append( new TagInteger( s ).encode() );
+        if( array.length > Short.MAX_VALUE ) {
+            return TagRegistry.encode( this );
         }
-        return builder.build();
+        byte[] bytes = new byte[ 2 + array.length * 4 ];
+        ByteBuffer buffer = ByteBuffer.wrap( bytes );
+        buffer.putShort( ( short ) array.length );
+        buffer.asIntBuffer().put( array );
+        return new Binary( bytes );
+    }
+
+    @Override
+    public void write( CTagOutput output ) throws IOException {
+        TagRegistry.writeLength( output, TagRegistry.INTEGER_ARRAY, array.length );
+        output.writeInts( array, 0, array.length );
     }
 
     @Override
@@ -63,7 +75,12 @@ public class TagIntegerArray implements ITag<int[]> {
 
     @Override
     public Binary getPrefixByte() {
-        return new Binary( ( byte ) 0b1110 );
+        return TagRegistry.prefixByte( PREFIX, array.length );
+    }
+
+    @Override
+    public byte getPrefix() {
+        return TagRegistry.prefix( TagRegistry.INTEGER_ARRAY, array.length );
     }
 
     /**
@@ -76,12 +93,17 @@ public class TagIntegerArray implements ITag<int[]> {
      * @since 1.0
      */
     public static TagIntegerArray parse( CTagInput input ) throws IOException, EndException, NegativeLengthException {
-        short len = TagShort.parse( input ).getValue();
+        short len = input.readShort();
         if( len < 0 ) throw new NegativeLengthException( "Found array with negative length" );
+        return parse( input, len );
+    }
+
+    /**
+     * Parses the values of a integer array whose length is already read
+     */
+    static TagIntegerArray parse( CTagInput input, int len ) throws IOException, EndException, NegativeLengthException {
         int[] ints = new int[ len ];
-        for( int i = 0; i < len; i++ ) {
-            ints[ i ] = TagInteger.parse( input ).getValue();
-        }
+        input.readInts( ints, 0, len );
         return new TagIntegerArray( ints );
     }
 
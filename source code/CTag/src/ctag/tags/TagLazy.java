@@ -0,0 +1,141 @@
+package ctag.tags;
+
+import ctag.Binary;
+import ctag.CTagInput;
+import ctag.CTagOutput;
+import ctag.exception.CTagException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A compound value that is not decoded yet. Lazily decoded compounds hold
+ * these instead of decoded tags: they keep the prefix and the raw payload, and
+ * decode it the first time the tag is asked for. The {@link ctag.Compound}
+ * getters replace them by the decoded tag automatically.
+ * <br/><br/>
+ * While it is not decoded, the tag encodes by passing the raw payload through.
+ * Compounds inside the payload are decoded lazily as well.
+ * @since 1.2
+ */
+public class TagLazy implements ITag<Object> {
+    private final byte prefix;
+    private final ByteBuffer payload;
+    // The input whose decoding options are used, null to decode lazily
+    private CTagInput parent;
+    private ITag tag;
+
+    /**
+     * @param prefix  The prefix of the tag type
+     * @param payload The raw, encoded payload
+     * @since 1.2
+     */
+    public TagLazy( byte prefix, ByteBuffer payload ) {
+        this.prefix = prefix;
+        this.payload = payload.asReadOnlyBuffer();
+    }
+
+    /**
+     * @param prefix  The prefix of the tag type
+     * @param payload The raw, encoded payload
+     * @param parent  The input the payload was read from, whose decoding
+     *                options are used to decode the payload
+     * @since 1.2
+     */
+    public TagLazy( byte prefix, ByteBuffer payload, CTagInput parent ) {
+        this.prefix = prefix;
+        this.payload = payload.asReadOnlyBuffer();
+        this.parent = parent;
+    }
+
+    /**
+     * Returns the decoded tag, and decodes it if that did not happen yet.
+     * @return The decoded tag
+     * @exception IllegalStateException When the payload can not be decoded.
+     * @since 1.2
+     */
+    public ITag getTag() {
+        if( tag == null ) {
+            CTagInput input;
+            if( parent == null ) {
+                input = new CTagInput( payload.duplicate() );
+                input.setLazy( true );
+            } else {
+                input = parent.derive( payload.duplicate() );
+            }
+            try {
+                tag = TagRegistry.parse( prefix, input );
+                parent = null;
+            } catch( IOException | CTagException exception ) {
+                throw new IllegalStateException( "Lazy tag could not be decoded.", exception );
+            }
+        }
+        return tag;
+    }
+
+    /**
+     * Checks whether the payload is decoded already
+     * @since 1.2
+     */
+    public boolean isDecoded() {
+        return tag != null;
+    }
+
+    /**
+     * Returns the raw payload, as a read-only buffer
+     * @since 1.2
+     */
+    public ByteBuffer getPayload() {
+        return payload.duplicate();
+    }
+
+    @Override
+    public Binary encode() {
+        if( tag != null ) {
+            return tag.encode();
+        }
+        byte[] bytes = new byte[ payload.remaining() ];
+        payload.duplicate().get( bytes );
+        return new Binary( bytes );
+    }
+
+    @Override
+    public void write( CTagOutput output ) throws IOException {
+        if( tag != null ) {
+            tag.write( output );
+        } else {
+            output.write( payload );
+        }
+    }
+
+    @Override
+    public Object getValue() {
+        return getTag().getValue();
+    }
+
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public void setValue( Object value ) {
+        getTag().setValue( value );
+    }
+
+    @Override
+    public Binary getPrefixByte() {
+        if( tag != null ) {
+            return tag.getPrefixByte();
+        }
+        return TagRegistry.prefixByte( prefix );
+    }
+
+    @Override
+    public byte getPrefix() {
+        if( tag != null ) {
+            return tag.getPrefix();
+        }
+        return prefix;
+    }
+
+    public String toString() {
+        return getTag().toString();
+    }
+}
@@ -2,6 +2,7 @@ package ctag.tags;
 
 import ctag.Binary;
 import ctag.CTagInput;
+import ctag.CTagOutput;
 import ctag.exception.EndException;
 
 import java.io.IOException;
@@ -33,6 +34,8 @@ import java.io.IOException;
  * @since 1.0
  */
 public class TagLong implements ITag<Long> {
+    private static final Binary PREFIX = new Binary( TagRegistry.LONG );
+
     private long value;
 
     public TagLong( long value ) {
@@ -85,6 +88,11 @@ public class TagLong implements ITag<Long> {
         } );
     }
 
+    @Override
+    public void write( CTagOutput output ) throws IOException {
+        output.writeLong( value );
+    }
+
     @Override
     public Long getValue() {
         return value;
@@ -97,7 +105,12 @@ public class TagLong implements ITag<Long> {
 
     @Override
     public Binary getPrefixByte() {
-        return new Binary( ( byte ) 0b100 );
+        return PREFIX;
+    }
+
+    @Override
+    public byte getPrefix() {
+        return TagRegistry.LONG;
     }
 
     /**
@@ -110,17 +123,7 @@ public class TagLong implements ITag<Long> {
      * @since 1.0
      */
     public static TagLong parse( CTagInput input ) throws IOException, EndException {
-        Binary bytes = input.read( 8 );
-        long byte1 = bytes.getByte( 7 ) & 0xff;
-        long byte2 = bytes.getByte( 6 ) & 0xff;
-        long byte3 = bytes.getByte( 5 ) & 0xff;
-        long byte4 = bytes.getByte( 4 ) & 0xff;
-        long byte5 = bytes.getByte( 3 ) & 0xff;
-        long byte6 = bytes.getByte( 2 ) & 0xff;
-        long byte7 = bytes.getByte( 1 ) & 0xff;
-        long byte8 = bytes.getByte( 0 ) & 0xff;
-        long value = ( byte8 << 56 ) + ( byte7 << 48 ) + ( byte6 << 40 ) + ( byte5 << 32 ) + ( byte4 << 24 ) + ( byte3 << 16 ) + ( byte2 << 8 ) + byte1;
-        return new TagLong( value );
+        return new TagLong( input.readLong() );
     }
 
     public String toString() {
@@ -2,10 +2,12 @@ package ctag.tags;
 
 import ctag.Binary;
 import ctag.CTagInput;
+import ctag.CTagOutput;
 import ctag.exception.EndException;
 import ctag.exception.NegativeLengthException;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * The tag that represents a signed 64bit integer array.
@@ -35,6 +37,8 @@ import java.io.IOException;
  * @since 1.0
  */
 public class TagLongArray implements ITag<long[]> {
+    private static final Binary PREFIX = new Binary( TagRegistry.LONG_ARRAY );
+
     private long[] array;
 
     public TagLongArray( long... longs ) {
@@ -43,12 +47,20 @@ public class TagLongArray implements ITag<long[]> {
 
     @Override
     public Binary encode() {
-        Binary.Builder builder = new Binary.Builder();
-        builder.append( new TagShort( ( short ) array.length ).encode() );
-        for( long s : array ) {
-            builder.append( new TagLong( s ).encode() );
+        if( array.length > Short.MAX_VALUE ) {
+            return TagRegistry.encode( this );
         }
-        return builder.build();
+        byte[] bytes = new byte[ 2 + array.length * 8 ];
+        ByteBuffer buffer = ByteBuffer.wrap( bytes );
+        buffer.putShort( ( short ) array.length );
+        buffer.asLongBuffer().put( array );
+        return new Binary( bytes );
+    }
+
+    @Override
+    public void write( CTagOutput output ) throws IOException {
+        TagRegistry.writeLength( output, TagRegistry.LONG_ARRAY, array.length );
+        output.writeLongs( array, 0, array.length );
     }
 
     @Override
@@ -63,7 +75,12 @@ public class TagLongArray implements ITag<long[]> {
 
     @Override
     public Binary getPrefixByte() {
-        return new Binary( ( byte ) 0b1111 );
+        return TagRegistry.prefixByte( PREFIX, array.length );
+    }
+
+    @Override
+    public byte getPrefix() {
+        return TagRegistry.prefix( TagRegistry.LONG_ARRAY, array.length );
     }
 
     /**
@@ -76,12 +93,17 @@ public class TagLongArray implements ITag<long[]> {
      * @since 1.0
      */
     public static TagLongArray parse( CTagInput input ) throws IOException, EndException, NegativeLengthException {
-        short len = TagShort.parse( input ).getValue();
+        short len = input.readShort();
         if( len < 0 ) throw new NegativeLengthException( "Found array with negative length" );
+        return parse( input, len );
+    }
+
+    /**
+     * Parses the values of a long array whose length is already read
+     */
+    static TagLongArray parse( CTagInput input, int len ) throws IOException, EndException, NegativeLengthException {
         long[] longs = new long[ len ];
-        for( int i = 0; i < len; i++ ) {
-            longs[ i ] = TagLong.parse( input ).getValue();
-        }
+        input.readLongs( longs, 0, len );
         return new TagLongArray( longs );
     }
 
@@ -0,0 +1,138 @@
+package ctag.tags;
+
+import ctag.Binary;
+import ctag.CTagInput;
+import ctag.CTagOutput;
+import ctag.exception.CTagInvalidException;
+import ctag.exception.EndException;
+import ctag.exception.NegativeLengthException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * The tag that represents a long array as a view over encoded bytes. It
+ * is encoded exactly like a {@link TagLongArray}, and uses the same prefix,
+ * but the values are not copied out of the buffer they were decoded from.
+ * When that buffer maps a file, the values stay in the file until they are
+ * read.
+ * <br/><br/>
+ * Decoders produce this tag for integer arrays when
+ * {@link ctag.CTagDecoder#setViews(boolean)} is enabled.
+ * @since 1.2
+ */
+public class TagLongBuffer implements ITag<LongBuffer> {
+    private static final Binary PREFIX = new Binary( TagRegistry.LONG_ARRAY );
+
+    // The encoded values, big-endian
+    private ByteBuffer bytes;
+
+    /**
+     * @param bytes The encoded values: 8 bytes per value, big-endian. The
+     *              remaining bytes of the buffer are used, without copying.
+     * @since 1.2
+     */
+    public TagLongBuffer( ByteBuffer bytes ) {
+        if( bytes.remaining() % 8 != 0 ) {
+            throw new IllegalArgumentException( "Found " + bytes.remaining() + " bytes, which is no multiple of 8." );
+        }
+        this.bytes = bytes.slice();
+    }
+
+    @Override
+    public Binary encode() {
+        return TagRegistry.encode( this );
+    }
+
+    @Override
+    public void write( CTagOutput output ) throws IOException {
+        TagRegistry.writeLength( output, TagRegistry.LONG_ARRAY, getLength() );
+        output.write( bytes );
+    }
+
+    /**
+     * Returns a view over the values. Changes to the values are visible in
+     * this tag, when the underlying buffer is writable.
+     */
+    @Override
+    public LongBuffer getValue() {
+        return bytes.duplicate().order( ByteOrder.BIG_ENDIAN ).asLongBuffer();
+    }
+
+    /**
+     * Sets the values. They are copied into a new buffer.
+     */
+    @Override
+    public void setValue( LongBuffer value ) {
+        ByteBuffer copy = ByteBuffer.allocate( value.remaining() * 8 );
+        copy.asLongBuffer().put( value.duplicate() );
+        bytes = copy;
+    }
+
+    /**
+     * Returns the amount of values
+     * @since 1.2
+     */
+    public int getLength() {
+        return bytes.remaining() / 8;
+    }
+
+    /**
+     * Copies the values into an array
+     * @since 1.2
+     */
+    public long[] toLongArray() {
+        long[] longs = new long[ getLength() ];
+        getValue().get( longs );
+        return longs;
+    }
+
+    @Override
+    public Binary getPrefixByte() {
+        return TagRegistry.prefixByte( PREFIX, getLength() );
+    }
+
+    @Override
+    public byte getPrefix() {
+        return TagRegistry.prefix( TagRegistry.LONG_ARRAY, getLength() );
+    }
+
+    /**
+     * Parses a CTag code of a long array as a view.
+     * @param input The {@link CTagInput} stream that possibly begins with this
+     *              long array data.
+     * @return The parsed {@link TagLongBuffer} if parsed with success.
+     * @exception IOException If the {@link CTagInput}'s underlying stream
+     *                        throws an IOException.
+     * @since 1.2
+     */
+    public static TagLongBuffer parse( CTagInput input ) throws IOException, CTagInvalidException, EndException, NegativeLengthException {
+        short len = input.readShort();
+        if( len < 0 ) throw new NegativeLengthException( "Found array with negative length" );
+        return parse( input, len );
+    }
+
+    /**
+     * Parses the values of a long array whose length is already read
+     */
+    static TagLongBuffer parse( CTagInput input, int len ) throws IOException, CTagInvalidException, EndException {
+        if( len > Integer.MAX_VALUE / 8 ) throw new CTagInvalidException( "Found array that is too long to view." );
+        return new TagLongBuffer( input.view( len * 8 ) );
+    }
+
+    public String toString() {
+        LongBuffer values = getValue();
+        StringBuilder builder = new StringBuilder( "LONG_ARRAY [\n" );
+        for( int i = 0; i < values.limit(); i++ ) {
+            builder.append( "    " );
+            builder.append( i );
+            builder.append( ": " );
+            builder.append( values.get( i ) );
+            builder.append( "\n" );
+        }
+        builder.append( "]" );
+        return builder.toString();
+    }
+}
@@ -2,6 +2,7 @@ package ctag.tags;
 
 import ctag.Binary;
 import ctag.CTagInput;
+import ctag.CTagOutput;
 
 /**
  * The tag that represents {@code null}.
@@ -30,12 +31,24 @@ import ctag.CTagInput;
  * @since 1.0
  */
 public class TagNull implements ITag<Object> {
+    private static final Binary PREFIX = new Binary( TagRegistry.NULL );
+
+    /**
+     * Shared null tag. Null tags have no state, so this instance can be used
+     * everywhere.
+     * @since 1.2
+     */
+    public static final TagNull INSTANCE = new TagNull();
 
     @Override
     public Binary encode() {
         return new Binary();
     }
 
+    @Override
+    public void write( CTagOutput output ) {
+    }
+
     @Override
     public Object getValue() {
         return null;
@@ -48,7 +61,12 @@ public class TagNull implements ITag<Object> {
 
     @Override
     public Binary getPrefixByte() {
-        return new Binary( ( byte ) 0b1010 );
+        return PREFIX;
+    }
+
+    @Override
+    public byte getPrefix() {
+        return TagRegistry.NULL;
     }
 
     /**
@@ -59,7 +77,7 @@ public class TagNull implements ITag<Object> {
      * @since 1.0
      */
     public static TagNull parse( CTagInput input ) {
-        return new TagNull();
+        return input.isCached() ? INSTANCE : new TagNull();
     }
 
     public String toString() {
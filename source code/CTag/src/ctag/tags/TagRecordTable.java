@@ -0,0 +1,409 @@
+package ctag.tags;
+
+import ctag.Array;
+import ctag.Binary;
+import ctag.CTagInput;
+import ctag.CTagOutput;
+import ctag.Compound;
+import ctag.KeyValuePair;
+import ctag.exception.CTagInvalidException;
+import ctag.exception.EndException;
+import ctag.exception.NegativeLengthException;
+import ctag.exception.NoSuchKeyException;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.util.BitSet;
+
+/**
+ * The tag that represents a list of records: compounds that all have the same
+ * keys. Instead of repeating every key and prefix in every record, the keys
+ * are stored once and each field is stored as a column. Integer fields become
+ * an integer array, string fields a string array, and so on. Fields with
+ * mixed types become an any-type array.
+ * <br/><br/>
+ * <table>
+ * <tr>
+ * <td><b>Binary prefix: </b></td>
+ * <td><code>00010100 - 14</code></td>
+ * </tr>
+ * <tr>
+ * <td><b>Minimal payload: </b></td>
+ * <td>3 bytes</td>
+ * </tr>
+ * <tr>
+ * <td><b>Maximal payload: </b></td>
+ * <td>Infinite</td>
+ * </tr>
+ * </table>
+ * The record table binary starts with the amount of rows as a
+ * variable-length integer, and two bytes holding the amount of columns. Each
+ * column follows, existing of the key (2 bytes = length, 1-byte
+ * characters...), the prefix of the array type and the array, which has one
+ * element per row. Columns of more than 32767 rows are written as
+ * {@link TagRegistry#LARGE} arrays.
+ * <br/>
+ * <pre>
+ * Prefix       Rows     Columns          Key length       Key      Column
+ * 00010100     00000010 0000000000000001 0000000000000001 01100001 00001110 ...
+ * RECORD_TABLE rows = 2 columns = 1      = 1              = "a"    INTEGER_ARRAY
+ * </pre>
+ * Use {@link #fromArray(Array)} to make a table of an array of compounds, and
+ * {@link #toArray()} to turn it back.
+ * @since 1.2
+ */
+public class TagRecordTable implements ITag<Array> {
+    private static final Binary PREFIX = new Binary( TagRegistry.RECORD_TABLE );
+
+    private int rows;
+    private String[] keys;
+    private ITag[] columns;
+
+    /**
+     * Makes an empty table
+     * @since 1.2
+     */
+    public TagRecordTable() {
+        rows = 0;
+        keys = new String[ 0 ];
+        columns = new ITag[ 0 ];
+    }
+
+    /**
+     * Makes a table of columns
+     * @param rows    The amount of rows
+     * @param keys    The key of each column
+     * @param columns The columns: array tags holding one element per row
+     * @exception IllegalArgumentException When a column is no array tag, or
+     *                                     has the wrong length
+     * @since 1.2
+     */
+    public TagRecordTable( int rows, String[] keys, ITag[] columns ) {
+        if( keys.length != columns.length ) {
+            throw new IllegalArgumentException( "Found " + keys.length + " keys for " + columns.length + " columns." );
+        }
+        if( rows < 0 ) {
+            throw new IllegalArgumentException( "Amount of rows must not be negative, found: " + rows + "." );
+        }
+        for( int i = 0; i < columns.length; i++ ) {
+            if( length( columns[ i ] ) != rows ) {
+                throw new IllegalArgumentException( "Column '" + keys[ i ] + "' does not have " + rows + " elements." );
+            }
+        }
+        this.rows = rows;
+        this.keys = keys;
+        this.columns = columns;
+    }
+
+    /**
+     * Makes a table of an array of compounds. All compounds must have the
+     * same keys, the columns are ordered like the keys of the first compound.
+     * @param records The array of {@link TagCompound}s
+     * @return The table
+     * @exception IllegalArgumentException When the array holds something that
+     *                                     is not a compound, or the compounds
+     *                                     have different keys
+     * @since 1.2
+     */
+    public static TagRecordTable fromArray( Array records ) {
+        int rows = records.length();
+        Compound[] compounds = new Compound[ rows ];
+        for( int i = 0; i < rows; i++ ) {
+            ITag tag = records.get( i );
+            if( !( tag instanceof TagCompound ) ) {
+                throw new IllegalArgumentException( "Element " + i + " is no compound." );
+            }
+            compounds[ i ] = ( ( TagCompound ) tag ).getValue();
+        }
+        if( rows == 0 ) {
+            return new TagRecordTable();
+        }
+        KeyValuePair[] pairs = compounds[ 0 ].getPairs();
+        String[] keys = new String[ pairs.length ];
+        ITag[] columns = new ITag[ pairs.length ];
+        for( int i = 0; i < pairs.length; i++ ) {
+            keys[ i ] = pairs[ i ].key;
+        }
+        for( int i = 1; i < rows; i++ ) {
+            if( compounds[ i ].size() != keys.length ) {
+                throw new IllegalArgumentException( "Element " + i + " does not have the keys of the first element." );
+            }
+        }
+        ITag[] cells = new ITag[ rows ];
+        for( int c = 0; c < keys.length; c++ ) {
+            for( int r = 0; r < rows; r++ ) {
+                try {
+                    cells[ r ] = compounds[ r ].get( keys[ c ] );
+                } catch( NoSuchKeyException exception ) {
+                    throw new IllegalArgumentException( "Element " + r + " does not have key '" + keys[ c ] + "'." );
+                }
+            }
+            columns[ c ] = column( cells );
+        }
+        return new TagRecordTable( rows, keys, columns );
+    }
+
+    /**
+     * Makes the column for a list of cells: a primitive or string array when
+     * all cells have the same type, or an any-type array otherwise.
+     */
+    private static ITag column( ITag[] cells ) {
+        int rows = cells.length;
+        Class<?> type = cells[ 0 ].getClass();
+        for( ITag cell : cells ) {
+            if( cell.getClass() != type ) {
+                return new TagArray( cells.clone() );
+            }
+        }
+        if( type == TagByte.class ) {
+            byte[] values = new byte[ rows ];
+            for( int i = 0; i < rows; i++ ) values[ i ] = ( ( TagByte ) cells[ i ] ).getValue();
+            return new TagByteArray( values );
+        } else if( type == TagShort.class ) {
+            short[] values = new short[ rows ];
+            for( int i = 0; i < rows; i++ ) values[ i ] = ( ( TagShort ) cells[ i ] ).getValue();
+            return new TagShortArray( values );
+        } else if( type == TagInteger.class ) {
+            int[] values = new int[ rows ];
+            for( int i = 0; i < rows; i++ ) values[ i ] = ( ( TagInteger ) cells[ i ] ).getValue();
+            return new TagIntegerArray( values );
+        } else if( type == TagLong.class ) {
+            long[] values = new long[ rows ];
+            for( int i = 0; i < rows; i++ ) values[ i ] = ( ( TagLong ) cells[ i ] ).getValue();
+            return new TagLongArray( values );
+        } else if( type == TagFloat.class ) {
+            float[] values = new float[ rows ];
+            for( int i = 0; i < rows; i++ ) values[ i ] = ( ( TagFloat ) cells[ i ] ).getValue();
+            return new TagFloatArray( values );
+        } else if( type == TagDouble.class ) {
+            double[] values = new double[ rows ];
+            for( int i = 0; i < rows; i++ ) values[ i ] = ( ( TagDouble ) cells[ i ] ).getValue();
+            return new TagDoubleArray( values );
+        } else if( type == TagBoolean.class ) {
+            boolean[] values = new boolean[ rows ];
+            for( int i = 0; i < rows; i++ ) values[ i ] = ( ( TagBoolean ) cells[ i ] ).getValue();
+            return new TagBooleanArray( values );
+        } else if( type == TagString.class ) {
+            String[] values = new String[ rows ];
+            for( int i = 0; i < rows; i++ ) values[ i ] = ( ( TagString ) cells[ i ] ).getValue();
+            return new TagStringArray( values );
+        }
+        return new TagArray( cells.clone() );
+    }
+
+    /**
+     * Returns the length of a column. Columns decoded as views, like
+     * {@link TagIntBuffer}, hold a buffer with one element per row.
+     * @exception IllegalArgumentException When the tag is no array tag
+     */
+    private static int length( ITag column ) {
+        Object value = column.getValue();
+        if( column instanceof TagArray ) return ( ( Array ) value ).length();
+        if( column instanceof TagBitSet ) return ( ( TagBitSet ) column ).getLength();
+        if( value instanceof byte[] ) return ( ( byte[] ) value ).length;
+        if( value instanceof short[] ) return ( ( short[] ) value ).length;
+        if( value instanceof int[] ) return ( ( int[] ) value ).length;
+        if( value instanceof long[] ) return ( ( long[] ) value ).length;
+        if( value instanceof float[] ) return ( ( float[] ) value ).length;
+        if( value instanceof double[] ) return ( ( double[] ) value ).length;
+        if( value instanceof boolean[] ) return ( ( boolean[] ) value ).length;
+        if( value instanceof String[] ) return ( ( String[] ) value ).length;
+        if( value instanceof Buffer ) return ( ( Buffer ) value ).remaining();
+        throw new IllegalArgumentException( "Column is no array tag." );
+    }
+
+    /**
+     * Returns a cell of a column as a tag
+     */
+    private static ITag cell( ITag column, int row ) {
+        Object value = column.getValue();
+        if( column instanceof TagArray ) return ( ( Array ) value ).get( row );
+        if( column instanceof TagBitSet ) return new TagBoolean( ( ( BitSet ) value ).get( row ) );
+        if( value instanceof byte[] ) return new TagByte( ( ( byte[] ) value )[ row ] );
+        if( value instanceof short[] ) return new TagShort( ( ( short[] ) value )[ row ] );
+        if( value instanceof int[] ) return new TagInteger( ( ( int[] ) value )[ row ] );
+        if( value instanceof long[] ) return new TagLong( ( ( long[] ) value )[ row ] );
+        if( value instanceof float[] ) return new TagFloat( ( ( float[] ) value )[ row ] );
+        if( value instanceof double[] ) return new TagDouble( ( ( double[] ) value )[ row ] );
+        if( value instanceof boolean[] ) return new TagBoolean( ( ( boolean[] ) value )[ row ] );
+        if( value instanceof ByteBuffer ) return new TagByte( ( ( ByteBuffer ) value ).get( row ) );
+        if( value instanceof ShortBuffer ) return new TagShort( ( ( ShortBuffer ) value ).get( row ) );
+        if( value instanceof IntBuffer ) return new TagInteger( ( ( IntBuffer ) value ).get( row ) );
+        if( value instanceof LongBuffer ) return new TagLong( ( ( LongBuffer ) value ).get( row ) );
+        if( value instanceof FloatBuffer ) return new TagFloat( ( ( FloatBuffer ) value ).get( row ) );
+        if( value instanceof DoubleBuffer ) return new TagDouble( ( ( DoubleBuffer ) value ).get( row ) );
+        return new TagString( ( ( String[] ) value )[ row ] );
+    }
+
+    /**
+     * Returns one record of the table as a new compound
+     * @param row The index of the record
+     * @return The record
+     * @since 1.2
+     */
+    public Compound getRow( int row ) {
+        if( row < 0 || row >= rows ) {
+            throw new IndexOutOfBoundsException( "Row " + row + " is out of bounds, table has " + rows + " rows." );
+        }
+        Compound compound = new Compound();
+        for( int c = 0; c < keys.length; c++ ) {
+            compound.put( keys[ c ], cell( columns[ c ], row ) );
+        }
+        return compound;
+    }
+
+    /**
+     * Turns the table back into an array of compounds
+     * @return A new {@link Array} holding a {@link TagCompound} per record
+     * @since 1.2
+     */
+    public Array toArray() {
+        Array array = new Array();
+        for( int r = 0; r < rows; r++ ) {
+            array.add( new TagCompound( getRow( r ) ) );
+        }
+        return array;
+    }
+
+    /**
+     * Returns the amount of records
+     * @since 1.2
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the keys of the columns
+     * @since 1.2
+     */
+    public String[] getKeys() {
+        return keys.clone();
+    }
+
+    /**
+     * Returns the column of a key: an array tag with one element per record
+     * @param key The key
+     * @return The column, or null when the table has no such key
+     * @since 1.2
+     */
+    public ITag getColumn( String key ) {
+        for( int c = 0; c < keys.length; c++ ) {
+            if( keys[ c ].equals( key ) ) return columns[ c ];
+        }
+        return null;
+    }
+
+    @Override
+    public Binary encode() {
+        CTagOutput output = new CTagOutput();
+        try {
+            write( output );
+        } catch( IOException exception ) {
+            // Writing to an internal buffer does not do I/O
+            throw new IllegalStateException( exception );
+        }
+        return output.toBinary();
+    }
+
+    @Override
+    public void write( CTagOutput output ) throws IOException {
+        output.writeVarInt( rows );
+        output.writeShort( ( short ) columns.length );
+        for( int c = 0; c < columns.length; c++ ) {
+            output.writeString( keys[ c ] );
+            columns[ c ].writePrefixed( output );
+        }
+    }
+
+    /**
+     * Returns the records as a new array of compounds, see {@link #toArray()}
+     */
+    @Override
+    public Array getValue() {
+        return toArray();
+    }
+
+    /**
+     * Replaces the records by an array of compounds, see
+     * {@link #fromArray(Array)}
+     */
+    @Override
+    public void setValue( Array value ) {
+        TagRecordTable table = fromArray( value );
+        rows = table.rows;
+        keys = table.keys;
+        columns = table.columns;
+    }
+
+    @Override
+    public Binary getPrefixByte() {
+        return PREFIX;
+    }
+
+    @Override
+    public byte getPrefix() {
+        return TagRegistry.RECORD_TABLE;
+    }
+
+    /**
+     * Parses a CTag code as a record table.
+     * @param input The {@link CTagInput} stream that possibly begins with this
+     *              record table data.
+     * @return The parsed {@link TagRecordTable} if parsed with success.
+     * @exception IOException          If the {@link CTagInput}'s underlying
+     *                                 stream throws an IOException.
+     * @exception CTagInvalidException If a column is invalid.
+     * @since 1.2
+     */
+    public static TagRecordTable parse( CTagInput input ) throws IOException, CTagInvalidException, EndException, NegativeLengthException {
+        int rows = input.readVarInt();
+        short count = input.readShort();
+        if( rows < 0 || count < 0 ) throw new NegativeLengthException( "Found record table with negative length" );
+        String[] keys = new String[ count ];
+        ITag[] columns = new ITag[ count ];
+        for( int c = 0; c < count; c++ ) {
+            keys[ c ] = input.readKey();
+            byte prefix = input.readByte();
+            if( prefix == TagRegistry.END ) {
+                throw new CTagInvalidException( "Found a TagEnd in TagRecordTable." );
+            }
+            columns[ c ] = TagRegistry.parse( prefix, input );
+        }
+        try {
+            return new TagRecordTable( rows, keys, columns );
+        } catch( IllegalArgumentException exception ) {
+            throw new CTagInvalidException( exception.getMessage() );
+        }
+    }
+
+    /**
+     * Skips a CTag code of a record table
+     */
+    static void skip( CTagInput input ) throws IOException, CTagInvalidException, EndException, NegativeLengthException {
+        input.readVarInt();
+        short count = input.readShort();
+        if( count < 0 ) throw new NegativeLengthException( "Found record table with negative length" );
+        for( int c = 0; c < count; c++ ) {
+            short len = input.readShort();
+            if( len < 0 ) throw new NegativeLengthException( "Found string with negative length" );
+            input.skip( len );
+            byte prefix = input.readByte();
+            if( prefix == TagRegistry.END ) {
+                throw new CTagInvalidException( "Found a TagEnd in TagRecordTable." );
+            }
+            TagRegistry.skip( prefix, input );
+        }
+    }
+
+    public String toString() {
+        String array = new TagArray( toArray() ).toString();
+        return "RECORD_TABLE" + array.substring( array.indexOf( ' ' ) );
+    }
+}
@@ -0,0 +1,377 @@
+package ctag.tags;
+
+import ctag.Binary;
+import ctag.CTagInput;
+import ctag.CTagOutput;
+import ctag.exception.CTagInvalidException;
+import ctag.exception.EndException;
+import ctag.exception.NegativeLengthException;
+
+import java.io.IOException;
+
+/**
+ * Maps each prefix byte to the {@link ITagParser} of its tag type. This table
+ * is used by the {@link ctag.CTagDecoder}, {@link TagCompound} and
+ * {@link TagArray} to decode prefixed tags. Custom tag types can be added by
+ * registering a parser for an unused prefix.
+ * @since 1.2
+ */
+public final class TagRegistry {
+    public static final byte END = 0;
+    public static final byte BYTE = 1;
+    public static final byte SHORT = 2;
+    public static final byte INTEGER = 3;
+    public static final byte LONG = 4;
+    public static final byte FLOAT = 5;
+    public static final byte DOUBLE = 6;
+    public static final byte STRING = 7;
+    public static final byte ARRAY = 8;
+    public static final byte COMPOUND = 9;
+    public static final byte NULL = 10;
+    public static final byte BOOLEAN = 11;
+    public static final byte BYTE_ARRAY = 12;
+    public static final byte SHORT_ARRAY = 13;
+    public static final byte INTEGER_ARRAY = 14;
+    public static final byte LONG_ARRAY = 15;
+    public static final byte FLOAT_ARRAY = 16;
+    public static final byte DOUBLE_ARRAY = 17;
+    public static final byte BOOLEAN_ARRAY = 18;
+    public static final byte STRING_ARRAY = 19;
+    public static final byte RECORD_TABLE = 20;
+    public static final byte VAR_INTEGER_ARRAY = 21;
+    public static final byte VAR_LONG_ARRAY = 22;
+    /**
+     * Prefix of tags whose length does not fit in two bytes. It is followed
+     * by the prefix of the actual tag type, the length as a variable-length
+     * integer and the payload of that type without its length.
+     * @see #writeLength(CTagOutput, byte, int)
+     * @since 1.2
+     */
+    public static final byte LARGE = 23;
+
+    // One shared binary per prefix, so tags do not make one per call
+    private static final Binary[] PREFIX_BYTES = new Binary[ 256 ];
+
+    static {
+        for( int i = 0; i < PREFIX_BYTES.length; i++ ) {
+            PREFIX_BYTES[ i ] = new Binary( ( byte ) i );
+        }
+    }
+
+    private static final Binary LARGE_PREFIX = PREFIX_BYTES[ LARGE ];
+
+    // Copied on registration, so lookups do not need to lock
+    private static volatile ITagParser[] parsers = new ITagParser[ 256 ];
+
+    static {
+        ITagParser[] table = parsers;
+        table[ BYTE ] = parser( TagByte::parse, input -> input.skip( 1 ) );
+        table[ SHORT ] = parser( TagShort::parse, input -> input.skip( 2 ) );
+        table[ INTEGER ] = parser( TagInteger::parse, input -> input.skip( 4 ) );
+        table[ LONG ] = parser( TagLong::parse, input -> input.skip( 8 ) );
+        table[ FLOAT ] = parser( TagFloat::parse, input -> input.skip( 4 ) );
+        table[ DOUBLE ] = parser( TagDouble::parse, input -> input.skip( 8 ) );
+        table[ STRING ] = parser( TagString::parse, input -> input.skip( length( input ) ) );
+        table[ ARRAY ] = parser( TagArray::parse, TagRegistry::skipArray );
+        table[ COMPOUND ] = parser( TagCompound::parse, TagRegistry::skipCompound );
+        table[ NULL ] = parser( TagNull::parse, input -> { } );
+        table[ BOOLEAN ] = parser( TagBoolean::parse, input -> input.skip( 1 ) );
+        table[ BYTE_ARRAY ] = parser( input -> input.isViews() ? TagByteBuffer.parse( input ) : TagByteArray.parse( input ), input -> input.skip( length( input ) ) );
+        table[ SHORT_ARRAY ] = parser( input -> input.isViews() ? TagShortBuffer.parse( input ) : TagShortArray.parse( input ), input -> input.skip( length( input ) * 2 ) );
+        table[ INTEGER_ARRAY ] = parser( input -> input.isViews() ? TagIntBuffer.parse( input ) : TagIntegerArray.parse( input ), input -> input.skip( length( input ) * 4 ) );
+        table[ LONG_ARRAY ] = parser( input -> input.isViews() ? TagLongBuffer.parse( input ) : TagLongArray.parse( input ), input -> input.skip( length( input ) * 8 ) );
+        table[ FLOAT_ARRAY ] = parser( input -> input.isViews() ? TagFloatBuffer.parse( input ) : TagFloatArray.parse( input ), input -> input.skip( length( input ) * 4 ) );
+        table[ DOUBLE_ARRAY ] = parser( input -> input.isViews() ? TagDoubleBuffer.parse( input ) : TagDoubleArray.parse( input ), input -> input.skip( length( input ) * 8 ) );
+        table[ BOOLEAN_ARRAY ] = parser( input -> input.isBitSets() ? TagBitSet.parse( input ) : TagBooleanArray.parse( input ), input -> input.skip( ( length( input ) + 7 ) / 8 ) );
+        table[ STRING_ARRAY ] = parser( TagStringArray::parse, TagRegistry::skipStringArray );
+        table[ RECORD_TABLE ] = parser( TagRecordTable::parse, TagRecordTable::skip );
+        table[ VAR_INTEGER_ARRAY ] = parser( TagVarIntArray::parse, TagRegistry::skipVarArray );
+        table[ VAR_LONG_ARRAY ] = parser( TagVarLongArray::parse, TagRegistry::skipVarArray );
+        table[ LARGE ] = parser( TagRegistry::parseLarge, TagRegistry::skipLarge );
+    }
+
+    private interface Skipper {
+        void skip( CTagInput input ) throws IOException, CTagInvalidException, EndException, NegativeLengthException;
+    }
+
+    private static ITagParser parser( ITagParser parser, Skipper skipper ) {
+        return new ITagParser() {
+            @Override
+            public ITag parse( CTagInput input ) throws IOException, CTagInvalidException, EndException, NegativeLengthException {
+                return parser.parse( input );
+            }
+
+            @Override
+            public void skip( CTagInput input ) throws IOException, CTagInvalidException, EndException, NegativeLengthException {
+                skipper.skip( input );
+            }
+        };
+    }
+
+    private static int length( CTagInput input ) throws IOException, EndException, NegativeLengthException {
+        short len = input.readShort();
+        if( len < 0 ) throw new NegativeLengthException( "Found array with negative length" );
+        return len;
+    }
+
+    private static void skipArray( CTagInput input ) throws IOException, CTagInvalidException, EndException, NegativeLengthException {
+        int len = length( input );
+        for( int i = 0; i < len; i++ ) {
+            byte prefix = input.readByte();
+            if( prefix == END ) {
+                throw new CTagInvalidException( "Found a TagEnd in TagArray." );
+            }
+            skip( prefix, input );
+        }
+    }
+
+    private static void skipCompound( CTagInput input ) throws IOException, CTagInvalidException, EndException, NegativeLengthException {
+        byte prefix;
+        while( ( prefix = input.readByte() ) != END ) {
+            input.skip( length( input ) );
+            skip( prefix, input );
+        }
+    }
+
+    private static void skipStringArray( CTagInput input ) throws IOException, EndException, NegativeLengthException {
+        int len = length( input );
+        for( int i = 0; i < len; i++ ) {
+            input.skip( length( input ) );
+        }
+    }
+
+    private static void skipVarArray( CTagInput input ) throws IOException, CTagInvalidException, EndException, NegativeLengthException {
+        int len = input.readVarInt();
+        if( len < 0 ) throw new NegativeLengthException( "Found array with negative length" );
+        for( int i = 0; i < len; i++ ) {
+            input.readVarLong();
+        }
+    }
+
+    private static ITag parseLarge( CTagInput input ) throws IOException, CTagInvalidException, EndException, NegativeLengthException {
+        byte prefix = input.readByte();
+        int len = input.readVarInt();
+        if( len < 0 ) throw new NegativeLengthException( "Found large tag with negative length" );
+        switch( prefix ) {
+            case STRING:
+                return TagString.parse( input, len );
+            case ARRAY:
+                return TagArray.parse( input, len );
+            case BYTE_ARRAY:
+                return input.isViews() ? TagByteBuffer.parse( input, len ) : TagByteArray.parse( input, len );
+            case SHORT_ARRAY:
+                return input.isViews() ? TagShortBuffer.parse( input, len ) : TagShortArray.parse( input, len );
+            case INTEGER_ARRAY:
+                return input.isViews() ? TagIntBuffer.parse( input, len ) : TagIntegerArray.parse( input, len );
+            case LONG_ARRAY:
+                return input.isViews() ? TagLongBuffer.parse( input, len ) : TagLongArray.parse( input, len );
+            case FLOAT_ARRAY:
+                return input.isViews() ? TagFloatBuffer.parse( input, len ) : TagFloatArray.parse( input, len );
+            case DOUBLE_ARRAY:
+                return input.isViews() ? TagDoubleBuffer.parse( input, len ) : TagDoubleArray.parse( input, len );
+            case BOOLEAN_ARRAY:
+                return input.isBitSets() ? TagBitSet.parse( input, len ) : TagBooleanArray.parse( input, len );
+            case STRING_ARRAY:
+                return TagStringArray.parse( input, len );
+            default:
+                throw new CTagInvalidException( "Found large tag of type '" + new Binary( prefix ) + "', which has no large form." );
+        }
+    }
+
+    private static void skipLarge( CTagInput input ) throws IOException, CTagInvalidException, EndException, NegativeLengthException {
+        byte prefix = input.readByte();
+        int len = input.readVarInt();
+        if( len < 0 ) throw new NegativeLengthException( "Found large tag with negative length" );
+        switch( prefix ) {
+            case STRING:
+            case BYTE_ARRAY:
+                input.skip( len );
+                return;
+            case SHORT_ARRAY:
+                skipElements( input, len, 2 );
+                return;
+            case INTEGER_ARRAY:
+            case FLOAT_ARRAY:
+                skipElements( input, len, 4 );
+                return;
+            case LONG_ARRAY:
+            case DOUBLE_ARRAY:
+                skipElements( input, len, 8 );
+                return;
+            case BOOLEAN_ARRAY:
+                input.skip( ( int ) ( ( len + 7L ) / 8 ) );
+                return;
+            case ARRAY:
+                for( int i = 0; i < len; i++ ) {
+                    byte element = input.readByte();
+                    if( element == END ) {
+                        throw new CTagInvalidException( "Found a TagEnd in TagArray." );
+                    }
+                    skip( element, input );
+                }
+                return;
+            case STRING_ARRAY:
+                for( int i = 0; i < len; i++ ) {
+                    input.skip( length( input ) );
+                }
+                return;
+            default:
+                throw new CTagInvalidException( "Found large tag of type '" + new Binary( prefix ) + "', which has no large form." );
+        }
+    }
+
+    // Skips in steps, so the amount of bytes does not overflow
+    private static void skipElements( CTagInput input, int len, int size ) throws IOException, EndException {
+        int step = Integer.MAX_VALUE / size;
+        while( len > 0 ) {
+            int amount = Math.min( len, step );
+            input.skip( amount * size );
+            len -= amount;
+        }
+    }
+
+    /**
+     * Encodes the payload of a tag through a {@link CTagOutput}
+     */
+    static Binary encode( ITag tag ) {
+        CTagOutput output = new CTagOutput();
+        try {
+            tag.write( output );
+        } catch( IOException exception ) {
+            // Writing to an internal buffer does not do I/O
+            throw new IllegalStateException( exception );
+        }
+        return output.toBinary();
+    }
+
+    private TagRegistry() {
+    }
+
+    /**
+     * Returns the prefix a tag with a length must be written with: the prefix
+     * of its own type when the length fits in two bytes, or {@link #LARGE}
+     * otherwise.
+     * @param prefix The prefix of the tag type
+     * @param length The length of the tag
+     * @return The prefix to write
+     * @since 1.2
+     */
+    public static byte prefix( byte prefix, int length ) {
+        return length > Short.MAX_VALUE ? LARGE : prefix;
+    }
+
+    /**
+     * Returns a shared {@link Binary} holding a prefix
+     * @param prefix The prefix
+     * @return The prefix as a {@link Binary}, which must not be modified
+     * @since 1.2
+     */
+    public static Binary prefixByte( byte prefix ) {
+        return PREFIX_BYTES[ prefix & 0xFF ];
+    }
+
+    /**
+     * Returns the prefix a tag with a length must be written with as a
+     * {@link Binary}, see {@link #prefix(byte, int)}.
+     * @param prefix The prefix of the tag type, as a {@link Binary}
+     * @param length The length of the tag
+     * @return The prefix to write
+     * @since 1.2
+     */
+    public static Binary prefixByte( Binary prefix, int length ) {
+        return length > Short.MAX_VALUE ? LARGE_PREFIX : prefix;
+    }
+
+    /**
+     * Writes the length of a tag. A length that fits in two bytes is written
+     * as a short. Otherwise the tag is written with the {@link #LARGE} prefix,
+     * which is followed by the prefix of the tag type and the length as a
+     * variable-length integer. The payload follows in both cases.
+     * @param output The {@link CTagOutput} to write to
+     * @param prefix The prefix of the tag type
+     * @param length The length of the tag
+     * @exception IOException When the underlying stream or channel throws an
+     *                        {@link IOException}
+     * @since 1.2
+     */
+    public static void writeLength( CTagOutput output, byte prefix, int length ) throws IOException {
+        if( length > Short.MAX_VALUE ) {
+            output.writeByte( prefix );
+            output.writeVarInt( length );
+        } else {
+            output.writeShort( ( short ) length );
+        }
+    }
+
+    /**
+     * Registers a parser for a custom tag type. The tag's
+     * {@link ITag#getPrefixByte()} must return the same prefix.
+     * @param prefix The prefix byte, between 1 and 255
+     * @param parser The parser for the tag payload
+     * @exception IllegalArgumentException When the prefix is out of range or
+     *                                     already registered
+     * @since 1.2
+     */
+    public static synchronized void register( int prefix, ITagParser parser ) {
+        if( prefix < 1 || prefix > 255 ) {
+            throw new IllegalArgumentException( "Prefix must be between 1 and 255, found: " + prefix + "." );
+        }
+        if( parser == null ) {
+            throw new NullPointerException( "Parser is null. Not allowed." );
+        }
+        ITagParser[] table = parsers.clone();
+        if( table[ prefix ] != null ) {
+            throw new IllegalArgumentException( "Prefix " + prefix + " is already registered." );
+        }
+        table[ prefix ] = parser;
+        parsers = table;
+    }
+
+    /**
+     * Checks if a parser is registered for a prefix
+     * @param prefix The prefix byte
+     * @return True if registered
+     * @since 1.2
+     */
+    public static boolean isRegistered( byte prefix ) {
+        return parsers[ prefix & 0xff ] != null;
+    }
+
+    /**
+     * Parses the payload of the tag type that belongs to a prefix.
+     * @param prefix The prefix byte, which is already read
+     * @param input  The {@link CTagInput} stream that begins with the payload.
+     * @return The parsed tag.
+     * @exception IOException          If the {@link CTagInput}'s underlying
+     *                                 stream throws an IOException.
+     * @exception CTagInvalidException If no tag type is registered for the
+     *                                 prefix, or the payload is invalid.
+     * @since 1.2
+     */
+    public static ITag parse( byte prefix, CTagInput input ) throws IOException, CTagInvalidException, EndException, NegativeLengthException {
+        ITagParser parser = parsers[ prefix & 0xff ];
+        if( parser == null ) {
+            throw new CTagInvalidException( "Found invalid prefix: '" + new Binary( prefix ) + "'." );
+        }
+        return parser.parse( input );
+    }
+
+    /**
+     * Skips the payload of the tag type that belongs to a prefix, without
+     * making the tag.
+     * @param prefix The prefix byte, which is already read
+     * @param input  The {@link CTagInput} stream that begins with the payload.
+     * @exception IOException          If the {@link CTagInput}'s underlying
+     *                                 stream throws an IOException.
+     * @exception CTagInvalidException If no tag type is registered for the
+     *                                 prefix, or the payload is invalid.
+     * @since 1.2
+     */
+    public static void skip( byte prefix, CTagInput input ) throws IOException, CTagInvalidException, EndException, NegativeLengthException {
+        ITagParser parser = parsers[ prefix & 0xff ];
+        if( parser == null ) {
+            throw new CTagInvalidException( "Found invalid prefix: '" + new Binary( prefix ) + "'." );
+        }
+        parser.skip( input );
+    }
+}
@@ -2,6 +2,7 @@ package ctag.tags;
 
 import ctag.Binary;
 import ctag.CTagInput;
+import ctag.CTagOutput;
 import ctag.exception.EndException;
 
 import java.io.IOException;
@@ -33,14 +34,34 @@ import java.io.IOException;
  * @since 1.0
  */
 public class TagShort implements ITag<Short> {
+    private static final Binary PREFIX = new Binary( TagRegistry.SHORT );
+
+    // Values from -128 up to and including 1023 are cached
+    private static final int CACHE_LOW = -128;
+    private static final TagShort[] CACHE = new TagShort[ 1152 ];
+
+    static {
+        for( int i = 0; i < CACHE.length; i++ ) {
+            CACHE[ i ] = new TagShort( ( short ) ( i + CACHE_LOW ), true );
+        }
+    }
+
     private short value;
+    private final boolean cached;
 
     public TagShort( short value ) {
         this.value = value;
+        cached = false;
+    }
+
+    private TagShort( short value, boolean cached ) {
+        this.value = value;
+        this.cached = cached;
     }
 
     public TagShort() {
         value = 0;
+        cached = false;
     }
 
     private byte get1() {
@@ -51,6 +72,23 @@ public class TagShort implements ITag<Short> {
         return ( byte ) ( value >>> 8 & 0xff );
     }
 
+    /**
+     * Returns a tag for a short. Small values, from -128 up to and including
+     * 1023, return a shared tag that can not be changed:
+     * {@link #setValue(Short)} throws an
+     * {@link UnsupportedOperationException}. Other values return a new tag.
+     * @param value The short
+     * @return The tag
+     * @since 1.2
+     */
+    public static TagShort valueOf( short value ) {
+        int index = value - CACHE_LOW;
+        if( index >= 0 && index < CACHE.length ) {
+            return CACHE[ index ];
+        }
+        return new TagShort( value );
+    }
+
     @Override
     public Binary encode() {
         return new Binary( new byte[] {
@@ -58,6 +96,11 @@ public class TagShort implements ITag<Short> {
         } );
     }
 
+    @Override
+    public void write( CTagOutput output ) throws IOException {
+        output.writeShort( value );
+    }
+
     @Override
     public Short getValue() {
         return value;
@@ -65,12 +108,20 @@ public class TagShort implements ITag<Short> {
 
     @Override
     public void setValue( Short value ) {
+        if( cached ) {
+            throw new UnsupportedOperationException( "Cached TagShort can not be changed." );
+        }
         this.value = value;
     }
 
     @Override
     public Binary getPrefixByte() {
-        return new Binary( ( byte ) 0b10 );
+        return PREFIX;
+    }
+
+    @Override
+    public byte getPrefix() {
+        return TagRegistry.SHORT;
     }
 
     /**
@@ -83,11 +134,8 @@ public class TagShort implements ITag<Short> {
      * @since 1.0
      */
     public static TagShort parse( CTagInput input ) throws IOException, EndException {
-        Binary bytes = input.read( 2 );
-        int byte1 = bytes.getByte( 1 ) & 0xff;
-        int byte2 = bytes.getByte( 0 ) & 0xff;
-        short value = ( short ) ( ( byte2 << 8 ) + byte1 );
-        return new TagShort( value );
+        short value = input.readShort();
+        return input.isCached() ? valueOf( value ) : new TagShort( value );
     }
 
     public String toString() {
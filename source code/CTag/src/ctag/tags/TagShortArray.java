@@ -2,10 +2,12 @@ package ctag.tags;
 
 import ctag.Binary;
 import ctag.CTagInput;
+import ctag.CTagOutput;
 import ctag.exception.EndException;
 import ctag.exception.NegativeLengthException;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * The tag that represents a signed 16bit integer array.
@@ -35,6 +37,8 @@ import java.io.IOException;
  * @since 1.0
  */
 public class TagShortArray implements ITag<short[]> {
+    private static final Binary PREFIX = new Binary( TagRegistry.SHORT_ARRAY );
+
     private short[] array;
 
     public TagShortArray( short... shorts ) {
@@ -43,12 +47,20 @@ public class TagShortArray implements ITag<short[]> {
 
     @Override
     public Binary encode() {
-        Binary.Builder builder = new Binary.Builder();
-        builder.append( new TagShort( ( short ) array.length ).encode() );
-        for( short s : array ) {
-            builder.append( new TagShort( s ).encode() );
+        if( array.length > Short.MAX_VALUE ) {
+            return TagRegistry.encode( this );
         }
-        return builder.build();
+        byte[] bytes = new byte[ 2 + array.length * 2 ];
+        ByteBuffer buffer = ByteBuffer.wrap( bytes );
+        buffer.putShort( ( short ) array.length );
+        buffer.asShortBuffer().put( array );
+        return new Binary( bytes );
+    }
+
+    @Override
+    public void write( CTagOutput output ) throws IOException {
+        TagRegistry.writeLength( output, TagRegistry.SHORT_ARRAY, array.length );
+        output.writeShorts( array, 0, array.length );
     }
 
     @Override
@@ -63,7 +75,12 @@ public class TagShortArray implements ITag<short[]> {
 
     @Override
     public Binary getPrefixByte() {
-        return new Binary( ( byte ) 0b1101 );
+        return TagRegistry.prefixByte( PREFIX, array.length );
+    }
+
+    @Override
+    public byte getPrefix() {
+        return TagRegistry.prefix( TagRegistry.SHORT_ARRAY, array.length );
     }
 
     /**
@@ -76,12 +93,17 @@ public class TagShortArray implements ITag<short[]> {
      * @since 1.0
      */
     public static TagShortArray parse( CTagInput input ) throws IOException, EndException, NegativeLengthException {
-        short len = TagShort.parse( input ).getValue();
+        short len = input.readShort();
         if( len < 0 ) throw new NegativeLengthException( "Found array with negative length" );
+        return parse( input, len );
+    }
+
+    /**
+     * Parses the values of a short array whose length is already read
+     */
+    static TagShortArray parse( CTagInput input, int len ) throws IOException, EndException, NegativeLengthException {
         short[] shorts = new short[ len ];
-        for( int i = 0; i < len; i++ ) {
-            shorts[ i ] = TagShort.parse( input ).getValue();
-        }
+        input.readShorts( shorts, 0, len );
         return new TagShortArray( shorts );
     }
 
@@ -2,9 +2,12 @@ package ctag.tags;
 
 import ctag.Binary;
 import ctag.CTagInput;
+import ctag.CTagOutput;
 import ctag.exception.EndException;
+import ctag.exception.NegativeLengthException;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
 
 /**
  * The tag that represents a string.
@@ -34,7 +37,15 @@ import java.io.IOException;
  * @since 1.0
  */
 public class TagString implements ITag<String> {
+    private static final Binary PREFIX = new Binary( TagRegistry.STRING );
+    private static final Binary LARGE_PREFIX = new Binary( TagRegistry.LARGE );
+    // Strings of up to this many characters always fit in a two-byte length
+    private static final int SHORT_CHARS = ( int ) ( Short.MAX_VALUE / Charset.defaultCharset().newEncoder().maxBytesPerChar() );
+
     private String value;
+    // The encoded characters of a long string, so they are encoded once per
+    // value instead of on every prefix check and write
+    private volatile byte[] bytes;
 
     public TagString() {
         value = "";
@@ -46,7 +57,10 @@ public class TagString implements ITag<String> {
 
     @Override
     public Binary encode() {
-        byte[] bytes = value.getBytes();
+        byte[] bytes = value.length() > SHORT_CHARS ? longBytes() : value.getBytes();
+        if( bytes.length > Short.MAX_VALUE ) {
+            return TagRegistry.encode( this );
+        }
         short length = ( short ) bytes.length;
         byte[] lenBytes = {
                 ( byte ) ( length >>> 8 & 0xff ),
@@ -58,6 +72,17 @@ public class TagString implements ITag<String> {
         return builder.build();
     }
 
+    @Override
+    public void write( CTagOutput output ) throws IOException {
+        if( value.length() <= SHORT_CHARS ) {
+            output.writeString( value );
+            return;
+        }
+        byte[] bytes = longBytes();
+        TagRegistry.writeLength( output, TagRegistry.STRING, bytes.length );
+        output.write( bytes );
+    }
+
     @Override
     public String getValue() {
         return value;
@@ -66,11 +91,34 @@ public class TagString implements ITag<String> {
     @Override
     public void setValue( String value ) {
         this.value = value;
+        bytes = null;
     }
 
     @Override
     public Binary getPrefixByte() {
-        return new Binary( ( byte ) 0b111 );
+        return isLarge() ? LARGE_PREFIX : PREFIX;
+    }
+
+    @Override
+    public byte getPrefix() {
+        return isLarge() ? TagRegistry.LARGE : TagRegistry.STRING;
+    }
+
+    /**
+     * Checks whether the length of the encoded string does not fit in two
+     * bytes. Only long strings are encoded to find out.
+     */
+    private boolean isLarge() {
+        return value.length() > SHORT_CHARS && longBytes().length > Short.MAX_VALUE;
+    }
+
+    private byte[] longBytes() {
+        byte[] bytes = this.bytes;
+        if( bytes == null ) {
+            bytes = value.getBytes();
+            this.bytes = bytes;
+        }
+        return bytes;
     }
 
     /**
@@ -82,13 +130,17 @@ public class TagString implements ITag<String> {
      *                        throws an IOException.
      * @since 1.0
      */
-    public static TagString parse( CTagInput input ) throws IOException, EndException {
-        int len = TagShort.parse( input ).getValue();
-        Binary binary = input.read( len );
-        byte[] bytes = binary.getBytes();
+    public static TagString parse( CTagInput input ) throws IOException, EndException, NegativeLengthException {
+        return new TagString( input.readUtf() );
+    }
 
-        String value = new String( bytes );
-        return new TagString( value );
+    /**
+     * Parses the characters of a string whose length is already read
+     */
+    static TagString parse( CTagInput input, int len ) throws IOException, EndException {
+        byte[] bytes = new byte[ len ];
+        input.readFully( bytes, 0, len );
+        return new TagString( new String( bytes ) );
     }
 
     public String toString() {
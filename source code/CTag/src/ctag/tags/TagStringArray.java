@@ -2,6 +2,7 @@ package ctag.tags;
 
 import ctag.Binary;
 import ctag.CTagInput;
+import ctag.CTagOutput;
 import ctag.exception.EndException;
 import ctag.exception.NegativeLengthException;
 
@@ -34,6 +35,8 @@ import java.io.IOException;
  * @since 1.1
  */
 public class TagStringArray implements ITag<String[]> {
+    private static final Binary PREFIX = new Binary( TagRegistry.STRING_ARRAY );
+
     private String[] array;
 
     public TagStringArray( String... shorts ) {
@@ -42,12 +45,15 @@ public class TagStringArray implements ITag<String[]> {
 
     @Override
     public Binary encode() {
-        Binary.Builder builder = new Binary.Builder();
-        builder.append( new TagShort( ( short ) array.length ).encode() );
+        return TagRegistry.encode( this );
+    }
+
+    @Override
+    public void write( CTagOutput output ) throws IOException {
+        TagRegistry.writeLength( output, TagRegistry.STRING_ARRAY, array.length );
         for( String s : array ) {
-            builder.append( new TagString( s ).encode() );
+            output.writeString( s );
         }
-        return builder.build();
     }
 
     @Override
@@ -62,7 +68,12 @@ public class TagStringArray implements ITag<String[]> {
 
     @Override
     public Binary getPrefixByte() {
-        return new Binary( ( byte ) 0b10011 );
+        return TagRegistry.prefixByte( PREFIX, array.length );
+    }
+
+    @Override
+    public byte getPrefix() {
+        return TagRegistry.prefix( TagRegistry.STRING_ARRAY, array.length );
     }
 
     /**
@@ -75,11 +86,18 @@ public class TagStringArray implements ITag<String[]> {
      * @since 1.1
      */
     public static TagStringArray parse( CTagInput input ) throws IOException, EndException, NegativeLengthException {
-        short len = TagShort.parse( input ).getValue();
+        short len = input.readShort();
         if( len < 0 ) throw new NegativeLengthException( "Found array with negative length" );
+        return parse( input, len );
+    }
+
+    /**
+     * Parses the values of a string array whose length is already read
+     */
+    static TagStringArray parse( CTagInput input, int len ) throws IOException, EndException, NegativeLengthException {
         String[] strings = new String[ len ];
         for( int i = 0; i < len; i++ ) {
-            strings[ i ] = TagString.parse( input ).getValue();
+            strings[ i ] = input.readUtf();
         }
         return new TagStringArray( strings );
     }
@@ -0,0 +1,130 @@
+package ctag.tags;
+
+import ctag.Binary;
+import ctag.CTagInput;
+import ctag.CTagOutput;
+import ctag.exception.CTagInvalidException;
+import ctag.exception.EndException;
+import ctag.exception.NegativeLengthException;
+
+import java.io.IOException;
+
+/**
+ * The tag that represents a signed 32bit integer array, stored with
+ * variable-length values. Small values take less bytes than in a
+ * {@link TagIntegerArray}: values from -64 to 63 take one byte, values from
+ * -8192 to 8191 take two bytes, and so on. The largest values take 5 bytes.
+ * <br/><br/>
+ * <table>
+ * <tr>
+ * <td><b>Binary prefix: </b></td>
+ * <td><code>00010101 - 15</code></td>
+ * </tr>
+ * <tr>
+ * <td><b>Minimal payload: </b></td>
+ * <td>1 byte</td>
+ * </tr>
+ * <tr>
+ * <td><b>Maximal payload: </b></td>
+ * <td>Infinite</td>
+ * </tr>
+ * </table>
+ * The variable-length integer array binary starts with a variable-length
+ * unsigned integer holding the length, followed by the values. Each value is
+ * zigzag encoded, which maps {@code 0, -1, 1, -2, ...} to
+ * {@code 0, 1, 2, 3, ...}, and stored 7 bits per byte, lowest bits first. The
+ * highest bit of a byte is set when more bytes follow.
+ * <br/>
+ * <pre>
+ * Prefix            Length   Value 1  Value 2           ...
+ * 00010101          00000010 00010010 1010110000000010
+ * VAR_INTEGER_ARRAY = 2      = 9      = 150
+ * </pre>
+ * @since 1.2
+ */
+public class TagVarIntArray implements ITag<int[]> {
+    private static final Binary PREFIX = new Binary( TagRegistry.VAR_INTEGER_ARRAY );
+
+    private int[] array;
+
+    /**
+     * @param ints The integers
+     * @since 1.2
+     */
+    public TagVarIntArray( int... ints ) {
+        array = ints;
+    }
+
+    @Override
+    public Binary encode() {
+        CTagOutput output = new CTagOutput();
+        try {
+            write( output );
+        } catch( IOException exception ) {
+            // Writing to an internal buffer does not do I/O
+            throw new IllegalStateException( exception );
+        }
+        return output.toBinary();
+    }
+
+    @Override
+    public void write( CTagOutput output ) throws IOException {
+        output.writeVarInt( array.length );
+        output.writeVarInts( array, 0, array.length );
+    }
+
+    @Override
+    public int[] getValue() {
+        return array;
+    }
+
+    @Override
+    public void setValue( int[] value ) {
+        array = value;
+    }
+
+    @Override
+    public Binary getPrefixByte() {
+        return PREFIX;
+    }
+
+    @Override
+    public byte getPrefix() {
+        return TagRegistry.VAR_INTEGER_ARRAY;
+    }
+
+    /**
+     * Parses a CTag code as a variable-length integer array.
+     * @param input The {@link CTagInput} stream that possibly begins with this
+     *              integer array data.
+     * @return The parsed {@link TagVarIntArray} if parsed with success.
+     * @exception IOException          If the {@link CTagInput}'s underlying
+     *                                 stream throws an IOException.
+     * @exception CTagInvalidException If a value takes more than 5 bytes.
+     * @since 1.2
+     */
+    public static TagVarIntArray parse( CTagInput input ) throws IOException, CTagInvalidException, EndException, NegativeLengthException {
+        int len = input.readVarInt();
+        if( len < 0 ) throw new NegativeLengthException( "Found array with negative length" );
+        int[] ints = new int[ len ];
+        input.readVarInts( ints, 0, len );
+        return new TagVarIntArray( ints );
+    }
+
+    public String toString() {
+        StringBuilder builder = new StringBuilder( "VAR_INTEGER_ARRAY [\n" );
+
+        int i = 0;
+        for( int b : array ) {
+            builder.append( "    " );
+            builder.append( i );
+            builder.append( ": " );
+            builder.append( b );
+            builder.append( "\n" );
+            i++;
+        }
+
+        builder.append( "]" );
+        return builder.toString();
+    }
+}
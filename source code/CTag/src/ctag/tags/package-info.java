@@ -24,6 +24,9 @@
  * <li>{@link ctag.tags.TagBooleanArray}</li>
  * </ul>
  *
+ * Custom tag types can be decoded after registering a parser for their prefix
+ * in the {@link ctag.tags.TagRegistry}.
+ * <br/><br/>
  * There is also the deprecated {@link ctag.tags.TagEnd} which is going to be removed in
  * later versions.
  * @since 1.0
@@ -0,0 +1,128 @@
+import ctag.Array;
+import ctag.CTagBufferPool;
+import ctag.CTagCompression;
+import ctag.CTagDecoder;
+import ctag.CTagEncoder;
+import ctag.CTagReader;
+import ctag.Compound;
+import ctag.tags.ITag;
+import ctag.tags.TagCompound;
+import ctag.tags.TagRecordTable;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Encode and decode benchmark that runs without a benchmark harness. Every
+ * case is warmed up first, then timed over a fixed amount of operations, and
+ * the average time per operation is printed. Run it with:
+ * <pre>
+ * java Benchmark [operations]
+ * </pre>
+ * The numbers are indicative only: run on an otherwise idle machine, and
+ * compare runs on the same machine and JVM.
+ */
+public class Benchmark {
+    // Results of every operation are folded into this, so the JIT can not
+    // remove the work
+    private static long sink;
+
+    private interface Case {
+        void run() throws Exception;
+    }
+
+    public static void main( String[] args ) throws Exception {
+        int operations = args.length > 0 ? Integer.parseInt( args[ 0 ] ) : 20000;
+
+        TagCompound document = document();
+        CTagEncoder encoder = new CTagEncoder( document );
+        byte[] bytes = encoder.encode().getBytes();
+        CTagEncoder compressing = new CTagEncoder( document );
+        compressing.setCompression( CTagCompression.DEFLATE );
+        byte[] compressed = compressing.encode().getBytes();
+        CTagEncoder tableEncoder = new CTagEncoder( table() );
+        byte[] tableBytes = tableEncoder.encode().getBytes();
+
+        ByteBuffer buffer = ByteBuffer.allocate( bytes.length * 2 );
+        CTagBufferPool pool = new CTagBufferPool();
+        OutputStream discard = new OutputStream() {
+            @Override
+            public void write( int b ) {
+                sink += b;
+            }
+
+            @Override
+            public void write( byte[] b, int off, int len ) {
+                sink += len;
+            }
+        };
+
+        System.out.println( "Document: " + bytes.length + " bytes, " + compressed.length + " bytes compressed" );
+        run( "encode to binary", operations, () -> sink += encoder.encode().size() );
+        run( "encode to buffer", operations, () -> {
+            buffer.clear();
+            encoder.encode( buffer );
+            sink += buffer.position();
+        } );
+        run( "encode to stream", operations, () -> encoder.encode( discard ) );
+        run( "encode to stream, pooled", operations, () -> encoder.encode( discard, pool ) );
+        run( "encode compressed", operations / 10, () -> sink += compressing.encode().size() );
+        run( "decode", operations, () -> sink += new CTagDecoder( bytes ).decode().getPrefix() );
+        run( "decode lazily", operations, () -> {
+            CTagDecoder decoder = new CTagDecoder( bytes );
+            decoder.setLazy( true );
+            sink += decoder.decode().getPrefix();
+        } );
+        run( "decode from stream", operations, () -> sink += new CTagDecoder( new ByteArrayInputStream( bytes ) ).decode().getPrefix() );
+        run( "decode from stream, pooled", operations, () -> {
+            CTagDecoder decoder = new CTagDecoder( new ByteArrayInputStream( bytes ), pool );
+            sink += decoder.decode().getPrefix();
+            decoder.release();
+        } );
+        run( "decode compressed", operations / 10, () -> sink += new CTagDecoder( compressed ).decode().getPrefix() );
+        run( "read tokens", operations, () -> {
+            CTagReader reader = new CTagReader( bytes );
+            while( reader.next() != CTagReader.Token.END_DOCUMENT ) {
+                sink += reader.getDepth();
+            }
+        } );
+        run( "encode record table", operations, () -> sink += tableEncoder.encode().size() );
+        run( "decode record table", operations, () -> sink += new CTagDecoder( tableBytes ).decode().getPrefix() );
+        System.out.println( "(" + sink + ")" );
+    }
+
+    private static void run( String name, int operations, Case body ) throws Exception {
+        for( int i = 0; i < operations; i++ ) {
+            body.run();
+        }
+        long start = System.nanoTime();
+        for( int i = 0; i < operations; i++ ) {
+            body.run();
+        }
+        long time = System.nanoTime() - start;
+        System.out.printf( "%-28s %10.0f ns/op%n", name, ( double ) time / operations );
+    }
+
+    private static TagCompound document() {
+        Compound compound = new Compound();
+        for( int i = 0; i < 50; i++ ) {
+            compound.put( "int" + i, i ).put( "long" + i, ( long ) i * 1000 ).put( "double" + i, i * 1.5 ).put( "string" + i, "value " + i );
+        }
+        int[] ints = new int[ 1000 ];
+        for( int i = 0; i < ints.length; i++ ) {
+            ints[ i ] = i * 7;
+        }
+        compound.put( "ints", ints );
+        compound.put( "nested", new Compound().put( "a", true ).put( "b", "nested" ) );
+        return new TagCompound( compound );
+    }
+
+    private static ITag table() {
+        Array rows = new Array();
+        for( int i = 0; i < 200; i++ ) {
+            rows.add( new Compound().put( "id", i ).put( "name", "row " + i ).put( "score", i * 0.5 ) );
+        }
+        return TagRecordTable.fromArray( rows );
+    }
+}
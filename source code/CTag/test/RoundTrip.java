@@ -0,0 +1,325 @@
+import ctag.Array;
+import ctag.Binary;
+import ctag.CTagArena;
+import ctag.CTagBufferPool;
+import ctag.CTagCompression;
+import ctag.CTagDecoder;
+import ctag.CTagDictionary;
+import ctag.CTagEncoder;
+import ctag.CTagOutput;
+import ctag.CTagReader;
+import ctag.CTagWriter;
+import ctag.Compound;
+import ctag.tags.ITag;
+import ctag.tags.TagByte;
+import ctag.tags.TagCompound;
+import ctag.tags.TagIntBuffer;
+import ctag.tags.TagInteger;
+import ctag.tags.TagLong;
+import ctag.tags.TagRecordTable;
+import ctag.tags.TagRegistry;
+import ctag.tags.TagString;
+import ctag.tags.TagVarIntArray;
+import ctag.tags.TagVarLongArray;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Round-trip checks for the wire formats: every check encodes a tag, decodes
+ * it again in the ways the library supports, and compares the results. Run
+ * the main method; it throws an {@link AssertionError} on the first failure.
+ */
+public class RoundTrip {
+    public static void main( String[] args ) throws Exception {
+        builder();
+        large();
+        varInts();
+        recordTable();
+        compression();
+        lazy();
+        pooled();
+        recordTableViews();
+        recordTableArena();
+        largeRecordTable();
+        released();
+        System.out.println( "All round trips passed" );
+    }
+
+    private static void builder() {
+        Binary.Builder builder = new Binary.Builder( 2 );
+        builder.append( new byte[] { 3, 4 } );
+        builder.prepend( new byte[] { 1, 2 } );
+        for( int i = 5; i <= 100; i++ ) {
+            builder.append( ( byte ) i );
+        }
+        Binary first = builder.build();
+        byte[] expected = new byte[ 100 ];
+        for( int i = 0; i < expected.length; i++ ) {
+            expected[ i ] = ( byte ) ( i + 1 );
+        }
+        check( Arrays.equals( expected, first.getBytes() ), "Builder bytes" );
+
+        Binary second = builder.build();
+        check( first.getBytes() != second.getBytes(), "Builder shares an array between binaries" );
+        builder.append( ( byte ) 101 );
+        builder.prepend( new byte[] { 0 } );
+        check( Arrays.equals( expected, first.getBytes() ) && Arrays.equals( expected, second.getBytes() ), "Builder changed a built binary" );
+        check( builder.size() == 102 && builder.build().getByte( 0 ) == 0, "Builder after build" );
+
+        Binary appended = new Binary( new byte[] { 1, 2, 3 } );
+        builder = new Binary.Builder();
+        builder.append( appended );
+        Binary built = builder.build();
+        check( built != appended && built.getBytes() != appended.getBytes(), "Builder returned an appended binary" );
+        builder.append( ( byte ) 4 );
+        builder.prepend( new byte[] { 0 } );
+        check( Arrays.equals( new byte[] { 1, 2, 3 }, appended.getBytes() ) && Arrays.equals( new byte[] { 1, 2, 3 }, built.getBytes() ), "Builder changed an appended binary" );
+        check( Arrays.equals( new byte[] { 0, 1, 2, 3, 4 }, builder.build().getBytes() ), "Builder after appending a binary" );
+        System.out.println( "Binary builder: OK" );
+    }
+
+    private static void large() throws Exception {
+        StringBuilder builder = new StringBuilder();
+        for( int i = 0; i < 40000; i++ ) {
+            builder.append( ( char ) ( 'a' + i % 26 ) );
+        }
+        String string = builder.toString();
+        int[] ints = new int[ 40000 ];
+        for( int i = 0; i < ints.length; i++ ) {
+            ints[ i ] = i * 31;
+        }
+        Array array = new Array();
+        for( int i = 0; i < 33000; i++ ) {
+            array.add( ( byte ) i );
+        }
+        Compound compound = new Compound().put( "string", string ).put( "ints", ints ).put( "array", array ).put( "after", 7 );
+        byte[] bytes = roundTrip( new TagCompound( compound ) );
+        check( new TagString( string ).getPrefix() == TagRegistry.LARGE, "Long string has no LARGE prefix" );
+        check( ( ( TagInteger ) new CTagDecoder( bytes ).extract( "ints[39999]" ) ).getValue() == 39999 * 31, "Path into a large integer array" );
+        check( ( ( TagByte ) new CTagDecoder( bytes ).extract( "array[32999]" ) ).getValue() == ( byte ) 32999, "Path into a large array" );
+
+        CTagOutput output = new CTagOutput();
+        CTagWriter writer = new CTagWriter( output );
+        writer.beginCompound();
+        writer.key( "string" ).writeString( string );
+        writer.key( "ints" ).writeIntArray( ints );
+        writer.key( "array" ).beginArray( array.length() );
+        for( int i = 0; i < array.length(); i++ ) {
+            writer.writeByte( ( byte ) i );
+        }
+        writer.endArray();
+        writer.key( "after" ).writeInt( 7 );
+        writer.endCompound();
+        check( Arrays.equals( bytes, output.toBinary().getBytes() ), "Writer and encoder differ for large values" );
+
+        CTagReader reader = new CTagReader( bytes );
+        int found = 0;
+        while( reader.next() != CTagReader.Token.END_DOCUMENT ) {
+            if( "string".equals( reader.getKey() ) ) {
+                check( string.equals( reader.getString() ), "Reader large string" );
+                found++;
+            } else if( "ints".equals( reader.getKey() ) ) {
+                check( Arrays.equals( ints, reader.getIntArray() ), "Reader large integer array" );
+                found++;
+            } else if( "array".equals( reader.getKey() ) ) {
+                check( reader.getLength() == array.length(), "Reader large array length" );
+                reader.skipValue();
+                found++;
+            } else if( "after".equals( reader.getKey() ) ) {
+                check( reader.getInt() == 7, "Reader value after large values" );
+                found++;
+            }
+        }
+        check( found == 4, "Reader missed large values" );
+        System.out.println( "Large values: OK" );
+    }
+
+    private static void varInts() throws Exception {
+        int[] ints = { 0, 1, -1, 300, Integer.MAX_VALUE, Integer.MIN_VALUE };
+        long[] longs = { 0, -300, Long.MAX_VALUE, Long.MIN_VALUE };
+        Compound compound = new Compound().put( "ints", new TagVarIntArray( ints ) ).put( "longs", new TagVarLongArray( longs ) );
+        byte[] bytes = roundTrip( new TagCompound( compound ) );
+        Compound decoded = ( ( TagCompound ) new CTagDecoder( bytes ).decode() ).getValue();
+        check( Arrays.equals( ints, decoded.getIntegerArray( "ints" ) ), "Varint integers" );
+        check( Arrays.equals( longs, decoded.getTagLongArray( "longs" ).getValue() ), "Varint longs" );
+        check( ( ( TagInteger ) new CTagDecoder( bytes ).extract( "ints[5]" ) ).getValue() == Integer.MIN_VALUE, "Path into varint integers" );
+        check( ( ( TagLong ) new CTagDecoder( bytes ).extract( "longs[1]" ) ).getValue() == -300, "Path into varint longs" );
+
+        CTagReader reader = new CTagReader( bytes );
+        reader.next();
+        check( reader.next() == CTagReader.Token.INTEGER_ARRAY && Arrays.equals( ints, reader.getIntArray() ), "Reader varint integers" );
+        check( reader.next() == CTagReader.Token.LONG_ARRAY && Arrays.equals( longs, reader.getLongArray() ), "Reader varint longs" );
+        System.out.println( "Varint arrays: OK" );
+    }
+
+    private static void recordTable() throws Exception {
+        Array rows = new Array();
+        for( int i = 0; i < 10; i++ ) {
+            rows.add( new Compound().put( "id", i ).put( "name", "row " + i ).put( "flag", i % 2 == 0 ) );
+        }
+        TagRecordTable table = TagRecordTable.fromArray( rows );
+        roundTrip( table );
+        TagRecordTable decoded = ( TagRecordTable ) new CTagDecoder( new CTagEncoder( table ).encode() ).decode();
+        check( decoded.getRows() == 10, "Record table rows" );
+        check( decoded.toArray().getCompound( 3 ).getString( "name" ).equals( "row 3" ), "Record table value" );
+
+        CTagReader reader = new CTagReader( new CTagEncoder( table ).encode().getBytes() );
+        check( reader.next() == CTagReader.Token.START_RECORD_TABLE && reader.getLength() == 10, "Reader record table" );
+        check( reader.next() == CTagReader.Token.INTEGER_ARRAY && "id".equals( reader.getKey() ), "Reader record table column" );
+
+        System.out.println( "Record table: OK" );
+    }
+
+    private static void compression() throws Exception {
+        Compound compound = new Compound();
+        for( int i = 0; i < 500; i++ ) {
+            compound.put( "key" + i, "value " + i );
+        }
+        TagCompound tag = new TagCompound( compound );
+        byte[] plain = new CTagEncoder( tag ).encode().getBytes();
+        CTagDictionary.register( CTagDictionary.ofKeys( 4242, "key", "value " ) );
+        for( CTagCompression compression : CTagCompression.values() ) {
+            for( int dictionary = 0; dictionary < 2; dictionary++ ) {
+                if( dictionary == 1 && compression != CTagCompression.DEFLATE ) continue;
+                CTagEncoder encoder = new CTagEncoder( tag );
+                encoder.setCompression( compression );
+                if( dictionary == 1 ) {
+                    encoder.setDictionary( CTagDictionary.get( 4242 ) );
+                }
+                byte[] bytes = encoder.encode().getBytes();
+                check( Arrays.equals( plain, new CTagEncoder( new CTagDecoder( bytes ).decode() ).encode().getBytes() ), compression + " decode" );
+                ITag streamed = new CTagDecoder( new ByteArrayInputStream( bytes ) ).decode();
+                check( Arrays.equals( plain, new CTagEncoder( streamed ).encode().getBytes() ), compression + " stream decode" );
+                CTagReader reader = new CTagReader( bytes );
+                int values = 0;
+                while( reader.next() != CTagReader.Token.END_DOCUMENT ) {
+                    if( reader.getToken() == CTagReader.Token.STRING ) values++;
+                }
+                check( values == 500, compression + " reader" );
+            }
+        }
+        System.out.println( "Compression: OK" );
+    }
+
+    private static void lazy() throws Exception {
+        Compound inner = new Compound().put( "x", 1 ).put( "y", new int[] { 1, 2, 3 } );
+        Compound compound = new Compound().put( "inner", inner ).put( "name", "lazy" ).put( "n", 5L );
+        byte[] bytes = new CTagEncoder( new TagCompound( compound ) ).encode().getBytes();
+
+        CTagDecoder decoder = new CTagDecoder( bytes );
+        decoder.setLazy( true );
+        ITag untouched = decoder.decode();
+        check( Arrays.equals( bytes, new CTagEncoder( untouched ).encode().getBytes() ), "Lazy passthrough" );
+
+        decoder = new CTagDecoder( bytes );
+        decoder.setLazy( true );
+        TagCompound touched = ( TagCompound ) decoder.decode();
+        touched.getValue().put( "name", "changed" );
+        check( touched.getValue().getCompound( "inner" ).getInteger( "x" ) == 1, "Lazy nested value" );
+        Compound decoded = ( ( TagCompound ) new CTagDecoder( new CTagEncoder( touched ).encode() ).decode() ).getValue();
+        check( decoded.getString( "name" ).equals( "changed" ) && decoded.getLong( "n" ) == 5L, "Lazy changed value" );
+        System.out.println( "Lazy decoding: OK" );
+    }
+
+    private static void pooled() throws Exception {
+        TagCompound tag = new TagCompound( new Compound().put( "a", 1 ).put( "b", "two" ) );
+        byte[] plain = new CTagEncoder( tag ).encode().getBytes();
+        CTagBufferPool pool = new CTagBufferPool();
+        for( int i = 0; i < 3; i++ ) {
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            new CTagEncoder( tag ).encode( stream, pool );
+            check( Arrays.equals( plain, stream.toByteArray() ), "Pooled encode" );
+            CTagDecoder decoder = new CTagDecoder( new ByteArrayInputStream( stream.toByteArray() ), pool );
+            ITag decoded = decoder.decode();
+            decoder.release();
+            check( Arrays.equals( plain, new CTagEncoder( decoded ).encode().getBytes() ), "Pooled decode" );
+        }
+        System.out.println( "Buffer pool: OK" );
+    }
+
+    private static void recordTableViews() throws Exception {
+        Array rows = new Array();
+        for( int i = 0; i < 10; i++ ) {
+            rows.add( new Compound().put( "id", i ).put( "time", i * 1000L ).put( "score", i * 0.5 ).put( "level", ( short ) i ) );
+        }
+        byte[] bytes = new CTagEncoder( TagRecordTable.fromArray( rows ) ).encode().getBytes();
+        CTagDecoder decoder = new CTagDecoder( bytes );
+        decoder.setViews( true );
+        TagRecordTable decoded = ( TagRecordTable ) decoder.decode();
+        check( decoded.getColumn( "id" ) instanceof TagIntBuffer, "Record table column is no view" );
+        Compound row = decoded.getRow( 7 );
+        check( row.getInteger( "id" ) == 7 && row.getLong( "time" ) == 7000L && row.getDouble( "score" ) == 3.5 && row.getShort( "level" ) == 7, "Record table view value" );
+        check( Arrays.equals( bytes, new CTagEncoder( decoded ).encode().getBytes() ), "Record table views encode differently" );
+        System.out.println( "Record table views: OK" );
+    }
+
+    private static void recordTableArena() throws Exception {
+        Array rows = new Array();
+        for( int i = 0; i < 10; i++ ) {
+            rows.add( new Compound().put( "id", i ).put( "score", i * 0.25f ).put( "flags", ( byte ) i ) );
+        }
+        byte[] bytes = new CTagEncoder( TagRecordTable.fromArray( rows ) ).encode().getBytes();
+        try( CTagArena arena = new CTagArena() ) {
+            CTagDecoder decoder = new CTagDecoder( bytes );
+            decoder.setArena( arena );
+            TagRecordTable decoded = ( TagRecordTable ) decoder.decode();
+            check( arena.getAllocated() > 0, "Record table columns are not in the arena" );
+            Compound row = decoded.getRow( 9 );
+            check( row.getInteger( "id" ) == 9 && row.getFloat( "score" ) == 2.25f && row.getByte( "flags" ) == 9, "Record table arena value" );
+            check( Arrays.equals( bytes, new CTagEncoder( decoded ).encode().getBytes() ), "Record table in arena encodes differently" );
+        }
+        System.out.println( "Record table arena: OK" );
+    }
+
+    private static void largeRecordTable() throws Exception {
+        Array rows = new Array();
+        for( int i = 0; i < 40000; i++ ) {
+            rows.add( new Compound().put( "id", i ).put( "even", i % 2 == 0 ) );
+        }
+        TagRecordTable table = TagRecordTable.fromArray( rows );
+        byte[] bytes = roundTrip( table );
+        TagRecordTable decoded = ( TagRecordTable ) new CTagDecoder( bytes ).decode();
+        check( decoded.getRows() == 40000 && decoded.getRow( 39999 ).getInteger( "id" ) == 39999, "Large record table rows" );
+
+        CTagReader reader = new CTagReader( bytes );
+        check( reader.next() == CTagReader.Token.START_RECORD_TABLE && reader.getLength() == 40000, "Reader large record table" );
+        check( reader.next() == CTagReader.Token.INTEGER_ARRAY && reader.getIntArray().length == 40000, "Reader large record table column" );
+        System.out.println( "Large record table: OK" );
+    }
+
+    private static void released() throws Exception {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        CTagOutput output = new CTagOutput( stream, new CTagBufferPool() );
+        output.writeInts( new int[] { 1, 2, 3 }, 0, 3 );
+        output.flush();
+        output.release();
+        output.flush();
+        output.close();
+        check( stream.size() == 12, "Released output wrote bytes" );
+        System.out.println( "Released output: OK" );
+    }
+
+    /**
+     * Encodes a tag, decodes it from a byte array and from a stream, and
+     * checks that both encode to the same bytes again
+     * @return The encoded tag
+     */
+    private static byte[] roundTrip( ITag tag ) throws Exception {
+        byte[] bytes = new CTagEncoder( tag ).encode().getBytes();
+        ITag decoded = new CTagDecoder( bytes ).decode();
+        check( Arrays.equals( bytes, new CTagEncoder( decoded ).encode().getBytes() ), "Decoded " + tag.getClass().getSimpleName() + " encodes differently" );
+        ITag streamed = new CTagDecoder( new ByteArrayInputStream( bytes ) ).decode();
+        check( Arrays.equals( bytes, new CTagEncoder( streamed ).encode().getBytes() ), "Stream-decoded " + tag.getClass().getSimpleName() + " encodes differently" );
+        Binary binary = new CTagEncoder( tag ).encode();
+        check( binary.size() == bytes.length, "Encoding is not stable" );
+        return bytes;
+    }
+
+    private static void check( boolean condition, String message ) {
+        if( !condition ) {
+            throw new AssertionError( message );
+        }
+    }
+}